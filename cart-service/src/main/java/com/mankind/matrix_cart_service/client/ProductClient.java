@@ -1,22 +1,40 @@
 package com.mankind.matrix_cart_service.client;
 
 import com.mankind.api.product.dto.product.ProductResponseDTO;
+import feign.Request;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import com.mankind.api.product.dto.inventory.CartLineReservationDTO;
+import com.mankind.api.product.dto.inventory.CartLinesRequestDTO;
+import com.mankind.api.product.dto.inventory.CartLinesReservationDTO;
 import com.mankind.api.product.dto.inventory.InventoryResponseDTO;
 import java.math.BigDecimal;
+import java.util.List;
 
 @FeignClient(name = "product-service", url = "${PRODUCT_SERVICE_URL:http://localhost:8080}")
 public interface ProductClient {
     @GetMapping("/products/{id}")
     ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id);
 
+    /**
+     * Called from the enrichment pool, which has no request of its own: the caller's token is
+     * passed in, and the options bound the call to what is left of the caller's deadline
+     */
+    @GetMapping("/products/batch")
+    ResponseEntity<List<ProductResponseDTO>> getProductsByIds(
+            @RequestParam("ids") List<Long> ids,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            Request.Options options);
+
     @GetMapping("/inventory/{productId}")
     ResponseEntity<InventoryResponseDTO> getInventoryByProductId(@PathVariable Long productId);
 
@@ -28,6 +46,24 @@ public interface ProductClient {
             @RequestParam Long userId,
             @RequestParam Long cartId);
 
+    // Validates product, stock and max per purchase and reserves the difference to what the cart holds;
+    // responds 409 with the outcome when the quantity cannot be reserved. currentQuantity is the cart's
+    // own count, used when product-service has no reservation recorded for the line
+    @PutMapping("/inventory/{productId}/cart/line")
+    ResponseEntity<CartLineReservationDTO> reserveCartLine(
+            @PathVariable Long productId,
+            @RequestParam BigDecimal quantity,
+            @RequestParam(required = false) BigDecimal currentQuantity,
+            @RequestParam Long userId,
+            @RequestParam Long cartId);
+
+    // Sets several cart quantities like reserveCartLine, all or nothing; responds 409 with per-line outcomes
+    @PutMapping("/inventory/cart/lines")
+    ResponseEntity<CartLinesReservationDTO> reserveCartLines(
+            @RequestParam Long userId,
+            @RequestParam Long cartId,
+            @RequestBody CartLinesRequestDTO request);
+
     @PostMapping("/inventory/{productId}/cart/unreserve")
     ResponseEntity<InventoryResponseDTO> unreserveStockForCart(
             @PathVariable Long productId,
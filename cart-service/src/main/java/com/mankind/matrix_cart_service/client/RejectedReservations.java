@@ -0,0 +1,28 @@
+package com.mankind.matrix_cart_service.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.FeignException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * product-service rejects a reservation with 409 and the same result body a successful one has.
+ * Feign turns any 409 into FeignException.Conflict before the body is decoded, so callers read it from there.
+ */
+@Component
+@RequiredArgsConstructor
+public class RejectedReservations {
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The result carried by a 409; the exception itself is rethrown when its body is not such a result
+     */
+    public <T> T read(FeignException.Conflict e, Class<T> type) {
+        try {
+            return objectMapper.readValue(e.contentUTF8(), type);
+        } catch (JsonProcessingException parseError) {
+            throw e;
+        }
+    }
+}
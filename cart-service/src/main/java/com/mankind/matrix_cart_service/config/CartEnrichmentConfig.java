@@ -0,0 +1,54 @@
+package com.mankind.matrix_cart_service.config;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class CartEnrichmentConfig {
+    public static final String ENRICHMENT_EXECUTOR = "cartEnrichmentExecutor";
+
+    /**
+     * Bounded pool for the product lookups of cart enrichment. A full queue rejects instead of
+     * running on the request thread, the lookup then degrades like one that missed its deadline.
+     */
+    @Bean(name = ENRICHMENT_EXECUTOR)
+    public ThreadPoolTaskExecutor cartEnrichmentExecutor(
+            @Value("${app.cart.enrichment.pool-size:8}") int poolSize,
+            @Value("${app.cart.enrichment.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cart-enrichment-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(mdcDecorator());
+        return executor;
+    }
+
+    /**
+     * Carries the caller's MDC over to the pool thread. Request attributes are not carried, a task
+     * may still run after the request has completed; the caller passes its token in instead.
+     */
+    static TaskDecorator mdcDecorator() {
+        return task -> {
+            Map<String, String> mdc = MDC.getCopyOfContextMap();
+            return () -> {
+                if (mdc != null) {
+                    MDC.setContextMap(mdc);
+                }
+                try {
+                    task.run();
+                } finally {
+                    MDC.clear();
+                }
+            };
+        };
+    }
+}
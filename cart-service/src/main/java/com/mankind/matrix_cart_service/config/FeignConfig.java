@@ -31,6 +31,10 @@ public class FeignConfig {
     @Bean
     public RequestInterceptor propagateBearerToken() {
         return template -> {
+            // Passed in explicitly by calls made off the request thread
+            if (template.headers().containsKey(HttpHeaders.AUTHORIZATION)) {
+                return;
+            }
             ServletRequestAttributes attrs =
                     (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
             if (attrs != null) {
@@ -42,7 +46,8 @@ public class FeignConfig {
                     logger.debug("No authorization header found in current request");
                 }
             } else {
-                logger.warn("No ServletRequestAttributes found in RequestContextHolder");
+                // Expected for calls from the enrichment pool, which run outside any request
+                logger.debug("No ServletRequestAttributes found in RequestContextHolder");
             }
         };
     }
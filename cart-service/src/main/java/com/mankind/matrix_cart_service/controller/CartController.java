@@ -1,6 +1,7 @@
 package com.mankind.matrix_cart_service.controller;
 
 import com.mankind.matrix_cart_service.dto.CartItemDTO;
+import com.mankind.matrix_cart_service.dto.CartOperationsRequestDTO;
 import com.mankind.matrix_cart_service.dto.CartResponseDTO;
 import com.mankind.matrix_cart_service.service.CartService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -75,4 +76,17 @@ public class CartController {
             @Parameter(description = "ID of the product to remove", required = true) @PathVariable Long productId) {
         return ResponseEntity.ok(cartService.removeItemFromCart(productId));
     }
+
+    @Operation(summary = "Apply several cart changes at once", description = "Applies an ordered list of ADD, SET_QUANTITY and REMOVE operations to the authenticated user's open cart as one edit: all changed products are validated and reserved together and the updated cart is returned once. If any operation fails, the cart is left unchanged. Access via /api/v1/cart/operations through the gateway.")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "All operations applied successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid operation"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - JWT required"),
+        @ApiResponse(responseCode = "404", description = "Product not found or not in cart")
+    })
+    @PostMapping("/operations")
+    public ResponseEntity<CartResponseDTO> applyOperations(@Valid @RequestBody CartOperationsRequestDTO request) {
+        log.info("Received {} cart operations", request.getOperations().size());
+        return ResponseEntity.ok(cartService.applyOperations(request.getOperations()));
+    }
 }
@@ -0,0 +1,30 @@
+package com.mankind.matrix_cart_service.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationDTO {
+    public enum Type {
+        ADD,
+        SET_QUANTITY,
+        REMOVE
+    }
+
+    @NotNull(message = "Operation type is required")
+    private Type type;
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    // Quantity to add for ADD, new quantity for SET_QUANTITY (0 removes), unused for REMOVE
+    @Min(value = 0, message = "Quantity cannot be negative")
+    private Integer quantity;
+}
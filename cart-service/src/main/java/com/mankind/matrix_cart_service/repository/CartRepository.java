@@ -3,6 +3,8 @@ package com.mankind.matrix_cart_service.repository;
 import com.mankind.matrix_cart_service.model.Cart;
 import com.mankind.matrix_cart_service.model.CartStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,6 +20,15 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
      * @return the active cart if found
      */
     Optional<Cart> findByUserIdAndStatus(Long userId, CartStatus status);
+
+    /**
+     * Find a user's cart together with its items in one statement
+     * @param userId the ID of the user
+     * @param status the status of the cart (usually ACTIVE)
+     * @return the cart with its items loaded if found
+     */
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.cartItems WHERE c.userId = :userId AND c.status = :status")
+    Optional<Cart> findWithItemsByUserIdAndStatus(@Param("userId") Long userId, @Param("status") CartStatus status);
     
     /**
      * Find active cart for a guest session
@@ -1,8 +1,13 @@
 package com.mankind.matrix_cart_service.service;
 
-import com.mankind.api.product.dto.product.ProductResponseDTO;
+import com.mankind.api.product.dto.inventory.CartLineQuantityDTO;
+import com.mankind.api.product.dto.inventory.CartLineReservationDTO;
+import com.mankind.api.product.dto.inventory.CartLinesRequestDTO;
+import com.mankind.api.product.dto.inventory.CartLinesReservationDTO;
 import com.mankind.matrix_cart_service.client.ProductClient;
+import com.mankind.matrix_cart_service.client.RejectedReservations;
 import com.mankind.matrix_cart_service.dto.CartItemDTO;
+import com.mankind.matrix_cart_service.dto.CartOperationDTO;
 import com.mankind.matrix_cart_service.dto.CartResponseDTO;
 import com.mankind.matrix_cart_service.dto.CartItemResponseDTO;
 import com.mankind.matrix_cart_service.mapper.CartItemMapper;
@@ -10,16 +15,19 @@ import com.mankind.matrix_cart_service.mapper.CartMapper;
 import com.mankind.matrix_cart_service.model.Cart;
 import com.mankind.matrix_cart_service.model.CartItem;
 import com.mankind.matrix_cart_service.model.CartStatus;
-import com.mankind.matrix_cart_service.repository.CartItemRepository;
 import com.mankind.matrix_cart_service.repository.CartRepository;
+import com.mankind.matrix_cart_service.exception.BadRequestException;
 import com.mankind.matrix_cart_service.exception.MaxQuantityPerPurchaseExceededException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import feign.FeignException;
 import org.springframework.web.server.ResponseStatusException;
@@ -31,15 +39,16 @@ import org.slf4j.LoggerFactory;
 public class CartService {
     private static final Logger log = LoggerFactory.getLogger(CartService.class);
     private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
     private final CartMapper cartMapper;
     private final CartItemMapper cartItemMapper;
     private final CurrentUserService currentUserService;
     private final ProductClient productClient;
+    private final ProductLookupService productLookupService;
+    private final RejectedReservations rejectedReservations;
 
     public CartResponseDTO getCurrentUserOpenCart() {
         Long userId = currentUserService.getCurrentUserId();
-        Optional<Cart> cartOpt = cartRepository.findByUserIdAndStatus(userId, CartStatus.ACTIVE);
+        Optional<Cart> cartOpt = cartRepository.findWithItemsByUserIdAndStatus(userId, CartStatus.ACTIVE);
         if (cartOpt.isPresent()) {
             Cart cart = cartOpt.get();
             CartResponseDTO cartResponse = cartMapper.toResponseDTO(cart);
@@ -50,27 +59,21 @@ public class CartService {
     }
 
     /**
-     * Enriches cart items with product details (name, image, description)
+     * Enriches cart items with product details (name, image, description), served from the local
+     * snapshot cache where possible; items whose details do not arrive in time get placeholders
      */
     private void enrichCartItemsWithProductDetails(CartResponseDTO cartResponse) {
         if (cartResponse.getItems() != null) {
+            Map<Long, ProductSnapshot> products = fetchProducts(cartResponse.getItems());
             double cartSubtotal = 0.0;
             
             for (CartItemResponseDTO item : cartResponse.getItems()) {
-                try {
-                    ResponseEntity<ProductResponseDTO> productResponse = productClient.getProductById(item.getProductId());
-                    if (productResponse.getStatusCode().is2xxSuccessful() && productResponse.getBody() != null) {
-                        ProductResponseDTO product = productResponse.getBody();
-                        item.setProductName(product.getName());
-                        // Use first image from the images list, or empty string if no images
-                        String productImage = (product.getImages() != null && !product.getImages().isEmpty()) 
-                            ? product.getImages().get(0) 
-                            : "";
-                        item.setProductImage(productImage);
-                        item.setProductDescription(product.getDescription());
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to fetch product details for productId: {}, error: {}", item.getProductId(), e.getMessage());
+                ProductSnapshot product = products.get(item.getProductId());
+                if (product != null) {
+                    item.setProductName(product.getName());
+                    item.setProductImage(product.getImageUrl());
+                    item.setProductDescription(product.getDescription());
+                } else {
                     // Set default values if product fetch fails
                     item.setProductName("Product not available");
                     item.setProductImage("");
@@ -90,6 +93,10 @@ public class CartService {
         }
     }
 
+    private Map<Long, ProductSnapshot> fetchProducts(List<CartItemResponseDTO> items) {
+        return productLookupService.fetchProducts(items.stream().map(CartItemResponseDTO::getProductId).toList());
+    }
+
     /**
      * Calculates cart totals including subtotal, tax (10%), and total
      */
@@ -105,44 +112,99 @@ public class CartService {
     }
 
     // --- Helper methods for product and inventory validation ---
-    private ProductResponseDTO validateProductActive(Long productId) {
-        ResponseEntity<ProductResponseDTO> productResponse = productClient.getProductById(productId);
-        if (!productResponse.getStatusCode().is2xxSuccessful() || productResponse.getBody() == null) {
-            throw new EntityNotFoundException("Product not found");
+
+    /**
+     * Validates the product, its stock and the per-purchase limit and reserves the difference to what
+     * the cart already holds, all in one call to product-service. The item's current quantity is sent
+     * along for lines product-service has no reservation recorded for. Rejections surface as the cart's errors.
+     */
+    private CartLineReservationDTO reserveCartLine(Long productId, int quantity, int currentQuantity, Long userId, Long cartId) {
+        CartLineReservationDTO line;
+        try {
+            line = productClient.reserveCartLine(productId, BigDecimal.valueOf(quantity),
+                    BigDecimal.valueOf(currentQuantity), userId, cartId).getBody();
+        } catch (FeignException.Conflict e) {
+            line = rejectedReservations.read(e, CartLineReservationDTO.class);
         }
-        ProductResponseDTO product = productResponse.getBody();
-        if (!product.isActive()) {
-            throw new IllegalStateException("Product is not active");
+        if (line == null) {
+            throw new EntityNotFoundException("Product inventory not found");
         }
-        return product;
+        return checkOutcome(line);
     }
 
-    private com.mankind.api.product.dto.inventory.InventoryResponseDTO validateInventoryAndStock(Long productId, int requestedQuantity) {
-        ResponseEntity<com.mankind.api.product.dto.inventory.InventoryResponseDTO> inventoryResponse = productClient.getInventoryByProductId(productId);
-        if (!inventoryResponse.getStatusCode().is2xxSuccessful() || inventoryResponse.getBody() == null) {
+    /**
+     * Sets several quantities in one call, all or nothing; the first rejected line surfaces as the cart's error
+     */
+    private Map<Long, CartLineReservationDTO> reserveCartLines(Map<Long, Integer> quantities, Map<Long, Integer> current,
+                                                               Long userId, Long cartId) {
+        CartLinesRequestDTO request = new CartLinesRequestDTO(quantities.entrySet().stream()
+                .map(entry -> new CartLineQuantityDTO(entry.getKey(), BigDecimal.valueOf(entry.getValue()),
+                        BigDecimal.valueOf(current.getOrDefault(entry.getKey(), 0))))
+                .toList());
+        CartLinesReservationDTO result;
+        try {
+            result = productClient.reserveCartLines(userId, cartId, request).getBody();
+        } catch (FeignException.Conflict e) {
+            result = rejectedReservations.read(e, CartLinesReservationDTO.class);
+        }
+        if (result == null || result.getLines() == null) {
             throw new EntityNotFoundException("Product inventory not found");
         }
-        var inventory = inventoryResponse.getBody();
-        if (inventory.getAvailableQuantity() == null || requestedQuantity > inventory.getAvailableQuantity().intValue()) {
-            throw new IllegalStateException("Not enough stock available");
+        Map<Long, CartLineReservationDTO> lines = new HashMap<>();
+        for (CartLineReservationDTO line : result.getLines()) {
+            lines.put(line.getProductId(), checkOutcome(line));
         }
-        return inventory;
+        return lines;
+    }
+
+    private CartLineReservationDTO checkOutcome(CartLineReservationDTO line) {
+        switch (line.getOutcome()) {
+            case RESERVED:
+                return line;
+            case PRODUCT_NOT_FOUND:
+                throw new EntityNotFoundException("Product not found");
+            case PRODUCT_INACTIVE:
+                throw new IllegalStateException("Product is not active");
+            case INVENTORY_NOT_FOUND:
+                throw new EntityNotFoundException("Product inventory not found");
+            case MAX_QUANTITY_EXCEEDED:
+                throw new MaxQuantityPerPurchaseExceededException(
+                    "Quantity " + line.getQuantity().intValue() + " exceeds the maximum allowed per purchase (" + line.getMaxQuantityPerPurchase().intValue() + ") for this product.");
+            default:
+                throw new IllegalStateException("Not enough stock available");
+        }
+    }
+
+    private CartItem findItem(Cart cart, Long productId) {
+        return cart.getCartItems().stream()
+                .filter(item -> item.getProductId().equals(productId))
+                .findFirst()
+                .orElse(null);
     }
 
-    private void validateMaxQuantity(com.mankind.api.product.dto.inventory.InventoryResponseDTO inventory, int quantity) {
-        if (inventory.getMaxQuantityPerPurchase() != null && quantity > inventory.getMaxQuantityPerPurchase().intValue()) {
-            throw new MaxQuantityPerPurchaseExceededException(
-                "Quantity " + quantity + " exceeds the maximum allowed per purchase (" + inventory.getMaxQuantityPerPurchase().intValue() + ") for this product.");
+    /**
+     * Writes the request's changes to the cart and its items with a single flush, which also
+     * assigns ids to new items, and maps the result
+     */
+    private CartResponseDTO flushAndMap(Cart cart) {
+        // If cart has no items after operation, set status to REMOVED
+        if (cart.getCartItems().isEmpty()) {
+            cart.setStatus(CartStatus.REMOVED);
+        } else {
+            cart.setStatus(CartStatus.ACTIVE);
         }
+        cart.calculateTotals();
+        cartRepository.flush();
+        CartResponseDTO cartResponse = cartMapper.toResponseDTO(cart);
+        enrichCartItemsWithProductDetails(cartResponse);
+        return cartResponse;
     }
 
     @Transactional
     public CartResponseDTO addItemToCart(CartItemDTO itemDTO) {
         Long userId = currentUserService.getCurrentUserId();
-        // 1. Check if product is active
-        validateProductActive(itemDTO.getProductId());
-        // 2. Get or create cart
-        Cart cart = cartRepository.findByUserIdAndStatus(userId, CartStatus.ACTIVE)
+        // 1. Load the cart with its items in one statement, or create it
+        Cart cart = cartRepository.findWithItemsByUserIdAndStatus(userId, CartStatus.ACTIVE)
                 .orElse(null);
         if (cart == null) {
             cart = Cart.builder()
@@ -150,63 +212,27 @@ public class CartService {
                     .status(CartStatus.ACTIVE)
                     .cartItems(new java.util.ArrayList<>())
                     .build();
+            // Inserted right away, the reservation needs the cart id
             cart = cartRepository.save(cart);
         }
         try {
-            // 3. Fetch inventory info and validate
-            var inventory = validateInventoryAndStock(itemDTO.getProductId(), itemDTO.getQuantity());
-            validateMaxQuantity(inventory, itemDTO.getQuantity());
-            // 4. Check if item exists in cart
-            CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), itemDTO.getProductId());
+            // 2. Check if item exists in cart
+            CartItem cartItem = findItem(cart, itemDTO.getProductId());
+            int currentQuantity = cartItem != null ? cartItem.getQuantity() : 0;
+            int newQuantity = currentQuantity + itemDTO.getQuantity();
+            // 3. Validate product, stock and max per purchase and reserve the stock in one call
+            var line = reserveCartLine(itemDTO.getProductId(), newQuantity, currentQuantity, userId, cart.getId());
             if (cartItem != null) {
-                // Update quantity, enforce max and stock
-                int newQuantity = cartItem.getQuantity() + itemDTO.getQuantity();
-                validateMaxQuantity(inventory, newQuantity);
-                if (inventory.getAvailableQuantity() != null && newQuantity > inventory.getAvailableQuantity().intValue()) {
-                    throw new IllegalStateException("Not enough stock available for the requested quantity");
-                }
-                
-                // Update inventory for cart item update
-                int oldQuantity = cartItem.getQuantity();
-                productClient.updateReservedStockForCart(
-                    itemDTO.getProductId(), 
-                    BigDecimal.valueOf(oldQuantity), 
-                    BigDecimal.valueOf(newQuantity), 
-                    userId, 
-                    cart.getId()
-                );
-                
                 cartItem.setQuantity(newQuantity);
-                cartItemRepository.save(cartItem);
             } else {
-                // Add new item - reserve stock for cart
-                productClient.reserveStockForCart(
-                    itemDTO.getProductId(), 
-                    BigDecimal.valueOf(itemDTO.getQuantity()), 
-                    userId, 
-                    cart.getId()
-                );
-                
-                double price = inventory.getPrice().doubleValue();
-                cartItem = CartItem.builder()
-                        .cart(cart)
+                double price = line.getPrice().doubleValue();
+                cart.addCartItem(CartItem.builder()
                         .productId(itemDTO.getProductId())
                         .quantity(itemDTO.getQuantity())
                         .price(price)
-                        .build();
-                cart.getCartItems().add(cartItem);
-                cartItemRepository.save(cartItem);
-            }
-            // If cart has no items after operation, set status to REMOVED
-            if (cart.getCartItems() == null || cart.getCartItems().isEmpty()) {
-                cart.setStatus(CartStatus.REMOVED);
-            } else {
-                cart.setStatus(CartStatus.ACTIVE);
+                        .build());
             }
-            cartRepository.save(cart);
-            CartResponseDTO cartResponse = cartMapper.toResponseDTO(cart);
-            enrichCartItemsWithProductDetails(cartResponse);
-            return cartResponse;
+            return flushAndMap(cart);
         } catch (FeignException e) {
             log.error("Feign error when calling product-service: status={}, content={}", e.status(), e.contentUTF8());
             throw e;
@@ -219,54 +245,23 @@ public class CartService {
     @Transactional
     public CartResponseDTO updateItemQuantity(Long productId, int quantity) {
         Long userId = currentUserService.getCurrentUserId();
-        Cart cart = cartRepository.findByUserIdAndStatus(userId, CartStatus.ACTIVE)
+        Cart cart = cartRepository.findWithItemsByUserIdAndStatus(userId, CartStatus.ACTIVE)
                 .orElseThrow(() -> new EntityNotFoundException("Active cart not found"));
-        CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId);
+        CartItem cartItem = findItem(cart, productId);
         if (cartItem == null) {
             throw new EntityNotFoundException("Cart item not found");
         }
         try {
-            // Validate product and inventory for update
-            validateProductActive(productId);
-            var inventory = validateInventoryAndStock(productId, quantity);
-            validateMaxQuantity(inventory, quantity);
-            
-            int oldQuantity = cartItem.getQuantity();
-            
+            // Validate and move the reservation to the new quantity in one call; 0 releases it
+            reserveCartLine(productId, Math.max(quantity, 0), cartItem.getQuantity(), userId, cart.getId());
+
             if (quantity <= 0) {
-                // Remove item from cart - unreserve stock
-                productClient.unreserveStockForCart(
-                    productId, 
-                    BigDecimal.valueOf(oldQuantity), 
-                    userId, 
-                    cart.getId()
-                );
-                
-                cart.getCartItems().remove(cartItem);
-                cartItemRepository.delete(cartItem);
+                // Orphan removal deletes the item on flush
+                cart.removeCartItem(cartItem);
             } else {
-                // Update quantity - update reserved stock
-                productClient.updateReservedStockForCart(
-                    productId, 
-                    BigDecimal.valueOf(oldQuantity), 
-                    BigDecimal.valueOf(quantity), 
-                    userId, 
-                    cart.getId()
-                );
-                
                 cartItem.setQuantity(quantity);
-                cartItemRepository.save(cartItem);
-            }
-            // If cart is empty, close it
-            if (cart.getCartItems().isEmpty()) {
-                cart.setStatus(CartStatus.REMOVED); // Use REMOVED as the closed status
-            } else {
-                cart.setStatus(CartStatus.ACTIVE);
             }
-            cartRepository.save(cart);
-            CartResponseDTO cartResponse = cartMapper.toResponseDTO(cart);
-            enrichCartItemsWithProductDetails(cartResponse);
-            return cartResponse;
+            return flushAndMap(cart);
         } catch (FeignException e) {
             log.error("Feign error when calling product-service: status={}, content={}", e.status(), e.contentUTF8());
             throw e;
@@ -276,6 +271,91 @@ public class CartService {
         }
     }
 
+    /**
+     * Applies an ordered list of item changes as one edit. The resulting quantity of every product is
+     * worked out in memory first, then all changed products are validated and reserved with a single
+     * product-service call, and the cart is flushed and enriched once. If any product cannot be
+     * reserved, nothing changes.
+     */
+    @Transactional
+    public CartResponseDTO applyOperations(List<CartOperationDTO> operations) {
+        Long userId = currentUserService.getCurrentUserId();
+        Cart cart = cartRepository.findWithItemsByUserIdAndStatus(userId, CartStatus.ACTIVE)
+                .orElse(null);
+        if (cart == null) {
+            cart = Cart.builder()
+                    .userId(userId)
+                    .status(CartStatus.ACTIVE)
+                    .cartItems(new java.util.ArrayList<>())
+                    .build();
+            // Inserted right away, the reservation needs the cart id
+            cart = cartRepository.save(cart);
+        }
+
+        Map<Long, Integer> current = new HashMap<>();
+        cart.getCartItems().forEach(item -> current.put(item.getProductId(), item.getQuantity()));
+        // Resulting quantity per product after all operations, 0 for removed products
+        Map<Long, Integer> quantities = new LinkedHashMap<>(current);
+        for (CartOperationDTO operation : operations) {
+            int held = quantities.getOrDefault(operation.getProductId(), 0);
+            switch (operation.getType()) {
+                case ADD:
+                    if (operation.getQuantity() == null || operation.getQuantity() < 1) {
+                        throw new BadRequestException("Quantity must be at least 1 to add product " + operation.getProductId());
+                    }
+                    quantities.put(operation.getProductId(), held + operation.getQuantity());
+                    break;
+                case SET_QUANTITY:
+                    if (operation.getQuantity() == null) {
+                        throw new BadRequestException("Quantity is required to set product " + operation.getProductId());
+                    }
+                    requireItem(held);
+                    quantities.put(operation.getProductId(), operation.getQuantity());
+                    break;
+                case REMOVE:
+                    requireItem(held);
+                    quantities.put(operation.getProductId(), 0);
+                    break;
+            }
+        }
+
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (quantity != current.getOrDefault(productId, 0).intValue()) {
+                changes.put(productId, quantity);
+            }
+        });
+        try {
+            Map<Long, CartLineReservationDTO> lines = changes.isEmpty()
+                    ? Map.of()
+                    : reserveCartLines(changes, current, userId, cart.getId());
+            for (Map.Entry<Long, Integer> change : changes.entrySet()) {
+                CartItem cartItem = findItem(cart, change.getKey());
+                if (change.getValue() == 0) {
+                    cart.removeCartItem(cartItem);
+                } else if (cartItem != null) {
+                    cartItem.setQuantity(change.getValue());
+                } else {
+                    cart.addCartItem(CartItem.builder()
+                            .productId(change.getKey())
+                            .quantity(change.getValue())
+                            .price(lines.get(change.getKey()).getPrice().doubleValue())
+                            .build());
+                }
+            }
+            return flushAndMap(cart);
+        } catch (FeignException e) {
+            log.error("Feign error when calling product-service: status={}, content={}", e.status(), e.contentUTF8());
+            throw e;
+        }
+    }
+
+    private void requireItem(int held) {
+        if (held == 0) {
+            throw new EntityNotFoundException("Cart item not found");
+        }
+    }
+
     @Transactional
     public CartResponseDTO removeItemFromCart(Long productId) {
         return updateItemQuantity(productId, 0);
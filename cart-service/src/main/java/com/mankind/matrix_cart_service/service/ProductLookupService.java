@@ -0,0 +1,231 @@
+package com.mankind.matrix_cart_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mankind.api.product.dto.product.ProductResponseDTO;
+import com.mankind.matrix_cart_service.client.ProductClient;
+import com.mankind.matrix_cart_service.config.CartEnrichmentConfig;
+import feign.Request;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Looks up product details for cart enrichment. Snapshots of the fields a cart shows are kept
+ * in a local cache: fresh ones are served as they are, stale ones are served while a background
+ * batch refreshes them, and only products missing from the cache are fetched while the caller
+ * waits. Those are split into batches that are requested concurrently on the enrichment
+ * executor up to one overall deadline, which also bounds each remote call's timeouts; batches
+ * that fail or miss it are left out, so their items fall back to placeholders instead of holding
+ * up the cart.
+ */
+@Service
+@Slf4j
+public class ProductLookupService {
+    public static final String SNAPSHOT_CACHE = "cartProductSnapshots";
+
+    private final ProductClient productClient;
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final Cache<Long, ProductSnapshot> snapshots;
+    // Products with a background refresh in flight, so concurrent reads do not request them again
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.cart.enrichment.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.cart.enrichment.deadline:1500ms}")
+    private Duration deadline;
+
+    // Snapshots older than this are still served but refreshed in the background
+    @Value("${app.cart.product-cache.ttl:5m}")
+    private Duration ttl;
+
+    public ProductLookupService(ProductClient productClient,
+                                @Qualifier(CartEnrichmentConfig.ENRICHMENT_EXECUTOR) Executor executor,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cart.product-cache.max-size:10000}") long maxSize,
+                                @Value("${app.cart.product-cache.max-staleness:1h}") Duration maxStaleness) {
+        this.productClient = productClient;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxStaleness)
+                .recordStats()
+                .build();
+        // Publishes cache.gets{result=hit|miss}, cache.size and cache.evictions
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, SNAPSHOT_CACHE);
+    }
+
+    public Map<Long, ProductSnapshot> fetchProducts(Collection<Long> productIds) {
+        List<Long> ids = productIds.stream().distinct().toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, ProductSnapshot> products = new HashMap<>(snapshots.getAllPresent(ids));
+        Instant now = Instant.now();
+        List<Long> stale = new ArrayList<>();
+        Timer age = snapshotAgeTimer();
+        for (ProductSnapshot snapshot : products.values()) {
+            Duration snapshotAge = Duration.between(snapshot.getFetchedAt(), now);
+            age.record(snapshotAge);
+            if (snapshotAge.compareTo(ttl) >= 0) {
+                stale.add(snapshot.getId());
+            }
+        }
+        if (!stale.isEmpty()) {
+            refreshInBackground(stale);
+        }
+
+        List<Long> missing = ids.stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            products.putAll(fetchMissing(missing));
+        }
+        return products;
+    }
+
+    private Map<Long, ProductSnapshot> fetchMissing(List<Long> ids) {
+        long start = System.nanoTime();
+        long deadlineNanos = start + deadline.toNanos();
+        // Read here, the pool threads do not see the caller's request
+        String authorization = callerAuthorization();
+
+        List<CompletableFuture<List<ProductSnapshot>>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            try {
+                batches.add(CompletableFuture.supplyAsync(() -> fetchBatch(batch, deadlineNanos, authorization), executor));
+            } catch (RejectedExecutionException e) {
+                log.warn("Product lookup pool is saturated, skipping details for productIds: {}", batch);
+            }
+        }
+
+        Map<Long, ProductSnapshot> products = new HashMap<>();
+        for (CompletableFuture<List<ProductSnapshot>> batch : batches) {
+            try {
+                long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+                batch.get(remaining, TimeUnit.NANOSECONDS)
+                        .forEach(product -> products.putIfAbsent(product.getId(), product));
+            } catch (TimeoutException e) {
+                // The call times out at the same deadline, which frees its pool thread
+                log.debug("Product details batch missed the deadline");
+            } catch (ExecutionException e) {
+                log.warn("Failed to fetch product details, error: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        boolean complete = products.size() == ids.size();
+        if (!complete) {
+            log.warn("Product details missing for {} of {} products after {} ms",
+                    ids.size() - products.size(), ids.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        enrichmentTimer(complete ? "complete" : "degraded").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return products;
+    }
+
+    /**
+     * Re-fetch stale snapshots without the caller waiting. Runs outside the caller's request, so
+     * no token is sent; product-service serves product details without one.
+     */
+    private void refreshInBackground(List<Long> ids) {
+        List<Long> pending = ids.stream().filter(refreshing::add).toList();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<Long> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            long deadlineNanos = System.nanoTime() + deadline.toNanos();
+            try {
+                executor.execute(() -> {
+                    try {
+                        fetchBatch(batch, deadlineNanos, null);
+                    } catch (RuntimeException e) {
+                        log.debug("Failed to refresh product details, error: {}", e.getMessage());
+                    } finally {
+                        batch.forEach(refreshing::remove);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Served stale again until a later read finds the pool free
+                batch.forEach(refreshing::remove);
+            }
+        }
+    }
+
+    private static String callerAuthorization() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest().getHeader(HttpHeaders.AUTHORIZATION)
+                : null;
+    }
+
+    private List<ProductSnapshot> fetchBatch(List<Long> ids, long deadlineNanos, String authorization) {
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        // Started after the caller gave up
+        if (remainingMs <= 0) {
+            return List.of();
+        }
+        Request.Options options = new Request.Options(
+                remainingMs, TimeUnit.MILLISECONDS, remainingMs, TimeUnit.MILLISECONDS, true);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            ResponseEntity<List<ProductResponseDTO>> response = productClient.getProductsByIds(ids, authorization, options);
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                outcome = "success";
+                Instant fetchedAt = Instant.now();
+                List<ProductSnapshot> fetched = response.getBody().stream()
+                        .map(product -> ProductSnapshot.of(product, fetchedAt))
+                        .toList();
+                fetched.forEach(snapshot -> snapshots.put(snapshot.getId(), snapshot));
+                return fetched;
+            }
+            return List.of();
+        } finally {
+            sample.stop(Timer.builder("cart.product.lookup")
+                    .description("Latency of one product details batch request")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private Timer enrichmentTimer(String outcome) {
+        return Timer.builder("cart.enrichment")
+                .description("Time spent looking up product details missing from the cache for one cart")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Timer snapshotAgeTimer() {
+        return Timer.builder("cart.product.snapshot.age")
+                .description("Age of the cached product details served to carts")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
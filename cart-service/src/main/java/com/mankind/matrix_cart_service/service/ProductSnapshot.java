@@ -0,0 +1,25 @@
+package com.mankind.matrix_cart_service.service;
+
+import com.mankind.api.product.dto.product.ProductResponseDTO;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * The part of a product a cart shows, as fetched from product-service at fetchedAt
+ */
+@Value
+public class ProductSnapshot {
+    Long id;
+    String name;
+    String imageUrl;
+    String description;
+    Instant fetchedAt;
+
+    public static ProductSnapshot of(ProductResponseDTO product, Instant fetchedAt) {
+        String imageUrl = product.getImages() != null && !product.getImages().isEmpty()
+                ? product.getImages().get(0)
+                : "";
+        return new ProductSnapshot(product.getId(), product.getName(), imageUrl, product.getDescription(), fetchedAt);
+    }
+}
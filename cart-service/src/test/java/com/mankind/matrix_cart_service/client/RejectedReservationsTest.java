@@ -0,0 +1,47 @@
+package com.mankind.matrix_cart_service.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mankind.api.product.dto.inventory.CartLineReservationDTO;
+import com.mankind.api.product.dto.inventory.CartLinesReservationDTO;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RejectedReservationsTest {
+    private final RejectedReservations rejectedReservations = new RejectedReservations(new ObjectMapper());
+
+    private static FeignException.Conflict conflict(String body) {
+        Request request = Request.create(Request.HttpMethod.PUT, "/inventory/cart/lines",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        return new FeignException.Conflict("409 Conflict", request, body.getBytes(StandardCharsets.UTF_8), Map.of());
+    }
+
+    @Test
+    public void testRejectedLinesAreReadFromTheBody() {
+        CartLinesReservationDTO result = rejectedReservations.read(conflict("{\"reserved\":false,\"lines\":[{"
+                + "\"productId\":3,\"quantity\":2,\"reserved\":false,\"outcome\":\"INSUFFICIENT_STOCK\","
+                + "\"availableQuantity\":1,\"message\":\"Insufficient stock available for cart reservation\"}]}"),
+                CartLinesReservationDTO.class);
+
+        assertThat(result.isReserved()).isFalse();
+        assertThat(result.getLines()).singleElement().satisfies(line -> {
+            assertThat(line.getProductId()).isEqualTo(3L);
+            assertThat(line.getOutcome()).isEqualTo(CartLineReservationDTO.Outcome.INSUFFICIENT_STOCK);
+            assertThat(line.getAvailableQuantity()).isEqualByComparingTo("1");
+        });
+    }
+
+    @Test
+    public void testConflictWithoutResultIsRethrown() {
+        FeignException.Conflict conflict = conflict("Cart is being checked out");
+
+        assertThatThrownBy(() -> rejectedReservations.read(conflict, CartLinesReservationDTO.class))
+                .isSameAs(conflict);
+    }
+}
@@ -0,0 +1,173 @@
+package com.mankind.matrix_cart_service.service;
+
+import com.mankind.api.product.dto.inventory.CartLineQuantityDTO;
+import com.mankind.api.product.dto.inventory.CartLineReservationDTO;
+import com.mankind.api.product.dto.inventory.CartLinesRequestDTO;
+import com.mankind.api.product.dto.inventory.CartLinesReservationDTO;
+import com.mankind.matrix_cart_service.client.ProductClient;
+import com.mankind.matrix_cart_service.client.RejectedReservations;
+import com.mankind.matrix_cart_service.dto.CartItemDTO;
+import com.mankind.matrix_cart_service.dto.CartItemResponseDTO;
+import com.mankind.matrix_cart_service.dto.CartOperationDTO;
+import com.mankind.matrix_cart_service.dto.CartResponseDTO;
+import com.mankind.matrix_cart_service.mapper.CartItemMapperImpl;
+import com.mankind.matrix_cart_service.mapper.CartMapperImpl;
+import com.mankind.matrix_cart_service.model.Cart;
+import com.mankind.matrix_cart_service.model.CartItem;
+import com.mankind.matrix_cart_service.model.CartStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({CartService.class, CartMapperImpl.class, CartItemMapperImpl.class, RejectedReservations.class})
+public class CartServiceQueryCountTest {
+    private static final Long USER_ID = 7L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CartService cartService;
+
+    @MockitoBean
+    private CurrentUserService currentUserService;
+
+    @MockitoBean
+    private ProductClient productClient;
+
+    @MockitoBean
+    private ProductLookupService productLookupService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        when(currentUserService.getCurrentUserId()).thenReturn(USER_ID);
+        when(productLookupService.fetchProducts(anyCollection())).thenReturn(Map.of());
+        when(productClient.reserveCartLine(anyLong(), any(), any(), anyLong(), anyLong())).thenAnswer(invocation ->
+                ResponseEntity.ok(CartLineReservationDTO.builder()
+                        .productId(invocation.getArgument(0))
+                        .quantity(invocation.getArgument(1))
+                        .reserved(true)
+                        .outcome(CartLineReservationDTO.Outcome.RESERVED)
+                        .price(new BigDecimal("10.00"))
+                        .build()));
+        when(productClient.reserveCartLines(anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            CartLinesRequestDTO request = invocation.getArgument(2);
+            return ResponseEntity.ok(CartLinesReservationDTO.builder()
+                    .reserved(true)
+                    .lines(request.getLines().stream().map(line -> CartLineReservationDTO.builder()
+                            .productId(line.getProductId())
+                            .quantity(line.getQuantity())
+                            .reserved(true)
+                            .outcome(CartLineReservationDTO.Outcome.RESERVED)
+                            .price(new BigDecimal("10.00"))
+                            .build()).toList())
+                    .build());
+        });
+
+        Cart cart = Cart.builder().userId(USER_ID).status(CartStatus.ACTIVE).cartItems(new ArrayList<>()).build();
+        for (long productId = 1; productId <= 5; productId++) {
+            cart.addCartItem(CartItem.builder().productId(productId).quantity(1).price(10.0).build());
+        }
+        entityManager.persist(cart);
+        entityManager.flush();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private long countStatements(Supplier<CartResponseDTO> operation) {
+        entityManager.clear();
+        statistics.clear();
+        CartResponseDTO cart = operation.get();
+        long statements = statistics.getPrepareStatementCount();
+        // Nothing may be left for a later flush to write
+        entityManager.flush();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+        assertThat(cart).isNotNull();
+        return statements;
+    }
+
+    @Test
+    public void testReadingTheCartIsOneStatement() {
+        assertThat(countStatements(() -> cartService.getCurrentUserOpenCart())).isEqualTo(1);
+    }
+
+    @Test
+    public void testEachCartWriteLoadsOnceAndFlushesOnce() {
+        // Load cart and items, insert the item, update the cart totals
+        assertThat(countStatements(() -> cartService.addItemToCart(new CartItemDTO(6L, 2)))).isEqualTo(3);
+        // Load, update the item, update the cart totals
+        assertThat(countStatements(() -> cartService.addItemToCart(new CartItemDTO(6L, 1)))).isEqualTo(3);
+        assertThat(countStatements(() -> cartService.updateItemQuantity(1L, 4))).isEqualTo(3);
+        // Load, delete the item, update the cart totals
+        cartService.removeItemFromCart(2L);
+        assertThat(countStatements(() -> cartService.removeItemFromCart(3L))).isEqualTo(3);
+
+        entityManager.clear();
+        CartResponseDTO cart = cartService.getCurrentUserOpenCart();
+        assertThat(cart.getItems()).hasSize(4);
+        assertThat(cart.getItems()).anySatisfy(item -> {
+            assertThat(item.getProductId()).isEqualTo(6L);
+            assertThat(item.getQuantity()).isEqualTo(3);
+        });
+        Cart stored = entityManager.find(Cart.class, cart.getId());
+        assertThat(stored.getSubtotal()).isEqualTo(90.0);
+    }
+
+    @Test
+    public void testOperationsAreReservedTogetherAndFlushedOnce() {
+        List<CartOperationDTO> operations = List.of(
+                new CartOperationDTO(CartOperationDTO.Type.ADD, 6L, 2),
+                new CartOperationDTO(CartOperationDTO.Type.SET_QUANTITY, 1L, 3),
+                new CartOperationDTO(CartOperationDTO.Type.REMOVE, 2L, null),
+                new CartOperationDTO(CartOperationDTO.Type.ADD, 6L, 1),
+                // Added and set back within the same request: nothing to reserve
+                new CartOperationDTO(CartOperationDTO.Type.ADD, 3L, 1),
+                new CartOperationDTO(CartOperationDTO.Type.SET_QUANTITY, 3L, 1));
+
+        // Load, insert the new item, update one item, delete one item, update the cart totals
+        assertThat(countStatements(() -> cartService.applyOperations(operations))).isEqualTo(5);
+
+        ArgumentCaptor<CartLinesRequestDTO> request = ArgumentCaptor.forClass(CartLinesRequestDTO.class);
+        verify(productClient).reserveCartLines(anyLong(), anyLong(), request.capture());
+        assertThat(request.getValue().getLines())
+                .extracting(CartLineQuantityDTO::getProductId, line -> line.getQuantity().intValue(),
+                        line -> line.getCurrentQuantity().intValue())
+                .containsExactlyInAnyOrder(tuple(6L, 3, 0), tuple(1L, 3, 1), tuple(2L, 0, 1));
+
+        entityManager.clear();
+        CartResponseDTO cart = cartService.getCurrentUserOpenCart();
+        assertThat(cart.getItems()).extracting(CartItemResponseDTO::getProductId, CartItemResponseDTO::getQuantity)
+                .containsExactlyInAnyOrder(tuple(1L, 3), tuple(3L, 1), tuple(4L, 1), tuple(5L, 1), tuple(6L, 3));
+    }
+}
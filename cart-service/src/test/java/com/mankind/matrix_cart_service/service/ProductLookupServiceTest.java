@@ -0,0 +1,154 @@
+package com.mankind.matrix_cart_service.service;
+
+import com.mankind.api.product.dto.product.ProductResponseDTO;
+import com.mankind.matrix_cart_service.client.ProductClient;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProductLookupServiceTest {
+    private final ProductClient productClient = mock(ProductClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExecutorService executor;
+    private ProductLookupService lookupService;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        lookupService = new ProductLookupService(productClient, executor, meterRegistry, 1000, Duration.ofHours(1));
+        ReflectionTestUtils.setField(lookupService, "batchSize", 10);
+        ReflectionTestUtils.setField(lookupService, "deadline", Duration.ofMillis(400));
+        ReflectionTestUtils.setField(lookupService, "ttl", Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    // Answers after the given delay with one product per requested id
+    private void respondAfter(long delayMs, long slowId, long slowDelayMs) {
+        when(productClient.getProductsByIds(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            Thread.sleep(ids.contains(slowId) ? slowDelayMs : delayMs);
+            return ResponseEntity.ok(ids.stream().map(id -> {
+                ProductResponseDTO product = new ProductResponseDTO();
+                product.setId(id);
+                product.setName("Product " + id);
+                return product;
+            }).toList());
+        });
+    }
+
+    @Test
+    public void testBatchesAreFetchedConcurrently() {
+        respondAfter(150, -1, 0);
+        List<Long> ids = LongStream.rangeClosed(1, 40).boxed().toList();
+
+        long start = System.nanoTime();
+        Map<Long, ProductSnapshot> products = lookupService.fetchProducts(ids);
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(products).hasSize(40);
+        // Four batches of 150 ms each would take 600 ms one after another
+        assertThat(elapsedMs).isLessThan(400);
+        assertThat(meterRegistry.get("cart.product.lookup").tag("outcome", "success").timer().count()).isEqualTo(4);
+        assertThat(meterRegistry.get("cart.enrichment").tag("outcome", "complete").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSlowBatchDegradesAtTheDeadline() {
+        respondAfter(20, 25, 2000);
+        List<Long> ids = LongStream.rangeClosed(1, 30).boxed().toList();
+
+        long start = System.nanoTime();
+        Map<Long, ProductSnapshot> products = lookupService.fetchProducts(ids);
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // The batch with product 25 (ids 21-30) misses the deadline, the others are in
+        assertThat(products).hasSize(20).containsKeys(1L, 20L).doesNotContainKeys(21L, 30L);
+        assertThat(elapsedMs).isLessThan(1000);
+        assertThat(meterRegistry.get("cart.enrichment").tag("outcome", "degraded").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCachedSnapshotsAreServedWithoutRemoteCalls() {
+        respondAfter(0, -1, 0);
+        List<Long> ids = LongStream.rangeClosed(1, 15).boxed().toList();
+        lookupService.fetchProducts(ids);
+
+        Map<Long, ProductSnapshot> products = lookupService.fetchProducts(ids);
+
+        assertThat(products).hasSize(15);
+        assertThat(products.get(7L).getName()).isEqualTo("Product 7");
+        verify(productClient, times(2)).getProductsByIds(anyList(), any(), any());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", ProductLookupService.SNAPSHOT_CACHE)
+                .tag("result", "hit").functionCounter().count()).isEqualTo(15);
+    }
+
+    @Test
+    public void testStaleSnapshotsAreServedAndRefreshedInTheBackground() {
+        respondAfter(0, -1, 0);
+        lookupService.fetchProducts(List.of(1L, 2L));
+        ReflectionTestUtils.setField(lookupService, "ttl", Duration.ZERO);
+        respondAfter(300, -1, 0);
+
+        long start = System.nanoTime();
+        Map<Long, ProductSnapshot> products = lookupService.fetchProducts(List.of(1L, 2L));
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Served from the cache at once, the refresh runs after the call returned
+        assertThat(products).hasSize(2);
+        assertThat(elapsedMs).isLessThan(300);
+        verify(productClient, timeout(2000).times(2)).getProductsByIds(anyList(), any(), any());
+        assertThat(meterRegistry.get("cart.product.snapshot.age").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCallerTokenAndDeadlineArePassedToEachCall() {
+        respondAfter(0, -1, 0);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer caller");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        lookupService.fetchProducts(List.of(1L, 2L));
+
+        ArgumentCaptor<Request.Options> options = ArgumentCaptor.forClass(Request.Options.class);
+        verify(productClient).getProductsByIds(anyList(), eq("Bearer caller"), options.capture());
+        assertThat(options.getValue().readTimeoutMillis()).isPositive().isLessThanOrEqualTo(400);
+        assertThat(options.getValue().connectTimeoutMillis()).isPositive().isLessThanOrEqualTo(400);
+
+        // Background refreshes run outside the request and send no token
+        ReflectionTestUtils.setField(lookupService, "ttl", Duration.ZERO);
+        lookupService.fetchProducts(List.of(1L, 2L));
+        verify(productClient, timeout(2000)).getProductsByIds(anyList(), isNull(), any());
+    }
+}
@@ -0,0 +1,22 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Reserved stock of a cart that was turned into sold stock at checkout")
+public class CartCommitResultDTO {
+    @Schema(description = "ID of the cart", example = "1")
+    private Long cartId;
+
+    @Schema(description = "Committed quantity per product, ordered by product ID")
+    private List<CartReservationLineDTO> lines;
+}
@@ -0,0 +1,33 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Quantity a cart should hold of one product")
+public class CartLineQuantityDTO {
+    @NotNull(message = "Product ID is required")
+    @Schema(description = "ID of the product", example = "1", required = true)
+    private Long productId;
+
+    @NotNull(message = "Quantity is required")
+    @PositiveOrZero(message = "Quantity cannot be negative")
+    @Schema(description = "Quantity the cart should hold; 0 releases the line", example = "2", required = true)
+    private BigDecimal quantity;
+
+    @PositiveOrZero(message = "Current quantity cannot be negative")
+    @Schema(description = "Quantity the cart holds now; only used when product-service has no reservation recorded for the line", example = "1")
+    private BigDecimal currentQuantity;
+
+    public CartLineQuantityDTO(Long productId, BigDecimal quantity) {
+        this(productId, quantity, null);
+    }
+}
@@ -0,0 +1,52 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of setting the quantity a cart holds of one product")
+public class CartLineReservationDTO {
+    public enum Outcome {
+        RESERVED,
+        PRODUCT_NOT_FOUND,
+        PRODUCT_INACTIVE,
+        INVENTORY_NOT_FOUND,
+        MAX_QUANTITY_EXCEEDED,
+        INSUFFICIENT_STOCK
+    }
+
+    @Schema(description = "ID of the product", example = "1")
+    private Long productId;
+
+    @Schema(description = "Quantity the cart asked to hold", example = "2")
+    private BigDecimal quantity;
+
+    @Schema(description = "Whether the cart now holds the requested quantity; if false nothing was changed", example = "true")
+    private boolean reserved;
+
+    @Schema(description = "Why the quantity was or was not reserved", example = "RESERVED")
+    private Outcome outcome;
+
+    @Schema(description = "Reason the quantity could not be reserved", example = "Insufficient stock available for cart reservation")
+    private String message;
+
+    @Schema(description = "Current unit price of the product", example = "999.99")
+    private BigDecimal price;
+
+    @Schema(description = "Currency of the price", example = "USD")
+    private String currency;
+
+    @Schema(description = "Available quantity after the change, or before it if nothing was changed", example = "8")
+    private BigDecimal availableQuantity;
+
+    @Schema(description = "Maximum quantity allowed per purchase", example = "5")
+    private BigDecimal maxQuantityPerPurchase;
+}
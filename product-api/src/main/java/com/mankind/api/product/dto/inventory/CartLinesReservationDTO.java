@@ -0,0 +1,22 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of setting several cart quantities together")
+public class CartLinesReservationDTO {
+    @Schema(description = "Whether every line was applied; if false nothing was changed", example = "true")
+    private boolean reserved;
+
+    @Schema(description = "Per-line outcome, ordered by product ID")
+    private List<CartLineReservationDTO> lines;
+}
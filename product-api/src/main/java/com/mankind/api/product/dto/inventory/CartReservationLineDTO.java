@@ -0,0 +1,25 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One product line of a cart reservation")
+public class CartReservationLineDTO {
+    @NotNull(message = "Product ID is required")
+    @Schema(description = "ID of the product", example = "1", required = true)
+    private Long productId;
+
+    @NotNull(message = "Quantity is required")
+    @Positive(message = "Quantity must be greater than zero")
+    @Schema(description = "Quantity to reserve", example = "2", required = true)
+    private BigDecimal quantity;
+}
@@ -0,0 +1,31 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of one line of a cart reservation")
+public class CartReservationLineResultDTO {
+    @Schema(description = "ID of the product", example = "1")
+    private Long productId;
+
+    @Schema(description = "Requested quantity", example = "2")
+    private BigDecimal quantity;
+
+    @Schema(description = "Whether this line could be reserved", example = "true")
+    private boolean reservable;
+
+    @Schema(description = "Available quantity after the reservation, or before it if nothing was reserved", example = "8")
+    private BigDecimal availableQuantity;
+
+    @Schema(description = "Reason the line could not be reserved", example = "Insufficient stock available for cart reservation")
+    private String message;
+}
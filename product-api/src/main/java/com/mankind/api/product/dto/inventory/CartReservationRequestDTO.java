@@ -0,0 +1,21 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Lines to reserve together for a cart, all or nothing")
+public class CartReservationRequestDTO {
+    @NotEmpty(message = "At least one line is required")
+    @Valid
+    @Schema(description = "Product lines to reserve; lines of the same product are added up", required = true)
+    private List<CartReservationLineDTO> lines;
+}
@@ -0,0 +1,34 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Result of replaying the inventory logs of every product against the stored stock")
+public class InventoryAuditReportDTO {
+    @Schema(description = "Audit mode: REPORT, REBUILD or BASELINE", example = "REPORT")
+    private String mode;
+
+    @Schema(description = "Number of inventories audited", example = "1200")
+    private long auditedInventories;
+
+    @Schema(description = "Number of log entries replayed", example = "48210")
+    private long replayedLogs;
+
+    @Schema(description = "Number of inventories whose stored stock differs from the replay", example = "2")
+    private long driftedInventories;
+
+    @Schema(description = "Drifted inventories, capped at the configured maximum")
+    private List<InventoryDriftDTO> drifts;
+
+    @Schema(description = "Duration of the audit in milliseconds", example = "5300")
+    private long durationMs;
+}
@@ -0,0 +1,37 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Compact stock and price state of a product for listing pages")
+public class InventoryAvailabilityDTO {
+    @Schema(description = "ID of the product", example = "1")
+    private Long productId;
+
+    @Schema(description = "Current inventory status", example = "IN_STOCK", allowableValues = {"NO_INVENTORY", "OUT_OF_STOCK", "IN_STOCK"})
+    private String status;
+
+    @Schema(description = "Available quantity in stock", example = "10.00")
+    private BigDecimal availableQuantity;
+
+    @Schema(description = "Reserved quantity", example = "2.00")
+    private BigDecimal reservedQuantity;
+
+    @Schema(description = "Maximum quantity allowed per purchase. If not set, no limit will be applied", example = "5")
+    private BigDecimal maxQuantityPerPurchase;
+
+    @Schema(description = "Price of the product", example = "999.99")
+    private BigDecimal price;
+
+    @Schema(description = "Currency code for the price", example = "USD")
+    private String currency;
+}
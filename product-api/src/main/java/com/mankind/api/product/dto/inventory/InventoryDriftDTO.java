@@ -0,0 +1,34 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Stored stock of a product that does not match the stock replayed from its inventory logs")
+public class InventoryDriftDTO {
+    @Schema(description = "Product ID", example = "1")
+    private Long productId;
+
+    @Schema(description = "Available quantity stored on the inventory and its stock shards", example = "95")
+    private BigDecimal storedAvailableQuantity;
+
+    @Schema(description = "Available quantity replayed from the logs", example = "97")
+    private BigDecimal replayedAvailableQuantity;
+
+    @Schema(description = "Reserved quantity stored on the inventory and its stock shards", example = "5")
+    private BigDecimal storedReservedQuantity;
+
+    @Schema(description = "Reserved quantity replayed from the logs", example = "3")
+    private BigDecimal replayedReservedQuantity;
+
+    @Schema(description = "Whether the stored quantities were overwritten with the replayed ones", example = "false")
+    private boolean rebuilt;
+}
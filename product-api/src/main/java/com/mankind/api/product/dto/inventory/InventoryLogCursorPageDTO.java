@@ -0,0 +1,29 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Cursor based page of inventory logs, newest first. No total count is computed")
+public class InventoryLogCursorPageDTO {
+    @Schema(description = "Logs in this page")
+    private List<InventoryLogDTO> content;
+
+    @Schema(description = "Requested page size", example = "50")
+    private int size;
+
+    @Schema(description = "Whether more logs follow this page", example = "true")
+    private boolean hasNext;
+
+    @Schema(description = "Opaque cursor to pass as the cursor parameter to fetch the next page (null on the last page)",
+            example = "MjAyNi0xMC0xOFQwNToyODo1MS42MDh8MTI0")
+    private String nextCursor;
+}
@@ -0,0 +1,29 @@
+package com.mankind.api.product.dto.inventory;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Inventory log totals of one product for one day and action type")
+public class InventoryLogDailySummaryDTO {
+    @Schema(description = "Day the logs were created on", example = "2026-10-17")
+    private LocalDate date;
+
+    @Schema(description = "Inventory action type", example = "CART_ADD")
+    private String action;
+
+    @Schema(description = "Number of log entries", example = "42")
+    private long entryCount;
+
+    @Schema(description = "Sum of the logged quantities", example = "57")
+    private BigDecimal totalQuantity;
+}
@@ -0,0 +1,28 @@
+package com.mankind.api.product.dto.product;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Cursor based page of products. No total count is computed")
+public class ProductCursorPageDTO {
+    @Schema(description = "Products in this page")
+    private List<ProductResponseDTO> content;
+
+    @Schema(description = "Requested page size", example = "20")
+    private int size;
+
+    @Schema(description = "Whether more products follow this page", example = "true")
+    private boolean hasNext;
+
+    @Schema(description = "Opaque cursor to pass as the cursor parameter to fetch the next page (null on the last page)", example = "MTI0")
+    private String nextCursor;
+}
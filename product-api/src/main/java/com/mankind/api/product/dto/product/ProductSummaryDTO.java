@@ -0,0 +1,43 @@
+package com.mankind.api.product.dto.product;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Schema(description = "Compact product entry for listing pages")
+public class ProductSummaryDTO {
+    @Schema(description = "Unique identifier of the product", example = "1")
+    private Long id;
+
+    @Schema(description = "Name of the product", example = "iPhone 13 Pro")
+    private String name;
+
+    @Schema(description = "Brand of the product", example = "Apple")
+    private String brand;
+
+    @Schema(description = "First image of the product", example = "https://example.com/iphone.jpg")
+    private String imageUrl;
+
+    @Schema(description = "ID of the product category", example = "3")
+    private Long categoryId;
+
+    @Schema(description = "Category names from the root down to the product category", example = "Electronics > Phones")
+    private String categoryPath;
+
+    @Schema(description = "Current price", example = "999.99")
+    private BigDecimal price;
+
+    @Schema(description = "Currency of the price", example = "USD")
+    private String currency;
+
+    @Schema(description = "Stock status: IN_STOCK, OUT_OF_STOCK or NO_INVENTORY", example = "IN_STOCK")
+    private String stockStatus;
+
+    @Schema(description = "Average rating of the product (null if no reviews)", example = "4.5")
+    private Double averageRating;
+
+    @Schema(description = "Whether the product is featured", example = "false")
+    private boolean featured;
+}
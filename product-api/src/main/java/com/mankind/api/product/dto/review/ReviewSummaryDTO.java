@@ -0,0 +1,28 @@
+package com.mankind.api.product.dto.review;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Rating summary of a product")
+public class ReviewSummaryDTO {
+    @Schema(description = "ID of the product", example = "1")
+    private Long productId;
+
+    @Schema(description = "Number of reviews", example = "128")
+    private long reviewCount;
+
+    @Schema(description = "Average rating (null if no reviews)", example = "4.3")
+    private Double averageRating;
+
+    @Schema(description = "Number of reviews per star rating, 1 to 5", example = "{\"1\": 3, \"2\": 5, \"3\": 12, \"4\": 40, \"5\": 68}")
+    private Map<Integer, Long> ratingHistogram;
+}
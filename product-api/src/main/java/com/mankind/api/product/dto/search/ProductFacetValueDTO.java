@@ -0,0 +1,20 @@
+package com.mankind.api.product.dto.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Value of a search facet with the number of matching products")
+public class ProductFacetValueDTO {
+    @Schema(description = "Facet value", example = "Black")
+    private String value;
+
+    @Schema(description = "Number of matching products with this value", example = "12")
+    private int count;
+}
@@ -0,0 +1,32 @@
+package com.mankind.api.product.dto.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Single product matched by a search query")
+public class ProductSearchHitDTO {
+    @Schema(description = "ID of the matching product", example = "1")
+    private Long productId;
+
+    @Schema(description = "Name of the product", example = "iPhone 13 Pro")
+    private String name;
+
+    @Schema(description = "Brand of the product", example = "Apple")
+    private String brand;
+
+    @Schema(description = "Model of the product", example = "A2482")
+    private String model;
+
+    @Schema(description = "ID of the product category", example = "3")
+    private Long categoryId;
+
+    @Schema(description = "Relevance score (higher is better)", example = "7.42")
+    private double score;
+}
@@ -0,0 +1,36 @@
+package com.mankind.api.product.dto.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Ranked product search results")
+public class ProductSearchResponseDTO {
+    @Schema(description = "Query as received", example = "iphone black")
+    private String query;
+
+    @Schema(description = "Total number of matching products", example = "42")
+    private int totalHits;
+
+    @Schema(description = "Requested page number (0-based)", example = "0")
+    private int page;
+
+    @Schema(description = "Requested page size", example = "20")
+    private int size;
+
+    @Schema(description = "Matching products for this page, best match first")
+    private List<ProductSearchHitDTO> hits;
+
+    @Schema(description = "Counts per facet value keyed by facet name: brand, category (ID) and spec.<key> for each specification key",
+            example = "{\"brand\": [{\"value\": \"Apple\", \"count\": 12}], \"spec.color\": [{\"value\": \"Black\", \"count\": 7}]}")
+    private Map<String, List<ProductFacetValueDTO>> facets;
+}
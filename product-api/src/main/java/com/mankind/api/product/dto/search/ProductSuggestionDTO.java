@@ -0,0 +1,23 @@
+package com.mankind.api.product.dto.search;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Typeahead completion for a search prefix")
+public class ProductSuggestionDTO {
+    @Schema(description = "Completed text", example = "iPhone 13 Pro")
+    private String text;
+
+    @Schema(description = "What the text names: PRODUCT, BRAND or CATEGORY", example = "PRODUCT")
+    private String type;
+
+    @Schema(description = "ID of the product or category (null for brands)", example = "1")
+    private Long id;
+}
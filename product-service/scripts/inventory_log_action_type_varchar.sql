@@ -0,0 +1,11 @@
+-- Store inventory log action types as VARCHAR instead of a MySQL ENUM (MySQL 8).
+--
+-- Hibernate 6 created action_type as ENUM('RESTOCK', ...) and ddl-auto: update never changes an
+-- existing column, so every new action type (e.g. CHECKOUT_COMMIT) would fail to insert. The
+-- entities now map the columns as VARCHAR(100); run this once on databases created before that.
+-- Existing values are kept as they are.
+
+ALTER TABLE inventory_logs MODIFY action_type VARCHAR(100) NOT NULL;
+
+-- Only present once the log compaction job has run
+ALTER TABLE inventory_log_daily_aggregates MODIFY action_type VARCHAR(100) NOT NULL;
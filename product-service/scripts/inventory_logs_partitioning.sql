@@ -0,0 +1,52 @@
+-- Range-partition inventory_logs by month (MySQL 8).
+--
+-- Retention then drops whole partitions instead of deleting rows. Run it in a maintenance window:
+-- ALTER ... PARTITION BY copies the table.
+--
+-- Afterwards set app.inventory.logs.retention.delete-raw=false (INVENTORY_LOG_RETENTION_DELETE_RAW).
+-- The compaction job then only rolls days up into inventory_log_daily_aggregates and leaves the raw
+-- rows to the partition drops below.
+--
+-- Partitioned InnoDB tables cannot have foreign keys, and every unique key must contain the
+-- partitioning column. The script drops the inventory_id foreign key and widens the primary key
+-- to (id, created_at). Hibernate (ddl-auto: update) will log a warning when it fails to add the
+-- foreign key back on startup.
+
+-- 1. Drop the foreign key to inventory, whatever name Hibernate generated for it
+SET @fk := (SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+            WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'inventory_logs' LIMIT 1);
+SET @stmt := IF(@fk IS NULL, 'DO 0', CONCAT('ALTER TABLE inventory_logs DROP FOREIGN KEY ', @fk));
+PREPARE drop_fk FROM @stmt;
+EXECUTE drop_fk;
+DEALLOCATE PREPARE drop_fk;
+
+-- 2. Include the partitioning column in the primary key
+ALTER TABLE inventory_logs DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at);
+
+-- 3. One partition per month. Start at the month of the oldest row
+--    (SELECT MIN(created_at) FROM inventory_logs) and end at least one month ahead.
+ALTER TABLE inventory_logs PARTITION BY RANGE COLUMNS (created_at) (
+    PARTITION p2026_07 VALUES LESS THAN ('2026-08-01'),
+    PARTITION p2026_08 VALUES LESS THAN ('2026-09-01'),
+    PARTITION p2026_09 VALUES LESS THAN ('2026-10-01'),
+    PARTITION p2026_10 VALUES LESS THAN ('2026-11-01'),
+    PARTITION p2026_11 VALUES LESS THAN ('2026-12-01'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- Monthly maintenance, run before a new month starts:
+--
+-- Split the next month off the catch-all partition (it is empty, so this is cheap):
+--   ALTER TABLE inventory_logs REORGANIZE PARTITION p_future INTO (
+--       PARTITION p2026_12 VALUES LESS THAN ('2027-01-01'),
+--       PARTITION p_future VALUES LESS THAN (MAXVALUE));
+--
+-- Drop months that are entirely older than the retention age (app.inventory.logs.retention.days).
+-- The compaction job must have rolled them up first. Check that no day of the month is after the
+-- last rolled-up day:
+--   SELECT last_rolled_up_date FROM inventory_log_rollup_state;
+-- The stock audit (POST /inventory/audit) must also have absorbed them into inventory_snapshots,
+-- otherwise it can no longer replay them. This must return 0 before the month is dropped:
+--   SELECT COUNT(*) FROM inventory_logs l LEFT JOIN inventory_snapshots s ON s.inventory_id = l.inventory_id
+--   WHERE l.created_at < '2026-08-01' AND l.id > COALESCE(s.last_log_id, 0);
+--   ALTER TABLE inventory_logs DROP PARTITION p2026_07;
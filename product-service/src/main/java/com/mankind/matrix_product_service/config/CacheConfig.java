@@ -0,0 +1,64 @@
+package com.mankind.matrix_product_service.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String PRODUCTS_CACHE = "products";
+    public static final String AVAILABILITY_CACHE = "inventoryAvailability";
+
+    @Value("${app.cache.products.max-size:10000}")
+    private long productsMaxSize;
+
+    @Value("${app.cache.products.ttl:10m}")
+    private Duration productsTtl;
+
+    @Value("${app.cache.availability.max-size:50000}")
+    private long availabilityMaxSize;
+
+    // Not evicted on stock changes, so listings may lag the stock by up to this; 0 disables the cache
+    @Value("${app.cache.availability.ttl:5s}")
+    private Duration availabilityTtl;
+
+    /**
+     * Caffeine backed cache manager. Wrapped in a transaction-aware proxy so that
+     * evictions issued inside a write transaction only happen after it commits,
+     * otherwise a concurrent reader could re-populate the cache with the old row. The
+     * products cache also counts its evictions, so a read that loaded the row before such a
+     * commit skips its put instead of caching the old row for the whole TTL.
+     * Statistics are recorded so Micrometer publishes cache.gets/puts/evictions.
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return PRODUCTS_CACHE.equals(name)
+                        ? new EvictionCountingCaffeineCache(name, cache, isAllowNullValues())
+                        : super.adaptCaffeineCache(name, cache);
+            }
+        };
+        cacheManager.registerCustomCache(PRODUCTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(productsMaxSize)
+                .expireAfterWrite(productsTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(AVAILABILITY_CACHE, Caffeine.newBuilder()
+                .maximumSize(availabilityMaxSize)
+                .expireAfterWrite(availabilityTtl)
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
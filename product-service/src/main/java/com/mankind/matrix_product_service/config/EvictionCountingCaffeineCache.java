@@ -0,0 +1,53 @@
+package com.mankind.matrix_product_service.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caffeine cache that counts its evictions, so a read-through caller can tell whether a write
+ * evicted entries while it was loading from the database. Still a CaffeineCache, so cache
+ * metrics are bound as before.
+ */
+public class EvictionCountingCaffeineCache extends CaffeineCache {
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EvictionCountingCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                         boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    /**
+     * Evictions so far of the cache, looking through a transaction-aware decorator; -1 if it does not count them
+     */
+    public static long evictionCount(Cache cache) {
+        Cache target = cache instanceof TransactionAwareCacheDecorator decorator ? decorator.getTargetCache() : cache;
+        return target instanceof EvictionCountingCaffeineCache counting ? counting.evictions.get() : -1;
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictions.incrementAndGet();
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        evictions.incrementAndGet();
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        evictions.incrementAndGet();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        evictions.incrementAndGet();
+        return super.invalidate();
+    }
+}
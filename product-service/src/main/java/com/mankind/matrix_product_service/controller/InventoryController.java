@@ -1,17 +1,39 @@
 package com.mankind.matrix_product_service.controller;
 
+import com.mankind.api.product.dto.inventory.CartCommitResultDTO;
+import com.mankind.api.product.dto.inventory.CartLineReservationDTO;
+import com.mankind.api.product.dto.inventory.CartLinesRequestDTO;
+import com.mankind.api.product.dto.inventory.CartLinesReservationDTO;
+import com.mankind.api.product.dto.inventory.CartReservationRequestDTO;
+import com.mankind.api.product.dto.inventory.CartReservationResultDTO;
+import com.mankind.api.product.dto.inventory.InventoryAuditReportDTO;
+import com.mankind.api.product.dto.inventory.InventoryAvailabilityDTO;
 import com.mankind.api.product.dto.inventory.InventoryDTO;
+import com.mankind.api.product.dto.inventory.InventoryLogCursorPageDTO;
 import com.mankind.api.product.dto.inventory.InventoryLogDTO;
+import com.mankind.api.product.dto.inventory.InventoryLogDailySummaryDTO;
 import com.mankind.api.product.dto.inventory.InventoryResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mankind.matrix_product_service.service.InventoryAuditService;
+import com.mankind.matrix_product_service.service.InventoryLogRollupService;
 import com.mankind.matrix_product_service.service.InventoryService;
+import com.mankind.matrix_product_service.service.InventoryStockShardService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,7 +41,13 @@ import java.util.List;
 @RequiredArgsConstructor
 @Tag(name = "Inventory", description = "Inventory management APIs")
 public class InventoryController {
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final InventoryService inventoryService;
+    private final InventoryLogRollupService inventoryLogRollupService;
+    private final InventoryAuditService inventoryAuditService;
+    private final InventoryStockShardService inventoryStockShardService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/{productId}")
     @Operation(summary = "Create inventory", description = "Creates inventory information for a product with initial stock and price")
@@ -29,6 +57,13 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.createInventory(productId, inventoryDTO));
     }
 
+    @GetMapping("/availability")
+    @Operation(summary = "Get availability of several products", description = "Stock status, available and reserved quantity, max per purchase and price of up to 100 products in one call, for listing pages. May lag stock changes by a few seconds")
+    public ResponseEntity<List<InventoryAvailabilityDTO>> getAvailability(
+            @RequestParam List<Long> productIds) {
+        return ResponseEntity.ok(inventoryService.getAvailability(productIds));
+    }
+
     @GetMapping("/{productId}")
     @Operation(summary = "Get inventory", description = "Retrieves inventory information for a product")
     public ResponseEntity<InventoryResponseDTO> getInventory(
@@ -44,6 +79,15 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.updateInventory(productId, inventoryDTO));
     }
 
+    @PutMapping("/{productId}/stock-shards")
+    @Operation(summary = "Configure hot SKU stock shards", description = "Spreads the available stock of a product over the given number of shard rows so concurrent reservations do not queue on one row, e.g. ahead of a flash sale. 0 folds the stock back onto the inventory. Admin only")
+    public ResponseEntity<InventoryResponseDTO> configureStockShards(
+            @PathVariable Long productId,
+            @RequestParam int count) {
+        inventoryStockShardService.configure(productId, count);
+        return ResponseEntity.ok(inventoryService.getInventoryByProductId(productId));
+    }
+
     @GetMapping("/{productId}/logs")
     @Operation(summary = "Get inventory logs", description = "Retrieves inventory movement logs for a product")
     public ResponseEntity<List<InventoryLogDTO>> getInventoryLogs(
@@ -51,6 +95,61 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.getInventoryLogs(productId));
     }
 
+    @GetMapping(value = "/{productId}/logs", params = "cursor")
+    @Operation(summary = "Get inventory logs page", description = "Newest first keyset page of inventory logs, optionally filtered by action type and a [from, to) creation time range. Pass an empty cursor for the first page and nextCursor for the following ones")
+    public ResponseEntity<InventoryLogCursorPageDTO> getInventoryLogsPage(
+            @PathVariable Long productId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(inventoryService.getInventoryLogs(productId, action, from, to, cursor, size));
+    }
+
+    @GetMapping(value = "/{productId}/logs/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Stream inventory logs", description = "Streams all matching inventory logs as newline delimited JSON, newest first, with the same filters as the paged endpoint")
+    public ResponseEntity<StreamingResponseBody> streamInventoryLogs(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        inventoryService.checkInventoryLogQuery(productId, action);
+        StreamingResponseBody body = outputStream -> inventoryService.streamInventoryLogs(productId, action, from, to, log -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(log));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/{productId}/logs/daily")
+    @Operation(summary = "Get daily inventory log totals", description = "Log count and quantity per day and action type for the days in [from, to], 30 days up to today by default. Days past the retention age come from the daily aggregates")
+    public ResponseEntity<List<InventoryLogDailySummaryDTO>> getDailyInventoryLogSummary(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        return ResponseEntity.ok(inventoryLogRollupService.getDailySummary(productId, start, end));
+    }
+
+    @PostMapping("/logs/compact")
+    @Operation(summary = "Compact inventory logs", description = "Rolls inventory logs older than the retention age up into daily aggregates now instead of waiting for the nightly job. Admin only")
+    public ResponseEntity<Integer> compactInventoryLogs() {
+        return ResponseEntity.ok(inventoryLogRollupService.compactNow());
+    }
+
+    @PostMapping("/audit")
+    @Operation(summary = "Audit stock against inventory logs", description = "Replays the inventory logs of every product and reports where the stored available and reserved quantities differ. REBUILD also overwrites drifted quantities with the replayed ones, BASELINE restarts the replay from the current quantities. Admin only")
+    public ResponseEntity<InventoryAuditReportDTO> auditInventory(
+            @RequestParam(defaultValue = "REPORT") String mode) {
+        return ResponseEntity.ok(inventoryAuditService.audit(mode));
+    }
+
     // Cart-related inventory endpoints
     @PostMapping("/{productId}/cart/reserve")
     @Operation(summary = "Reserve stock for cart", description = "Reserves stock for cart operations")
@@ -62,6 +161,45 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.reserveStockForCart(productId, quantity, userId, cartId));
     }
 
+    @PutMapping("/{productId}/cart/line")
+    @Operation(summary = "Set the quantity a cart holds", description = "Checks that the product is active, has an inventory and allows the quantity per purchase, then reserves or releases the difference to what the cart already holds, in one transaction. Responds 409 with the reason if the quantity cannot be reserved; a quantity of 0 releases the line. The optional currentQuantity is what the cart holds when no reservation is recorded for the line")
+    public ResponseEntity<CartLineReservationDTO> reserveCartLine(
+            @PathVariable Long productId,
+            @RequestParam BigDecimal quantity,
+            @RequestParam(required = false) BigDecimal currentQuantity,
+            @RequestParam Long userId,
+            @RequestParam Long cartId) {
+        CartLineReservationDTO result = inventoryService.reserveCartLine(productId, quantity, currentQuantity, userId, cartId);
+        return ResponseEntity.status(result.isReserved() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result);
+    }
+
+    @PutMapping("/cart/lines")
+    @Operation(summary = "Set several quantities a cart holds", description = "Validates and reserves like /{productId}/cart/line for every line, in one transaction; all lines are applied or none. Responds 409 with the per-line results if any line cannot be reserved")
+    public ResponseEntity<CartLinesReservationDTO> reserveCartLines(
+            @RequestParam Long userId,
+            @RequestParam Long cartId,
+            @Valid @RequestBody CartLinesRequestDTO request) {
+        CartLinesReservationDTO result = inventoryService.reserveCartLines(request, userId, cartId);
+        return ResponseEntity.status(result.isReserved() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result);
+    }
+
+    @PostMapping("/cart/reserve-batch")
+    @Operation(summary = "Reserve stock for several cart items", description = "Reserves all lines in one transaction or none of them; responds 409 with the per-line results if any line cannot be reserved")
+    public ResponseEntity<CartReservationResultDTO> reserveStockForCartBatch(
+            @RequestParam Long userId,
+            @RequestParam Long cartId,
+            @Valid @RequestBody CartReservationRequestDTO request) {
+        CartReservationResultDTO result = inventoryService.reserveStockForCartBatch(request, userId, cartId);
+        return ResponseEntity.status(result.isReserved() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result);
+    }
+
+    @PostMapping("/cart/commit")
+    @Operation(summary = "Commit cart reservations", description = "Turns all stock the cart has reserved into sold stock at checkout completion and removes its reservations, in one transaction. A cart whose reservations expired and were released, or that holds none, commits nothing and gets a 409")
+    public ResponseEntity<CartCommitResultDTO> commitCartReservations(
+            @RequestParam Long cartId) {
+        return ResponseEntity.ok(inventoryService.commitReservations(cartId));
+    }
+
     @PostMapping("/{productId}/cart/unreserve")
     @Operation(summary = "Unreserve stock from cart", description = "Unreserves stock from cart operations")
     public ResponseEntity<InventoryResponseDTO> unreserveStockForCart(
@@ -1,9 +1,16 @@
 package com.mankind.matrix_product_service.controller;
 
 
+import com.mankind.api.product.dto.product.ProductCursorPageDTO;
 import com.mankind.api.product.dto.product.ProductDTO;
 import com.mankind.api.product.dto.product.ProductResponseDTO;
+import com.mankind.api.product.dto.product.ProductSummaryDTO;
+import com.mankind.api.product.dto.search.ProductSearchResponseDTO;
+import com.mankind.api.product.dto.search.ProductSuggestionDTO;
+import com.mankind.matrix_product_service.service.ProductSearchDocumentService;
+import com.mankind.matrix_product_service.service.ProductSearchService;
 import com.mankind.matrix_product_service.service.ProductService;
+import com.mankind.matrix_product_service.service.ProductSuggestionService;
 import com.mankind.matrix_product_service.client.UserClient;
 import com.mankind.api.user.dto.UserDTO;
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,6 +30,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/products")
 @RequiredArgsConstructor
@@ -30,6 +39,9 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
     private final ProductService productService;
+    private final ProductSearchService productSearchService;
+    private final ProductSuggestionService productSuggestionService;
+    private final ProductSearchDocumentService productSearchDocumentService;
     private final UserClient userClient;
 
     @Operation(summary = "Create a new product", description = "Creates a new product in the system")
@@ -62,6 +74,22 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts(pageable));
     }
 
+    @Operation(summary = "Get all products (cursor)", description = "Retrieves active products ordered by ID using keyset pagination. Pass an empty cursor for the first page and the returned nextCursor for the following ones. No total count is computed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved products",
+                    content = @Content(schema = @Schema(implementation = ProductCursorPageDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(params = "cursor")
+    public ResponseEntity<ProductCursorPageDTO> getAllProductsByCursor(
+            @Parameter(description = "Cursor returned by the previous page (empty for the first page)")
+            @RequestParam String cursor,
+            @Parameter(description = "Number of products per page")
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getAllProducts(cursor, size));
+    }
+
     @Operation(summary = "Get product by ID", description = "Retrieves a specific product by its ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved product",
@@ -76,6 +104,79 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductById(id));
     }
 
+    @Operation(summary = "Get products by IDs", description = "Retrieves several active products in one call. Unknown or inactive IDs are skipped")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved products",
+                    content = @Content(schema = @Schema(implementation = ProductResponseDTO.class))),
+        @ApiResponse(responseCode = "400", description = "No IDs given or too many IDs requested"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/batch")
+    public ResponseEntity<List<ProductResponseDTO>> getProductsByIds(
+            @Parameter(description = "Comma separated list of product IDs", required = true)
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
+    @Operation(summary = "Get product summaries", description = "Retrieves a paginated list of compact product entries (name, first image, category path, price, stock status, rating) from the denormalized listing table, optionally filtered by category and featured status")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved product summaries",
+                    content = @Content(schema = @Schema(implementation = ProductSummaryDTO.class))),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/summaries")
+    public ResponseEntity<Page<ProductSummaryDTO>> getProductSummaries(
+            @Parameter(description = "Only products of this category")
+            @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "With categoryId, also include products of all subcategories")
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @Parameter(description = "Only featured products")
+            @RequestParam(defaultValue = "false") boolean featured,
+            @Parameter(description = "Pagination and sorting parameters")
+            Pageable pageable) {
+        return ResponseEntity.ok(productSearchDocumentService.getProductSummaries(categoryId, includeSubcategories, featured, pageable));
+    }
+
+    @Operation(summary = "Search products", description = "Full-text search over product name, brand, model, description and specification values, optionally filtered by brand, category and specification values. Served from an in-memory index; results are ranked by relevance and come with per-facet counts")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Search completed",
+                    content = @Content(schema = @Schema(implementation = ProductSearchResponseDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Malformed filter or invalid paging"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponseDTO> searchProducts(
+            @Parameter(description = "Search text (optional when filtering only)")
+            @RequestParam(required = false) String q,
+            @Parameter(description = "Brands to filter by (any of)")
+            @RequestParam(required = false) List<String> brand,
+            @Parameter(description = "Category IDs to filter by (any of)")
+            @RequestParam(required = false) List<Long> categoryId,
+            @Parameter(description = "Specification filters as key:value, e.g. color:Black (repeat for several)")
+            @RequestParam(required = false) List<String> spec,
+            @Parameter(description = "Page number (0-based)")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Number of hits per page")
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productSearchService.search(q, brand, categoryId, spec, page, size));
+    }
+
+    @Operation(summary = "Suggest completions", description = "Typeahead completions for product names, brands and category names, most popular first. Served from an in-memory trie rebuilt in the background")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Completions returned",
+                    content = @Content(schema = @Schema(implementation = ProductSuggestionDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Empty prefix or invalid limit"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggest(
+            @Parameter(description = "Text typed so far", required = true)
+            @RequestParam String prefix,
+            @Parameter(description = "Maximum number of completions")
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productSuggestionService.suggest(prefix, limit));
+    }
+
     @Operation(summary = "Get products by category", description = "Retrieves a paginated list of products in a specific category")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved products",
@@ -87,9 +188,31 @@ public class ProductController {
     public ResponseEntity<Page<ProductResponseDTO>> getProductsByCategory(
             @Parameter(description = "ID of the category", required = true)
             @PathVariable Long categoryId,
+            @Parameter(description = "Also include products of all subcategories")
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
             @Parameter(description = "Pagination and sorting parameters")
             Pageable pageable) {
-        return ResponseEntity.ok(productService.getProductsByCategory(categoryId, pageable));
+        return ResponseEntity.ok(productService.getProductsByCategory(categoryId, includeSubcategories, pageable));
+    }
+
+    @Operation(summary = "Get products by category (cursor)", description = "Retrieves products in a specific category ordered by ID using keyset pagination")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved products",
+                    content = @Content(schema = @Schema(implementation = ProductCursorPageDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/category/{categoryId}", params = "cursor")
+    public ResponseEntity<ProductCursorPageDTO> getProductsByCategoryByCursor(
+            @Parameter(description = "ID of the category", required = true)
+            @PathVariable Long categoryId,
+            @Parameter(description = "Also include products of all subcategories")
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @Parameter(description = "Cursor returned by the previous page (empty for the first page)")
+            @RequestParam String cursor,
+            @Parameter(description = "Number of products per page")
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getProductsByCategory(categoryId, includeSubcategories, cursor, size));
     }
 
     @Operation(summary = "Get featured products", description = "Retrieves a paginated list of featured products")
@@ -105,6 +228,22 @@ public class ProductController {
         return ResponseEntity.ok(productService.getFeaturedProducts(pageable));
     }
 
+    @Operation(summary = "Get featured products (cursor)", description = "Retrieves featured products ordered by ID using keyset pagination")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved featured products",
+                    content = @Content(schema = @Schema(implementation = ProductCursorPageDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/featured", params = "cursor")
+    public ResponseEntity<ProductCursorPageDTO> getFeaturedProductsByCursor(
+            @Parameter(description = "Cursor returned by the previous page (empty for the first page)")
+            @RequestParam String cursor,
+            @Parameter(description = "Number of products per page")
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getFeaturedProducts(cursor, size));
+    }
+
     @Operation(summary = "Toggle featured status", description = "Toggles the featured status of a product")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully toggled featured status",
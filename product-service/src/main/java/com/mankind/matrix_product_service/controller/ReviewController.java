@@ -3,6 +3,7 @@ package com.mankind.matrix_product_service.controller;
 import com.mankind.api.product.dto.review.CreateReviewDTO;
 import com.mankind.api.product.dto.review.ReviewDTO;
 import com.mankind.api.product.dto.review.ReviewReturnDTO;
+import com.mankind.api.product.dto.review.ReviewSummaryDTO;
 import com.mankind.matrix_product_service.service.ReviewService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -56,6 +57,31 @@ public class ReviewController {
         return ResponseEntity.ok(reviewService.getReviewsReturnByProductId(productId, pageable));
     }
 
+    @Operation(summary = "Get review summary of a product", description = "Retrieves review count, average rating and star histogram of a product from its precomputed rating aggregate")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved summary",
+                    content = @Content(schema = @Schema(implementation = ReviewSummaryDTO.class))),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/product/{productId}/summary")
+    public ResponseEntity<ReviewSummaryDTO> getReviewSummary(
+            @Parameter(description = "ID of the product", required = true)
+            @PathVariable Long productId) {
+        return ResponseEntity.ok(reviewService.getReviewSummary(productId));
+    }
+
+    @Operation(summary = "Rebuild rating aggregates", description = "Recomputes the rating aggregates of all products from the reviews table in parallel batches. Requires ADMIN or SUPER_ADMIN role")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Aggregates rebuilt"),
+        @ApiResponse(responseCode = "403", description = "Access denied - requires ADMIN or SUPER_ADMIN role"),
+        @ApiResponse(responseCode = "500", description = "Internal server error or rebuild already running")
+    })
+    @PostMapping("/aggregates/rebuild")
+    public ResponseEntity<Void> rebuildRatingAggregates() {
+        reviewService.rebuildRatingAggregates();
+        return ResponseEntity.ok().build();
+    }
+
     @Operation(summary = "Get reviews by user ID", description = "Retrieves all reviews by a specific user, including user info (userId, username)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved reviews",
@@ -0,0 +1,13 @@
+package com.mankind.matrix_product_service.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by CategoryService whenever a category is created, updated or deleted
+ */
+@Getter
+@RequiredArgsConstructor
+public class CategoryChangedEvent {
+    private final Long categoryId;
+}
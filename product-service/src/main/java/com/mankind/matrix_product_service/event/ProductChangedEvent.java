@@ -0,0 +1,14 @@
+package com.mankind.matrix_product_service.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by ProductService whenever a product is created, updated or deactivated.
+ * Listeners reload the product themselves, the event only carries its id.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ProductChangedEvent {
+    private final Long productId;
+}
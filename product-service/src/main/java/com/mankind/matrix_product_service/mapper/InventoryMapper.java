@@ -1,9 +1,11 @@
 package com.mankind.matrix_product_service.mapper;
 
+import com.mankind.api.product.dto.inventory.InventoryAvailabilityDTO;
 import com.mankind.api.product.dto.inventory.InventoryDTO;
 import com.mankind.api.product.dto.inventory.InventoryResponseDTO;
 import com.mankind.api.product.dto.inventory.InventoryStatusDTO;
 import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
 import org.mapstruct.*;
 
 import java.math.BigDecimal;
@@ -35,21 +37,31 @@ public interface InventoryMapper {
     @Mapping(target = "productName", source = "product.name")
     @Mapping(target = "priceDisplay", expression = "java(formatPriceDisplay(inventory.getPrice(), inventory.getCurrency()))")
     @Mapping(target = "maxQuantityPerPurchase", source = "maxQuantityPerPurchase")
+    @Mapping(target = "availableQuantity", source = "totalAvailableQuantity")
+    @Mapping(target = "reservedQuantity", source = "totalReservedQuantity")
     @Mapping(target = "status", expression = "java(determineStatus(inventory))")
     InventoryResponseDTO toResponseDTO(Inventory inventory);
 
     @Mapping(target = "productId", source = "product.id")
     @Mapping(target = "productName", source = "product.name")
-    @Mapping(target = "totalQuantity", expression = "java(inventory.getAvailableQuantity().add(inventory.getReservedQuantity()))")
+    @Mapping(target = "availableQuantity", source = "totalAvailableQuantity")
+    @Mapping(target = "reservedQuantity", source = "totalReservedQuantity")
+    @Mapping(target = "totalQuantity", expression = "java(inventory.getTotalAvailableQuantity().add(inventory.getTotalReservedQuantity()))")
     @Mapping(target = "status", expression = "java(determineStatus(inventory))")
     InventoryStatusDTO toStatusDTO(Inventory inventory);
 
+    @Mapping(target = "status", expression = "java(determineStatus(view.getAvailableQuantity(), view.getReservedQuantity()))")
+    InventoryAvailabilityDTO toAvailabilityDTO(InventoryRepository.AvailabilityView view);
+
     default String determineStatus(Inventory inventory) {
         if (inventory == null) {
             return "NO_INVENTORY";
         }
-        
-        BigDecimal total = inventory.getAvailableQuantity().add(inventory.getReservedQuantity());
+        return determineStatus(inventory.getTotalAvailableQuantity(), inventory.getTotalReservedQuantity());
+    }
+
+    default String determineStatus(BigDecimal availableQuantity, BigDecimal reservedQuantity) {
+        BigDecimal total = availableQuantity.add(reservedQuantity);
         if (total.compareTo(BigDecimal.ZERO) <= 0) {
             return "OUT_OF_STOCK";
         }
@@ -3,9 +3,12 @@ package com.mankind.matrix_product_service.mapper;
 import com.mankind.api.product.dto.inventory.InventoryStatusDTO;
 import com.mankind.api.product.dto.product.ProductDTO;
 import com.mankind.api.product.dto.product.ProductResponseDTO;
+import com.mankind.api.product.dto.product.ProductSummaryDTO;
 import com.mankind.matrix_product_service.model.Inventory;
 import com.mankind.matrix_product_service.model.Product;
+import com.mankind.matrix_product_service.model.ProductSearchDocument;
 import org.mapstruct.*;
+import org.mapstruct.control.DeepClone;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -38,6 +41,13 @@ public interface ProductMapper {
     @Mapping(target = "averageRating", source = "averageRating")
     ProductResponseDTO toResponseDTO(Product product);
 
+    // Cached responses are handed out as copies, so callers cannot change what later requests see
+    @BeanMapping(mappingControl = DeepClone.class)
+    ProductResponseDTO copy(ProductResponseDTO dto);
+
+    @Mapping(target = "id", source = "productId")
+    ProductSummaryDTO toSummaryDTO(ProductSearchDocument document);
+
     @Named("filterImages")
     default List<String> filterImages(List<String> images) {
         if (images == null) {
@@ -76,15 +86,15 @@ public interface ProductMapper {
                 .build();
         }
 
-        BigDecimal totalQuantity = inventory.getAvailableQuantity().add(inventory.getReservedQuantity());
+        BigDecimal totalQuantity = inventory.getTotalAvailableQuantity().add(inventory.getTotalReservedQuantity());
         return InventoryStatusDTO.builder()
             .productId(inventory.getProduct().getId())
             .productName(inventory.getProduct().getName())
             .price(inventory.getPrice())
             .priceDisplay(formatPriceDisplay(inventory.getPrice(), inventory.getCurrency()))
             .currency(inventory.getCurrency())
-            .availableQuantity(inventory.getAvailableQuantity())
-            .reservedQuantity(inventory.getReservedQuantity())
+            .availableQuantity(inventory.getTotalAvailableQuantity())
+            .reservedQuantity(inventory.getTotalReservedQuantity())
             .soldQuantity(inventory.getSoldQuantity())
             .totalQuantity(totalQuantity)
             .status(determineStatus(inventory))
@@ -104,7 +114,7 @@ public interface ProductMapper {
             return "NO_INVENTORY";
         }
         
-        BigDecimal total = inventory.getAvailableQuantity().add(inventory.getReservedQuantity());
+        BigDecimal total = inventory.getTotalAvailableQuantity().add(inventory.getTotalReservedQuantity());
         if (total.compareTo(BigDecimal.ZERO) <= 0) {
             return "OUT_OF_STOCK";
         }
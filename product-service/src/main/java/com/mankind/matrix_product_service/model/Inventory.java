@@ -61,6 +61,25 @@ public class Inventory {
     @Builder.Default
     private List<InventoryLog> logs = new ArrayList<>();
 
+    // Whether the stock is split over hot SKU shards, so only these inventories have shard totals to read
+    @Column(nullable = false)
+    private boolean sharded;
+
+    // Stock held on the shards, filled in by InventoryStockShardService; the columns above then only hold the rest
+    @Transient
+    private BigDecimal shardAvailableQuantity;
+
+    @Transient
+    private BigDecimal shardReservedQuantity;
+
+    public BigDecimal getTotalAvailableQuantity() {
+        return shardAvailableQuantity != null ? availableQuantity.add(shardAvailableQuantity) : availableQuantity;
+    }
+
+    public BigDecimal getTotalReservedQuantity() {
+        return shardReservedQuantity != null ? reservedQuantity.add(shardReservedQuantity) : reservedQuantity;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -14,7 +16,12 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "inventory_logs")
+@Table(name = "inventory_logs", indexes = {
+    @Index(name = "idx_inventory_log_created", columnList = "created_at"),
+    @Index(name = "idx_inventory_log_inventory_id", columnList = "inventory_id, id"),
+    @Index(name = "idx_inventory_log_inventory_created", columnList = "inventory_id, created_at, id"),
+    @Index(name = "idx_inventory_log_inventory_action_created", columnList = "inventory_id, action_type, created_at, id")
+})
 public class InventoryLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,6 +32,7 @@ public class InventoryLog {
     private Inventory inventory;
 
     @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
     @Column(nullable = false, length = 100)
     private InventoryActionType actionType;
 
@@ -46,16 +54,37 @@ public class InventoryLog {
     @Column(name = "cart_id")
     private Long cartId;
 
+    /**
+     * Each action moves its quantity by a fixed sign on the available and reserved counters,
+     * which is what the audit replays. CART_UPDATE logs a signed quantity: negative is a release.
+     */
     public enum InventoryActionType {
-        RESTOCK,
-        SALE,
-        RESERVATION,
-        UNRESERVATION,
-        PRICE_CHANGE,
-        STOCK_ADJUSTMENT,
-        CART_ADD,
-        CART_UPDATE,
-        CART_REMOVE
+        RESTOCK(1, 0),
+        SALE(-1, 0),
+        RESERVATION(-1, 1),
+        UNRESERVATION(1, -1),
+        PRICE_CHANGE(0, 0),
+        STOCK_ADJUSTMENT(-1, 0),
+        CART_ADD(-1, 1),
+        CART_UPDATE(-1, 1),
+        CART_REMOVE(1, -1),
+        CHECKOUT_COMMIT(0, -1);
+
+        private final int availableSign;
+        private final int reservedSign;
+
+        InventoryActionType(int availableSign, int reservedSign) {
+            this.availableSign = availableSign;
+            this.reservedSign = reservedSign;
+        }
+
+        public BigDecimal availableDelta(BigDecimal quantity) {
+            return quantity.multiply(BigDecimal.valueOf(availableSign));
+        }
+
+        public BigDecimal reservedDelta(BigDecimal quantity) {
+            return quantity.multiply(BigDecimal.valueOf(reservedSign));
+        }
     }
 
     @PrePersist
@@ -0,0 +1,62 @@
+package com.mankind.matrix_product_service.model;
+
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Roll-up of the inventory logs of one inventory, action type and day. Raw logs older than
+ * the retention age are folded into these rows by the compaction job.
+ */
+@Entity
+@Table(name = "inventory_log_daily_aggregates",
+    uniqueConstraints = @UniqueConstraint(name = "uk_inventory_log_daily_aggregate",
+        columnNames = {"inventory_id", "log_date", "action_type"}),
+    indexes = @Index(name = "idx_inventory_log_daily_aggregate_log_date", columnList = "log_date"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class InventoryLogDailyAggregate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "inventory_id", nullable = false)
+    private Long inventoryId;
+
+    @Column(name = "log_date", nullable = false)
+    private LocalDate logDate;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(name = "action_type", nullable = false, length = 100)
+    private InventoryActionType actionType;
+
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+
+    @Column(name = "total_quantity", nullable = false)
+    private BigDecimal totalQuantity = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public InventoryLogDailyAggregate(Long inventoryId, LocalDate logDate, InventoryActionType actionType) {
+        this.inventoryId = inventoryId;
+        this.logDate = logDate;
+        this.actionType = actionType;
+    }
+
+    public void add(long entries, BigDecimal quantity) {
+        entryCount += entries;
+        totalQuantity = totalQuantity.add(quantity);
+    }
+}
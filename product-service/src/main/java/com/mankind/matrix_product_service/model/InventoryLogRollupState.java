@@ -0,0 +1,32 @@
+package com.mankind.matrix_product_service.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the inventory log compaction, a single row. Compaction runs lock it, so only one
+ * instance folds logs at a time, and record the last day rolled up so the next run starts after it.
+ */
+@Entity
+@Table(name = "inventory_log_rollup_state")
+@Getter
+@Setter
+@NoArgsConstructor
+public class InventoryLogRollupState {
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    // Every day up to and including this one is rolled up; null until the first day is
+    @Column(name = "last_rolled_up_date")
+    private LocalDate lastRolledUpDate;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,66 @@
+package com.mankind.matrix_product_service.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Replayed stock of one inventory: the effect of every log up to lastLogId plus the logs
+ * compacted away after it. The audit replays only the log tail after lastLogId on top of it.
+ */
+@Entity
+@Table(name = "inventory_snapshots")
+@Getter
+@Setter
+@NoArgsConstructor
+public class InventorySnapshot implements Persistable<Long> {
+    @Id
+    @Column(name = "inventory_id")
+    private Long inventoryId;
+
+    @Column(name = "available_quantity", nullable = false)
+    private BigDecimal availableQuantity = BigDecimal.ZERO;
+
+    @Column(name = "reserved_quantity", nullable = false)
+    private BigDecimal reservedQuantity = BigDecimal.ZERO;
+
+    @Column(name = "last_log_id", nullable = false)
+    private long lastLogId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // The id is assigned, so tell Spring Data whether to persist or merge instead of letting it probe with a SELECT
+    @Transient
+    private boolean isNew = true;
+
+    public InventorySnapshot(Long inventoryId) {
+        this.inventoryId = inventoryId;
+    }
+
+    @Override
+    public Long getId() {
+        return inventoryId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    public void apply(InventoryLog.InventoryActionType actionType, BigDecimal quantity) {
+        availableQuantity = availableQuantity.add(actionType.availableDelta(quantity));
+        reservedQuantity = reservedQuantity.add(actionType.reservedDelta(quantity));
+    }
+}
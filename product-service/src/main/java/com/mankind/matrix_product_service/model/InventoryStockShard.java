@@ -0,0 +1,48 @@
+package com.mankind.matrix_product_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Slice of a hot SKU's stock. Reservations of a sharded inventory update one of these rows
+ * instead of the single inventories row, so concurrent reservers rarely wait on each other.
+ * The inventory's stock is its own quantities plus the sum of its shards.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "inventory_stock_shards",
+    uniqueConstraints = @UniqueConstraint(name = "uk_inventory_stock_shard_product_shard", columnNames = {"product_id", "shard_no"}),
+    indexes = @Index(name = "idx_inventory_stock_shard_inventory", columnList = "inventory_id"))
+public class InventoryStockShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_id", nullable = false)
+    private Inventory inventory;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "shard_no", nullable = false)
+    private int shardNo;
+
+    @Column(nullable = false)
+    private BigDecimal availableQuantity;
+
+    @Column(nullable = false)
+    private BigDecimal reservedQuantity;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
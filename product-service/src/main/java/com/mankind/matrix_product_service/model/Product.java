@@ -3,6 +3,7 @@ package com.mankind.matrix_product_service.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -52,6 +53,7 @@ public class Product {
     private Double averageRating;
 
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "product_specifications", 
         joinColumns = @JoinColumn(name = "product_id"))
     @MapKeyColumn(name = "spec_key")
@@ -59,6 +61,7 @@ public class Product {
     private Map<String, String> specifications = new HashMap<>();
 
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "product_images", 
         joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "image_url", length = 255)
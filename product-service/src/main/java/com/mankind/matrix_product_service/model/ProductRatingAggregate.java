@@ -0,0 +1,99 @@
+package com.mankind.matrix_product_service.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running rating totals per product: review count, rating sum and a 1-5 star histogram.
+ * Review writes adjust the counters with a single UPDATE instead of re-reading reviews.
+ */
+@Entity
+@Table(name = "product_rating_aggregates")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductRatingAggregate implements Persistable<Long> {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "one_star_count", nullable = false)
+    private long oneStarCount;
+
+    @Column(name = "two_star_count", nullable = false)
+    private long twoStarCount;
+
+    @Column(name = "three_star_count", nullable = false)
+    private long threeStarCount;
+
+    @Column(name = "four_star_count", nullable = false)
+    private long fourStarCount;
+
+    @Column(name = "five_star_count", nullable = false)
+    private long fiveStarCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // The id is assigned, so tell Spring Data whether to persist or merge instead of letting it probe with a SELECT
+    @Transient
+    private boolean isNew = true;
+
+    public ProductRatingAggregate(Long productId) {
+        this.productId = productId;
+    }
+
+    @Override
+    public Long getId() {
+        return productId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    public void reset() {
+        reviewCount = 0;
+        ratingSum = 0;
+        oneStarCount = 0;
+        twoStarCount = 0;
+        threeStarCount = 0;
+        fourStarCount = 0;
+        fiveStarCount = 0;
+    }
+
+    public void add(int rating, long reviews) {
+        reviewCount += reviews;
+        ratingSum += rating * reviews;
+        switch (rating) {
+            case 1 -> oneStarCount += reviews;
+            case 2 -> twoStarCount += reviews;
+            case 3 -> threeStarCount += reviews;
+            case 4 -> fourStarCount += reviews;
+            case 5 -> fiveStarCount += reviews;
+            default -> throw new IllegalArgumentException("Rating must be between 1 and 5: " + rating);
+        }
+    }
+
+    public Double getAverageRating() {
+        return reviewCount > 0 ? (double) ratingSum / reviewCount : null;
+    }
+}
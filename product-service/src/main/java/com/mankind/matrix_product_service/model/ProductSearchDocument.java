@@ -0,0 +1,59 @@
+package com.mankind.matrix_product_service.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized read model with one row per active product, holding everything a
+ * listing page shows. Written in the same transaction as the product, inventory,
+ * review or category change that affects it (see ProductSearchDocumentService).
+ */
+@Entity
+@Table(name = "product_search_document", indexes = {
+    @Index(name = "idx_psd_category", columnList = "category_id, product_id"),
+    @Index(name = "idx_psd_featured", columnList = "is_featured, product_id")
+})
+@Getter
+@Setter
+public class ProductSearchDocument {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(length = 100, nullable = false)
+    private String name;
+
+    @Column(length = 50)
+    private String brand;
+
+    @Column(name = "image_url", length = 255)
+    private String imageUrl;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "category_path", length = 1000)
+    private String categoryPath;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal price;
+
+    @Column(length = 3)
+    private String currency;
+
+    @Column(name = "stock_status", length = 20, nullable = false)
+    private String stockStatus;
+
+    @Column(name = "average_rating")
+    private Double averageRating;
+
+    @Column(name = "is_featured", nullable = false)
+    private boolean isFeatured;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
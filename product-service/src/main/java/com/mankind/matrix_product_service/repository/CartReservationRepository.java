@@ -0,0 +1,70 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.CartReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CartReservationRepository extends JpaRepository<CartReservation, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM CartReservation r WHERE r.cartId = :cartId AND r.productId = :productId")
+    Optional<CartReservation> findByCartIdAndProductIdForUpdate(@Param("cartId") Long cartId,
+                                                                @Param("productId") Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM CartReservation r WHERE r.cartId = :cartId AND r.productId IN :productIds ORDER BY r.productId")
+    List<CartReservation> findByCartIdAndProductIdInForUpdate(@Param("cartId") Long cartId,
+                                                              @Param("productIds") Collection<Long> productIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM CartReservation r WHERE r.cartId = :cartId ORDER BY r.productId")
+    List<CartReservation> findByCartIdForUpdate(@Param("cartId") Long cartId);
+
+    /**
+     * Oldest expired reservations first, locked so a concurrent cart change waits for the release
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM CartReservation r WHERE r.expiresAt <= :now ORDER BY r.id")
+    List<CartReservation> findExpiredForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Add to (or with a negative delta take from) the cart's reservation of a product and push its expiry
+     * forward. A cart without a row gets one holding insertQuantity; concurrent first changes of the same
+     * cart and product wait on each other's row instead of failing on the unique key.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO cart_reservations (inventory_id, product_id, cart_id, user_id, quantity, expires_at, created_at, updated_at) " +
+           "VALUES (:inventoryId, :productId, :cartId, :userId, :insertQuantity, :expiresAt, :now, :now) " +
+           "ON DUPLICATE KEY UPDATE quantity = GREATEST(quantity + :delta, 0), expires_at = :expiresAt, released_at = NULL, updated_at = :now", nativeQuery = true)
+    int insertOrAdjust(@Param("inventoryId") Long inventoryId, @Param("productId") Long productId,
+                       @Param("cartId") Long cartId, @Param("userId") Long userId,
+                       @Param("insertQuantity") BigDecimal insertQuantity, @Param("delta") BigDecimal delta,
+                       @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Mark released reservations as holding nothing until expiresAt, after which the sweeper deletes them
+     */
+    @Modifying
+    @Query("UPDATE CartReservation r SET r.quantity = 0, r.expiresAt = :expiresAt, r.releasedAt = :now, r.updatedAt = :now " +
+           "WHERE r.id IN :ids")
+    int markReleased(@Param("ids") Collection<Long> ids, @Param("expiresAt") LocalDateTime expiresAt,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CartReservation r SET r.releasedAt = NULL WHERE r.cartId = :cartId AND r.productId = :productId " +
+           "AND r.releasedAt IS NOT NULL")
+    int clearReleased(@Param("cartId") Long cartId, @Param("productId") Long productId);
+}
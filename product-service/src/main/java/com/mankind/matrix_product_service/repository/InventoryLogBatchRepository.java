@@ -0,0 +1,14 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.InventoryLog;
+
+import java.util.List;
+
+public interface InventoryLogBatchRepository {
+
+    /**
+     * Insert the logs with one JDBC batch; Hibernate cannot batch inserts of identity ids.
+     * The given logs stay transient and get no ids.
+     */
+    void insertAllInBatch(List<InventoryLog> logs);
+}
@@ -0,0 +1,37 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.InventoryLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class InventoryLogBatchRepositoryImpl implements InventoryLogBatchRepository {
+    private static final String INSERT_SQL = "INSERT INTO inventory_logs " +
+            "(inventory_id, action_type, quantity, description, created_at, created_by, user_id, cart_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAllInBatch(List<InventoryLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, logs, logs.size(), (statement, log) -> {
+            statement.setLong(1, log.getInventory().getId());
+            statement.setString(2, log.getActionType().name());
+            statement.setBigDecimal(3, log.getQuantity());
+            statement.setString(4, log.getDescription());
+            statement.setTimestamp(5, Timestamp.valueOf(log.getCreatedAt() != null ? log.getCreatedAt() : now));
+            statement.setString(6, log.getCreatedBy() != null ? log.getCreatedBy() : "SYSTEM");
+            statement.setObject(7, log.getUserId(), Types.BIGINT);
+            statement.setObject(8, log.getCartId(), Types.BIGINT);
+        });
+    }
+}
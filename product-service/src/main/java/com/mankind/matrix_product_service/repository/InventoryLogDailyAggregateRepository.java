@@ -0,0 +1,27 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.InventoryLogDailyAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryLogDailyAggregateRepository extends JpaRepository<InventoryLogDailyAggregate, Long> {
+    List<InventoryLogDailyAggregate> findByInventoryIdInAndLogDateBetween(Collection<Long> inventoryIds,
+                                                                          LocalDate from, LocalDate to);
+
+    List<InventoryLogDailyAggregate> findByInventoryIdAndLogDateBetweenOrderByLogDateAscActionTypeAsc(
+            Long inventoryId, LocalDate from, LocalDate to);
+
+    List<InventoryLogDailyAggregate> findByLogDate(LocalDate logDate);
+
+    /**
+     * Last day rolled up; every earlier day is complete
+     */
+    @Query("SELECT MAX(a.logDate) FROM InventoryLogDailyAggregate a")
+    LocalDate findLastLogDate();
+}
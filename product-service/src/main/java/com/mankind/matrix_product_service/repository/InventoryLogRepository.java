@@ -2,16 +2,80 @@ package com.mankind.matrix_product_service.repository;
 
 import com.mankind.matrix_product_service.model.InventoryLog;
 import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface InventoryLogRepository extends JpaRepository<InventoryLog, Long> {
+public interface InventoryLogRepository extends JpaRepository<InventoryLog, Long>, InventoryLogBatchRepository,
+        InventoryLogStreamRepository {
     Page<InventoryLog> findByInventoryId(Long inventoryId, Pageable pageable);
     List<InventoryLog> findByInventoryId(Long inventoryId);
     List<InventoryLog> findByInventoryIdAndActionType(Long inventoryId, InventoryActionType actionType);
-} 
\ No newline at end of file
+
+    /**
+     * Oldest logs created before the cutoff, locked so concurrent compaction runs never fold a row twice
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM InventoryLog l WHERE l.createdAt < :cutoff ORDER BY l.createdAt, l.id")
+    List<InventoryLog> findCreatedBeforeForUpdate(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Query("SELECT MIN(l.createdAt) FROM InventoryLog l WHERE l.createdAt >= :from")
+    LocalDateTime findFirstCreatedAtFrom(@Param("from") LocalDateTime from);
+
+    /**
+     * Log count and quantity per inventory, day and action type of the logs created in [from, to),
+     * optionally for a single inventory
+     */
+    @Query("SELECT l.inventory.id AS inventoryId, CAST(l.createdAt AS LocalDate) AS logDate, " +
+           "l.actionType AS actionType, COUNT(l) AS entryCount, SUM(l.quantity) AS totalQuantity " +
+           "FROM InventoryLog l WHERE (:inventoryId IS NULL OR l.inventory.id = :inventoryId) " +
+           "AND l.createdAt >= :from AND l.createdAt < :to " +
+           "GROUP BY l.inventory.id, CAST(l.createdAt AS LocalDate), l.actionType")
+    List<DailyTotal> sumByDay(@Param("inventoryId") Long inventoryId,
+                              @Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to);
+
+    /**
+     * Newest first keyset page of the logs created in [from, to) that sort after the given
+     * (createdAt, id) position; served from the (inventory_id[, action_type], created_at, id) indexes
+     */
+    @Query("SELECT l FROM InventoryLog l WHERE l.inventory.id = :inventoryId " +
+           "AND (:actionType IS NULL OR l.actionType = :actionType) " +
+           "AND l.createdAt >= :from AND l.createdAt < :to " +
+           "AND (l.createdAt < :afterCreatedAt OR (l.createdAt = :afterCreatedAt AND l.id < :afterId)) " +
+           "ORDER BY l.createdAt DESC, l.id DESC")
+    Slice<InventoryLog> findPage(@Param("inventoryId") Long inventoryId,
+                                 @Param("actionType") InventoryActionType actionType,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to,
+                                 @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    interface ReplayEntry {
+        Long getId();
+        InventoryActionType getActionType();
+        BigDecimal getQuantity();
+        LocalDateTime getCreatedAt();
+    }
+
+    interface DailyTotal {
+        Long getInventoryId();
+        LocalDate getLogDate();
+        InventoryActionType getActionType();
+        long getEntryCount();
+        BigDecimal getTotalQuantity();
+    }
+}
@@ -0,0 +1,28 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.InventoryLogRollupState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface InventoryLogRollupStateRepository extends JpaRepository<InventoryLogRollupState, Long> {
+
+    /**
+     * Create the state row unless it exists; concurrent first runs do not fail on the primary key
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO inventory_log_rollup_state (id, updated_at) VALUES (:id, :now)", nativeQuery = true)
+    int insertIfMissing(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventoryLogRollupState s WHERE s.id = :id")
+    Optional<InventoryLogRollupState> findByIdForUpdate(@Param("id") Long id);
+}
@@ -0,0 +1,22 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.InventoryLog;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface InventoryLogStreamRepository {
+
+    /**
+     * Forward-only read of the logs created in [from, to), newest first. Must be consumed inside a
+     * transaction and closed, without running other queries on the connection while it is open.
+     */
+    Stream<InventoryLog> streamAll(Long inventoryId, InventoryActionType actionType, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Forward-only read of an inventory's logs after the given id in id order, only the columns a
+     * replay needs. Same constraints as streamAll.
+     */
+    Stream<InventoryLogRepository.ReplayEntry> streamForReplay(Long inventoryId, long afterId);
+}
@@ -0,0 +1,84 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.InventoryLog;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * The fetch size is set on these statements only. MySQL Connector/J streams a result row by row when
+ * it is Integer.MIN_VALUE, without switching the whole datasource to useCursorFetch.
+ */
+public class InventoryLogStreamRepositoryImpl implements InventoryLogStreamRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.inventory.log-stream.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    @Override
+    public Stream<InventoryLog> streamAll(Long inventoryId, InventoryActionType actionType,
+                                          LocalDateTime from, LocalDateTime to) {
+        return entityManager.createQuery("SELECT l FROM InventoryLog l WHERE l.inventory.id = :inventoryId " +
+                        "AND (:actionType IS NULL OR l.actionType = :actionType) " +
+                        "AND l.createdAt >= :from AND l.createdAt < :to " +
+                        "ORDER BY l.createdAt DESC, l.id DESC", InventoryLog.class)
+                .setParameter("inventoryId", inventoryId)
+                .setParameter("actionType", actionType)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .setHint(HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<InventoryLogRepository.ReplayEntry> streamForReplay(Long inventoryId, long afterId) {
+        return entityManager.createQuery("SELECT l.id, l.actionType, l.quantity, l.createdAt " +
+                        "FROM InventoryLog l WHERE l.inventory.id = :inventoryId AND l.id > :afterId ORDER BY l.id", Tuple.class)
+                .setParameter("inventoryId", inventoryId)
+                .setParameter("afterId", afterId)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()
+                .map(ReplayRow::of);
+    }
+
+    private record ReplayRow(Long id, InventoryActionType actionType, BigDecimal quantity, LocalDateTime createdAt)
+            implements InventoryLogRepository.ReplayEntry {
+
+        static ReplayRow of(Tuple tuple) {
+            return new ReplayRow(tuple.get(0, Long.class), tuple.get(1, InventoryActionType.class),
+                    tuple.get(2, BigDecimal.class), tuple.get(3, LocalDateTime.class));
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public InventoryActionType getActionType() {
+            return actionType;
+        }
+
+        @Override
+        public BigDecimal getQuantity() {
+            return quantity;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
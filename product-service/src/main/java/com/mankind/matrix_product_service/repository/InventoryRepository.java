@@ -1,10 +1,19 @@
 package com.mankind.matrix_product_service.repository;
 
 import com.mankind.matrix_product_service.model.Inventory;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,6 +21,98 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     Optional<Inventory> findByProductId(Long productId);
     boolean existsByProductId(Long productId);
     
+    /**
+     * Stock and price of several products in one query on the product_id unique index, with the
+     * stock of hot SKU shards added in for the sharded ones
+     */
+    @Query("SELECT i.product.id AS productId, " +
+           "i.availableQuantity + CASE WHEN i.sharded = true THEN " +
+           "(SELECT COALESCE(SUM(s.availableQuantity), 0) FROM InventoryStockShard s WHERE s.inventory = i) " +
+           "ELSE 0 END AS availableQuantity, " +
+           "i.reservedQuantity + CASE WHEN i.sharded = true THEN " +
+           "(SELECT COALESCE(SUM(s.reservedQuantity), 0) FROM InventoryStockShard s WHERE s.inventory = i) " +
+           "ELSE 0 END AS reservedQuantity, " +
+           "i.maxQuantityPerPurchase AS maxQuantityPerPurchase, i.price AS price, i.currency AS currency " +
+           "FROM Inventory i WHERE i.product.id IN :productIds")
+    List<AvailabilityView> findAvailabilityByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT i.product.id FROM Inventory i WHERE i.id = :id")
+    Optional<Long> findProductIdById(@Param("id") Long id);
+
+    @Query("SELECT i.id FROM Inventory i WHERE i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
     @Query("SELECT i FROM Inventory i LEFT JOIN FETCH i.logs WHERE i.product.id = :productId")
     Optional<Inventory> findByProductIdWithLogs(Long productId);
-} 
\ No newline at end of file
+
+    /**
+     * Give the stock of the given cart reservations back to their inventories in one statement,
+     * each inventory by the summed quantity of its reservations in the list
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET " +
+           "i.availableQuantity = i.availableQuantity + " +
+           "(SELECT SUM(r.quantity) FROM CartReservation r WHERE r.inventory.id = i.id AND r.id IN :reservationIds), " +
+           "i.reservedQuantity = i.reservedQuantity - " +
+           "(SELECT SUM(r.quantity) FROM CartReservation r WHERE r.inventory.id = i.id AND r.id IN :reservationIds), " +
+           "i.updatedAt = :now " +
+           "WHERE i.id IN :inventoryIds")
+    int releaseCartReservations(@Param("reservationIds") Collection<Long> reservationIds,
+                                @Param("inventoryIds") Collection<Long> inventoryIds,
+                                @Param("now") LocalDateTime now);
+
+    /**
+     * Turn the stock of the given cart reservations from reserved into sold in one statement,
+     * each inventory by the summed quantity of its reservations in the list
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET " +
+           "i.reservedQuantity = i.reservedQuantity - " +
+           "(SELECT SUM(r.quantity) FROM CartReservation r WHERE r.inventory.id = i.id AND r.id IN :reservationIds), " +
+           "i.soldQuantity = i.soldQuantity + " +
+           "(SELECT SUM(r.quantity) FROM CartReservation r WHERE r.inventory.id = i.id AND r.id IN :reservationIds), " +
+           "i.updatedAt = :now " +
+           "WHERE i.id IN :inventoryIds")
+    int commitCartReservations(@Param("reservationIds") Collection<Long> reservationIds,
+                               @Param("inventoryIds") Collection<Long> inventoryIds,
+                               @Param("now") LocalDateTime now);
+
+    /**
+     * Lock the inventories of several products in product id order, so that concurrent
+     * multi-product reservations always acquire their row locks in the same order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.product.id IN :productIds ORDER BY i.product.id")
+    List<Inventory> findByProductIdInForUpdate(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Move stock from available to reserved in one guarded statement; returns 0 when the
+     * inventory does not exist or has less than the quantity available
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.availableQuantity = i.availableQuantity - :quantity, " +
+           "i.reservedQuantity = i.reservedQuantity + :quantity, i.updatedAt = :now " +
+           "WHERE i.product.id = :productId AND i.availableQuantity >= :quantity")
+    int reserve(@Param("productId") Long productId, @Param("quantity") BigDecimal quantity,
+                @Param("now") LocalDateTime now);
+
+    /**
+     * Move stock from reserved back to available in one guarded statement; returns 0 when the
+     * inventory does not exist or has less than the quantity reserved
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.availableQuantity = i.availableQuantity + :quantity, " +
+           "i.reservedQuantity = i.reservedQuantity - :quantity, i.updatedAt = :now " +
+           "WHERE i.product.id = :productId AND i.reservedQuantity >= :quantity")
+    int release(@Param("productId") Long productId, @Param("quantity") BigDecimal quantity,
+                @Param("now") LocalDateTime now);
+
+    interface AvailabilityView {
+        Long getProductId();
+        BigDecimal getAvailableQuantity();
+        BigDecimal getReservedQuantity();
+        BigDecimal getMaxQuantityPerPurchase();
+        BigDecimal getPrice();
+        String getCurrency();
+    }
+}
@@ -0,0 +1,23 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.InventorySnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    /**
+     * Lock snapshots in inventory id order, so the audit and log compaction never advance one concurrently
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventorySnapshot s WHERE s.inventoryId IN :inventoryIds ORDER BY s.inventoryId")
+    List<InventorySnapshot> findByInventoryIdInForUpdate(@Param("inventoryIds") Collection<Long> inventoryIds);
+}
@@ -0,0 +1,86 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.InventoryStockShard;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.hibernate.jpa.SpecHints.HINT_SPEC_LOCK_TIMEOUT;
+
+@Repository
+public interface InventoryStockShardRepository extends JpaRepository<InventoryStockShard, Long> {
+    // LockOptions.SKIP_LOCKED as a lock timeout hint
+    String SKIP_LOCKED = "-2";
+
+    List<InventoryStockShard> findByProductId(Long productId);
+
+    boolean existsByProductId(Long productId);
+
+    @Query("SELECT DISTINCT s.productId FROM InventoryStockShard s")
+    List<Long> findShardedProductIds();
+
+    @Query("SELECT DISTINCT s.productId FROM InventoryStockShard s WHERE s.productId IN :productIds")
+    Set<Long> findShardedProductIdsIn(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Stock held on the shards of each of the given inventories
+     */
+    @Query("SELECT s.inventory.id AS inventoryId, SUM(s.availableQuantity) AS availableQuantity, " +
+           "SUM(s.reservedQuantity) AS reservedQuantity " +
+           "FROM InventoryStockShard s WHERE s.inventory.id IN :inventoryIds GROUP BY s.inventory.id")
+    List<ShardTotalsView> sumByInventoryIdIn(@Param("inventoryIds") Collection<Long> inventoryIds);
+
+    /**
+     * Lock all shards of a product in shard order. Shards are always locked before the
+     * inventory row.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventoryStockShard s WHERE s.productId = :productId ORDER BY s.shardNo")
+    List<InventoryStockShard> findByProductIdForUpdate(@Param("productId") Long productId);
+
+    /**
+     * Lock the shards of a product that no other transaction holds, in shard order. A reservation
+     * may already hold the shard its single-shard attempt touched; skipping instead of waiting
+     * keeps two such reservations from waiting on each other's shard.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HINT_SPEC_LOCK_TIMEOUT, value = SKIP_LOCKED))
+    @Query("SELECT s FROM InventoryStockShard s WHERE s.productId = :productId ORDER BY s.shardNo")
+    List<InventoryStockShard> findUnlockedByProductIdForUpdate(@Param("productId") Long productId);
+
+    /**
+     * Move stock from available to reserved on one shard; returns 0 when it has less than the quantity available
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InventoryStockShard s SET s.availableQuantity = s.availableQuantity - :quantity, " +
+           "s.reservedQuantity = s.reservedQuantity + :quantity, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.availableQuantity >= :quantity")
+    int reserve(@Param("id") Long id, @Param("quantity") BigDecimal quantity, @Param("now") LocalDateTime now);
+
+    /**
+     * Move stock from reserved back to available on one shard; returns 0 when it has less than the quantity reserved
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InventoryStockShard s SET s.availableQuantity = s.availableQuantity + :quantity, " +
+           "s.reservedQuantity = s.reservedQuantity - :quantity, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.reservedQuantity >= :quantity")
+    int release(@Param("id") Long id, @Param("quantity") BigDecimal quantity, @Param("now") LocalDateTime now);
+
+    interface ShardTotalsView {
+        Long getInventoryId();
+        BigDecimal getAvailableQuantity();
+        BigDecimal getReservedQuantity();
+    }
+}
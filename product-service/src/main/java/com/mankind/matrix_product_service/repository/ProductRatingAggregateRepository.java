@@ -0,0 +1,57 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.ProductRatingAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductRatingAggregateRepository extends JpaRepository<ProductRatingAggregate, Long> {
+
+    /**
+     * Create empty aggregate rows for the given products that do not have one yet. Concurrent
+     * callers wait on each other's new rows instead of failing on the primary key; returns the
+     * number of rows created, which stay locked by the calling transaction.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO product_rating_aggregates (product_id, review_count, rating_sum, " +
+           "one_star_count, two_star_count, three_star_count, four_star_count, five_star_count, updated_at) " +
+           "SELECT p.id, 0, 0, 0, 0, 0, 0, 0, :now FROM products p WHERE p.id IN :productIds", nativeQuery = true)
+    int insertMissing(@Param("productIds") Collection<Long> productIds, @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM ProductRatingAggregate a WHERE a.productId IN :productIds ORDER BY a.productId")
+    List<ProductRatingAggregate> findAllByIdForUpdate(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Adjust the counters of one product in place; returns 0 if the product has no aggregate row yet
+     */
+    @Modifying
+    @Query("UPDATE ProductRatingAggregate a SET " +
+           "a.reviewCount = a.reviewCount + :reviews, " +
+           "a.ratingSum = a.ratingSum + :ratingSum, " +
+           "a.oneStarCount = a.oneStarCount + :oneStar, " +
+           "a.twoStarCount = a.twoStarCount + :twoStar, " +
+           "a.threeStarCount = a.threeStarCount + :threeStar, " +
+           "a.fourStarCount = a.fourStarCount + :fourStar, " +
+           "a.fiveStarCount = a.fiveStarCount + :fiveStar, " +
+           "a.updatedAt = :now " +
+           "WHERE a.productId = :productId")
+    int applyDelta(@Param("productId") Long productId,
+                   @Param("reviews") long reviews,
+                   @Param("ratingSum") long ratingSum,
+                   @Param("oneStar") long oneStar,
+                   @Param("twoStar") long twoStar,
+                   @Param("threeStar") long threeStar,
+                   @Param("fourStar") long fourStar,
+                   @Param("fiveStar") long fiveStar,
+                   @Param("now") LocalDateTime now);
+}
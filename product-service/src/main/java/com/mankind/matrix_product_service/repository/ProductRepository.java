@@ -3,19 +3,87 @@ package com.mankind.matrix_product_service.repository;
 import com.mankind.matrix_product_service.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByIdAndIsActiveTrue(Long id);
+    long countByIsActiveTrue();
+
+    // Listing queries join category and inventory into the page query; the
+    // specifications and images collections are then loaded in batches (see @BatchSize on Product)
+    @EntityGraph(attributePaths = {"category", "inventory"})
     Page<Product> findByIsActiveTrue(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "inventory"})
     Page<Product> findByCategoryIdAndIsActiveTrue(Long categoryId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "inventory"})
     Page<Product> findByCategoryIdInAndIsActiveTrue(Iterable<Long> categoryIds, Pageable pageable);
     boolean existsByNameAndCategoryId(String name, Long categoryId);
     boolean existsByNameAndCategoryIdAndIdNot(String name, Long categoryId, Long id);
+
+    @EntityGraph(attributePaths = {"category", "inventory"})
     Page<Product> findByIsFeaturedTrueAndIsActiveTrue(Pageable pageable);
-}
 
+    // Keyset (cursor) variants: seek past the last seen id instead of using OFFSET, no count query
+    @EntityGraph(attributePaths = {"category", "inventory"})
+    Slice<Product> findByIsActiveTrueAndIdGreaterThan(Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "inventory"})
+    Slice<Product> findByCategoryIdAndIsActiveTrueAndIdGreaterThan(Long categoryId, Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "inventory"})
+    Slice<Product> findByCategoryIdInAndIsActiveTrueAndIdGreaterThan(Iterable<Long> categoryIds, Long afterId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "inventory"})
+    Slice<Product> findByIsFeaturedTrueAndIsActiveTrueAndIdGreaterThan(Long afterId, Pageable pageable);
+
+    /**
+     * Load several active products with their category and inventory in a single query. Specifications
+     * and images are left to @BatchSize, one query each for all products: fetch-joining both collections
+     * would return specifications times images rows per product.
+     */
+    @Query("SELECT p FROM Product p " +
+           "LEFT JOIN FETCH p.category " +
+           "LEFT JOIN FETCH p.inventory " +
+           "WHERE p.id IN :ids AND p.isActive = true")
+    List<Product> findAllActiveWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Id, name, brand and category of every active product, without loading the entities
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.brand AS brand, p.categoryId AS categoryId " +
+           "FROM Product p WHERE p.isActive = true")
+    List<ProductNameView> findActiveProductNames();
+
+    @Query("SELECT p.id FROM Product p ORDER BY p.id")
+    List<Long> findAllIds();
+
+    /**
+     * Copy the average rating of the given products from their rating aggregates
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.averageRating = " +
+           "(SELECT CASE WHEN a.reviewCount > 0 THEN 1.0 * a.ratingSum / a.reviewCount ELSE NULL END " +
+           "FROM ProductRatingAggregate a WHERE a.productId = p.id) " +
+           "WHERE p.id IN :ids")
+    int updateAverageRatingFromAggregates(@Param("ids") Collection<Long> ids);
+
+    interface ProductNameView {
+        Long getId();
+        String getName();
+        String getBrand();
+        Long getCategoryId();
+    }
+}
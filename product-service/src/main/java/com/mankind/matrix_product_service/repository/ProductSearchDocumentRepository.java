@@ -0,0 +1,37 @@
+package com.mankind.matrix_product_service.repository;
+
+import com.mankind.matrix_product_service.model.ProductSearchDocument;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface ProductSearchDocumentRepository extends JpaRepository<ProductSearchDocument, Long> {
+    Page<ProductSearchDocument> findByCategoryIdIn(Iterable<Long> categoryIds, Pageable pageable);
+
+    Page<ProductSearchDocument> findByIsFeaturedTrue(Pageable pageable);
+
+    Page<ProductSearchDocument> findByCategoryIdInAndIsFeaturedTrue(Iterable<Long> categoryIds, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE ProductSearchDocument d SET d.categoryPath = :path WHERE d.categoryId = :categoryId")
+    int updateCategoryPath(@Param("categoryId") Long categoryId, @Param("path") String path);
+
+    @Modifying
+    @Query("DELETE FROM ProductSearchDocument d WHERE NOT EXISTS " +
+           "(SELECT p.id FROM Product p WHERE p.id = d.productId AND p.isActive = true)")
+    int deleteOrphaned();
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ProductSearchDocument d SET d.averageRating = " +
+           "(SELECT CASE WHEN a.reviewCount > 0 THEN 1.0 * a.ratingSum / a.reviewCount ELSE NULL END " +
+           "FROM ProductRatingAggregate a WHERE a.productId = d.productId) " +
+           "WHERE d.productId IN :ids")
+    int updateAverageRatingFromAggregates(@Param("ids") Collection<Long> ids);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -43,4 +44,15 @@ public interface RecentlyViewedProductRepository extends JpaRepository<RecentlyV
      */
     @Query("SELECT r FROM RecentlyViewedProduct r WHERE r.userId = :userId ORDER BY r.lastViewedAt ASC LIMIT 1")
     Optional<RecentlyViewedProduct> findOldestByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Number of users that viewed each product
+     */
+    @Query("SELECT r.productId AS productId, COUNT(r) AS views FROM RecentlyViewedProduct r GROUP BY r.productId")
+    List<ProductViewCount> countViewsByProduct();
+
+    interface ProductViewCount {
+        Long getProductId();
+        long getViews();
+    }
+}
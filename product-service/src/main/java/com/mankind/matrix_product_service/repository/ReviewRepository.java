@@ -2,9 +2,12 @@ package com.mankind.matrix_product_service.repository;
 
 import com.mankind.matrix_product_service.model.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,7 +15,19 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByProductId(Long productId);
     List<Review> findByUserId(Long userId);
     List<Review> findByProductIdAndUserId(Long productId, Long userId);
-    List<Review> findTop100ByProductIdOrderByCreatedAtDesc(Long productId);
     Page<Review> findByProductId(Long productId, Pageable pageable);
     Page<Review> findByUserId(Long userId, Pageable pageable);
+
+    /**
+     * Number of reviews per product and star rating
+     */
+    @Query("SELECT r.product.id AS productId, r.rating AS rating, COUNT(r) AS reviews FROM Review r " +
+           "WHERE r.product.id IN :productIds GROUP BY r.product.id, r.rating")
+    List<RatingBucket> countRatingsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    interface RatingBucket {
+        Long getProductId();
+        Integer getRating();
+        long getReviews();
+    }
 } 
\ No newline at end of file
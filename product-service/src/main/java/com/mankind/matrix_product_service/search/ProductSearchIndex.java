@@ -0,0 +1,375 @@
+package com.mankind.matrix_product_service.search;
+
+import com.mankind.matrix_product_service.model.Product;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over active products, ranked with BM25.
+ * Every product gets a dense ordinal; postings map a term to the boosted term
+ * frequency per ordinal. Updates replace a product's postings in place and keep
+ * its ordinal, slots of removed products are handed to the next new product, so
+ * the ordinal range stays as large as the most products ever indexed at once.
+ * Facets (brand, category and every specification key) keep one bitset of ordinals
+ * per value, so filtering and facet counting are bitset intersections. Facet names and
+ * values match case-insensitively; counts show a value as it was first indexed.
+ * Reads and writes are guarded by a read/write lock, searches never block each other.
+ */
+@Component
+public class ProductSearchIndex {
+    public static final String BRAND_FACET = "brand";
+    public static final String CATEGORY_FACET = "category";
+    public static final String SPECIFICATION_FACET_PREFIX = "spec.";
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Boosts applied to term frequencies per field (BM25F style)
+    private static final float NAME_BOOST = 3f;
+    private static final float BRAND_BOOST = 2f;
+    private static final float MODEL_BOOST = 2f;
+    private static final float SPECIFICATION_BOOST = 1f;
+    private static final float DESCRIPTION_BOOST = 1f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalsByProductId = new HashMap<>();
+    private final List<IndexedProduct> documents = new ArrayList<>();
+    private final Map<String, Map<Integer, Float>> postings = new HashMap<>();
+    private final Map<String, Map<String, FacetValue>> facets = new HashMap<>();
+    private final BitSet liveDocuments = new BitSet();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private double totalLength;
+
+    /**
+     * Add the product to the index or replace its previous version
+     */
+    public void index(Product product) {
+        IndexedProduct document = analyze(product);
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByProductId.get(product.getId());
+            if (ordinal == null) {
+                ordinal = freeOrdinals.poll();
+                if (ordinal == null) {
+                    ordinal = documents.size();
+                    documents.add(null);
+                }
+                ordinalsByProductId.put(product.getId(), ordinal);
+            } else {
+                unlink(ordinal);
+            }
+            documents.set(ordinal, document);
+            for (Map.Entry<String, Float> term : document.termFrequencies.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), key -> new HashMap<>()).put(ordinal, term.getValue());
+            }
+            for (Map.Entry<String, String> facet : document.facetValues.entrySet()) {
+                facets.computeIfAbsent(facet.getKey(), key -> new HashMap<>())
+                        .computeIfAbsent(normalize(facet.getValue()), value -> new FacetValue(facet.getValue()))
+                        .ordinals.set(ordinal);
+            }
+            liveDocuments.set(ordinal);
+            totalLength += document.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByProductId.remove(productId);
+            if (ordinal != null) {
+                unlink(ordinal);
+                documents.set(ordinal, null);
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsByProductId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ordinals in use or free for reuse; never more than the most products indexed at once
+     */
+    int slots() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rank all products matching at least one query term and every filter.
+     * Products matching more (and rarer) terms score higher; ties are broken by product id.
+     * A blank query matches every product, which then only differ by their filters.
+     * Filters map a facet name to accepted values: values of one facet are OR-ed, facets are AND-ed.
+     * Each facet is counted against the result narrowed by all other facets' filters, so
+     * picking a brand still shows how many products the other brands would give.
+     */
+    public SearchResult search(String query, Map<String, Set<String>> filters, long offset, int limit,
+                               int maxFacetValues) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        lock.readLock().lock();
+        try {
+            int documentCount = ordinalsByProductId.size();
+            if (documentCount == 0) {
+                return new SearchResult(0, List.of(), Map.of());
+            }
+            // A blank query does not rank, so every hit scores zero
+            float[] scores = null;
+            BitSet matches;
+            if (terms.isEmpty()) {
+                matches = (BitSet) liveDocuments.clone();
+            } else {
+                scores = new float[documents.size()];
+                matches = new BitSet(documents.size());
+                double averageLength = totalLength / documentCount;
+                for (String term : terms) {
+                    Map<Integer, Float> termPostings = postings.get(term);
+                    if (termPostings == null) {
+                        continue;
+                    }
+                    int documentFrequency = termPostings.size();
+                    double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                    for (Map.Entry<Integer, Float> posting : termPostings.entrySet()) {
+                        int ordinal = posting.getKey();
+                        float frequency = posting.getValue();
+                        double norm = K1 * (1 - B + B * documents.get(ordinal).length / averageLength);
+                        scores[ordinal] += (float) (idf * frequency * (K1 + 1) / (frequency + norm));
+                        matches.set(ordinal);
+                    }
+                }
+            }
+
+            Map<String, BitSet> filterMasks = new HashMap<>();
+            filters.forEach((facet, values) -> filterMasks.merge(normalize(facet), union(facet, values), (a, b) -> {
+                a.or(b);
+                return a;
+            }));
+            BitSet result = (BitSet) matches.clone();
+            filterMasks.values().forEach(result::and);
+
+            List<Hit> hits = new ArrayList<>(result.cardinality());
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                hits.add(new Hit(documents.get(ordinal), scores != null ? scores[ordinal] : 0f));
+            }
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed()
+                    .thenComparing(hit -> hit.getProduct().getProductId()));
+            int from = (int) Math.min(offset, hits.size());
+            int to = from + Math.min(limit, hits.size() - from);
+
+            Map<String, List<FacetCount>> facetCounts = new HashMap<>();
+            for (Map.Entry<String, Map<String, FacetValue>> facet : facets.entrySet()) {
+                BitSet base = result;
+                if (filterMasks.containsKey(facet.getKey())) {
+                    base = (BitSet) matches.clone();
+                    for (Map.Entry<String, BitSet> mask : filterMasks.entrySet()) {
+                        if (!mask.getKey().equals(facet.getKey())) {
+                            base.and(mask.getValue());
+                        }
+                    }
+                }
+                List<FacetCount> counts = count(base, facet.getValue(), maxFacetValues);
+                if (!counts.isEmpty()) {
+                    facetCounts.put(facet.getKey(), counts);
+                }
+            }
+            return new SearchResult(hits.size(), List.copyOf(hits.subList(from, to)), facetCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet union(String facet, Set<String> values) {
+        BitSet mask = new BitSet();
+        Map<String, FacetValue> facetValues = facets.getOrDefault(normalize(facet), Map.of());
+        for (String value : values) {
+            FacetValue facetValue = value != null ? facetValues.get(normalize(value)) : null;
+            if (facetValue != null) {
+                mask.or(facetValue.ordinals);
+            }
+        }
+        return mask;
+    }
+
+    private static List<FacetCount> count(BitSet base, Map<String, FacetValue> facetValues, int maxValues) {
+        List<FacetCount> counts = new ArrayList<>();
+        if (base.isEmpty()) {
+            return counts;
+        }
+        BitSet intersection = new BitSet();
+        for (FacetValue value : facetValues.values()) {
+            intersection.clear();
+            intersection.or(base);
+            intersection.and(value.ordinals);
+            int count = intersection.cardinality();
+            if (count > 0) {
+                counts.add(new FacetCount(value.label, count));
+            }
+        }
+        counts.sort(Comparator.comparingInt(FacetCount::getCount).reversed().thenComparing(FacetCount::getValue));
+        return counts.size() > maxValues ? List.copyOf(counts.subList(0, maxValues)) : counts;
+    }
+
+    /**
+     * Lower-case the text and split it on anything that is not a letter or digit
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void unlink(int ordinal) {
+        IndexedProduct previous = documents.get(ordinal);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.termFrequencies.keySet()) {
+            Map<Integer, Float> termPostings = postings.get(term);
+            termPostings.remove(ordinal);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        for (Map.Entry<String, String> facet : previous.facetValues.entrySet()) {
+            Map<String, FacetValue> facetValues = facets.get(facet.getKey());
+            String value = normalize(facet.getValue());
+            BitSet ordinals = facetValues.get(value).ordinals;
+            ordinals.clear(ordinal);
+            if (ordinals.isEmpty()) {
+                facetValues.remove(value);
+                if (facetValues.isEmpty()) {
+                    facets.remove(facet.getKey());
+                }
+            }
+        }
+        liveDocuments.clear(ordinal);
+        totalLength -= previous.length;
+    }
+
+    private static IndexedProduct analyze(Product product) {
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = 0;
+        length += addField(frequencies, product.getName(), NAME_BOOST);
+        length += addField(frequencies, product.getBrand(), BRAND_BOOST);
+        length += addField(frequencies, product.getModel(), MODEL_BOOST);
+        if (product.getSpecifications() != null) {
+            for (String value : product.getSpecifications().values()) {
+                length += addField(frequencies, value, SPECIFICATION_BOOST);
+            }
+        }
+        length += addField(frequencies, product.getDescription(), DESCRIPTION_BOOST);
+
+        Map<String, String> facetValues = new HashMap<>();
+        if (product.getBrand() != null && !product.getBrand().isBlank()) {
+            facetValues.put(BRAND_FACET, product.getBrand().trim());
+        }
+        if (product.getCategoryId() != null) {
+            facetValues.put(CATEGORY_FACET, product.getCategoryId().toString());
+        }
+        if (product.getSpecifications() != null) {
+            product.getSpecifications().forEach((key, value) -> {
+                if (key != null && value != null && !value.isBlank()) {
+                    facetValues.put(SPECIFICATION_FACET_PREFIX + normalize(key), value.trim());
+                }
+            });
+        }
+        return new IndexedProduct(product.getId(), product.getName(), product.getBrand(), product.getModel(),
+                product.getCategoryId(), frequencies, length, facetValues);
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static float addField(Map<String, Float> frequencies, String text, float boost) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, boost, Float::sum);
+        }
+        return tokens.size() * boost;
+    }
+
+    /**
+     * Stored fields of an indexed product, enough to render a hit without a database round trip
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class IndexedProduct {
+        private final Long productId;
+        private final String name;
+        private final String brand;
+        private final String model;
+        private final Long categoryId;
+        private final Map<String, Float> termFrequencies;
+        private final float length;
+        private final Map<String, String> facetValues;
+    }
+
+    /**
+     * Products having one facet value, and the value's spelling shown in counts
+     */
+    @RequiredArgsConstructor
+    private static class FacetValue {
+        private final String label;
+        private final BitSet ordinals = new BitSet();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Hit {
+        private final IndexedProduct product;
+        private final float score;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class FacetCount {
+        private final String value;
+        private final int count;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class SearchResult {
+        private final int totalHits;
+        private final List<Hit> hits;
+        private final Map<String, List<FacetCount>> facets;
+    }
+}
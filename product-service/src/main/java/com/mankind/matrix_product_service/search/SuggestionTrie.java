@@ -0,0 +1,152 @@
+package com.mankind.matrix_product_service.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix trie for typeahead. Every node stores the top-k suggestions of its
+ * subtree ordered by weight, so a lookup is a walk down the prefix and a copy of that list.
+ * Phrases are indexed from the start and from every following word, so "pro" also
+ * completes "iPhone 13 Pro". Children are kept as sorted char arrays and found by binary search.
+ */
+public final class SuggestionTrie {
+    public static final SuggestionTrie EMPTY = build(List.of(), 1);
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Prefixes longer than this are matched against the first MAX_KEY_LENGTH characters only
+    private static final int MAX_KEY_LENGTH = 40;
+
+    private final Node root;
+    private final int size;
+
+    private SuggestionTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<Suggestion> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            key = key.substring(0, MAX_KEY_LENGTH);
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        return List.of(Arrays.copyOf(node.top, Math.min(limit, node.top.length)));
+    }
+
+    /**
+     * Build a trie keeping the topK heaviest suggestions per node
+     */
+    public static SuggestionTrie build(Collection<Suggestion> suggestions, int topK) {
+        BuilderNode root = new BuilderNode();
+        for (Suggestion suggestion : suggestions) {
+            String phrase = normalize(suggestion.getText());
+            int start = 0;
+            while (start < phrase.length()) {
+                insert(root, phrase.substring(start, Math.min(phrase.length(), start + MAX_KEY_LENGTH)), suggestion, topK);
+                int nextWord = phrase.indexOf(' ', start);
+                start = nextWord < 0 ? phrase.length() : nextWord + 1;
+            }
+        }
+        return new SuggestionTrie(root.freeze(), suggestions.size());
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return NON_ALPHANUMERIC.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static void insert(BuilderNode root, String key, Suggestion suggestion, int topK) {
+        BuilderNode node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new BuilderNode());
+            node.offer(suggestion, topK);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Suggestion {
+        private final String text;
+        private final String type;
+        private final Long id;
+        private final long weight;
+    }
+
+    private static final class Node {
+        private final char[] labels;
+        private final Node[] children;
+        private final Suggestion[] top;
+
+        private Node(char[] labels, Node[] children, Suggestion[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.top = top;
+        }
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class BuilderNode {
+        private final Map<Character, BuilderNode> children = new TreeMap<>();
+        private final List<Suggestion> top = new ArrayList<>();
+
+        private void offer(Suggestion suggestion, int topK) {
+            // The same phrase reaches a node twice when a word repeats, e.g. "pro max pro"
+            for (Suggestion existing : top) {
+                if (existing == suggestion) {
+                    return;
+                }
+            }
+            int position = top.size();
+            while (position > 0 && top.get(position - 1).getWeight() < suggestion.getWeight()) {
+                position--;
+            }
+            if (position < topK) {
+                top.add(position, suggestion);
+                if (top.size() > topK) {
+                    top.remove(topK);
+                }
+            }
+        }
+
+        private Node freeze() {
+            char[] labels = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, BuilderNode> child : children.entrySet()) {
+                labels[i] = child.getKey();
+                frozen[i] = child.getValue().freeze();
+                i++;
+            }
+            return new Node(labels, frozen, top.toArray(new Suggestion[0]));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.matrix_product_service.config.CacheConfig;
+import com.mankind.matrix_product_service.model.CartReservation;
+import com.mankind.matrix_product_service.model.InventoryLog;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.repository.CartReservationRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Gives the stock of abandoned carts back. Expired reservations are released in bounded
+ * batches, one transaction each: the batch is locked, the inventories are credited with one
+ * bulk UPDATE (sharded ones through their shards), CART_REMOVE logs are inserted as one JDBC batch and the rows are set to 0.
+ * Rows at 0 are deleted once they expire again after the released retention.
+ */
+@Service
+@Slf4j
+public class CartReservationExpiryService {
+    private final CartReservationRepository cartReservationRepository;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryLogRepository inventoryLogRepository;
+    private final InventoryStockShardService stockShardService;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final Counter releasedReservations;
+    private final DistributionSummary reclaimedUnits;
+
+    @Value("${app.inventory.cart-reservation.sweep-batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.inventory.cart-reservation.sweep-max-batches:50}")
+    private int maxBatchesPerRun;
+
+    // How long a released reservation is remembered; a cart idle for longer is trusted like an untracked one
+    @Value("${app.inventory.cart-reservation.released-retention:7d}")
+    private Duration releasedRetention;
+
+    public CartReservationExpiryService(CartReservationRepository cartReservationRepository,
+                                        InventoryRepository inventoryRepository,
+                                        InventoryLogRepository inventoryLogRepository,
+                                        InventoryStockShardService stockShardService,
+                                        TransactionTemplate transactionTemplate,
+                                        CacheManager cacheManager,
+                                        MeterRegistry meterRegistry) {
+        this.cartReservationRepository = cartReservationRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryLogRepository = inventoryLogRepository;
+        this.stockShardService = stockShardService;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.releasedReservations = Counter.builder("inventory.cart.reservations.expired")
+                .description("Expired cart reservations released")
+                .register(meterRegistry);
+        this.reclaimedUnits = DistributionSummary.builder("inventory.cart.reservations.reclaimed.units")
+                .description("Units given back to available stock per sweeper run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.cart-reservation.sweep-interval-ms:60000}")
+    public void releaseExpiredReservations() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        int reservations = 0;
+        BigDecimal units = BigDecimal.ZERO;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<CartReservation> expired = transactionTemplate.execute(status -> releaseBatch(now));
+            if (expired == null || expired.isEmpty()) {
+                break;
+            }
+            for (CartReservation reservation : expired) {
+                if (isHeld(reservation)) {
+                    reservations++;
+                    units = units.add(reservation.getQuantity());
+                }
+            }
+            if (expired.size() < batchSize) {
+                break;
+            }
+        }
+        if (reservations > 0) {
+            releasedReservations.increment(reservations);
+            reclaimedUnits.record(units.doubleValue());
+            log.info("Released {} expired cart reservations ({} units) in {} ms",
+                    reservations, units, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Release the held rows of one batch of expired reservations and delete the released rows whose
+     * retention ran out. Returns every expired row of the batch.
+     */
+    private List<CartReservation> releaseBatch(LocalDateTime now) {
+        List<CartReservation> expired = cartReservationRepository.findExpiredForUpdate(now, PageRequest.of(0, batchSize));
+        List<CartReservation> held = expired.stream().filter(CartReservationExpiryService::isHeld).toList();
+        List<Long> forgotten = expired.stream().filter(reservation -> !isHeld(reservation)).map(CartReservation::getId).toList();
+        if (!forgotten.isEmpty()) {
+            cartReservationRepository.deleteAllByIdInBatch(forgotten);
+        }
+        if (held.isEmpty()) {
+            return expired;
+        }
+        List<Long> reservationIds = held.stream().map(CartReservation::getId).toList();
+        // Sharded inventories may hold the reserved stock on any of their shards
+        Set<Long> sharded = stockShardService.shardedAmong(held.stream().map(CartReservation::getProductId).distinct().toList());
+        Map<Long, BigDecimal> shardedQuantities = held.stream()
+                .filter(reservation -> sharded.contains(reservation.getProductId()))
+                .collect(Collectors.toMap(CartReservation::getProductId, CartReservation::getQuantity, BigDecimal::add));
+        List<CartReservation> onRows = held.stream()
+                .filter(reservation -> !sharded.contains(reservation.getProductId()))
+                .toList();
+        // Reading the id of the lazy inventory does not initialize it
+        List<Long> inventoryIds = onRows.stream().map(reservation -> reservation.getInventory().getId()).distinct().toList();
+        List<InventoryLog> logs = held.stream()
+                .map(reservation -> InventoryLog.builder()
+                    .inventory(reservation.getInventory())
+                    .actionType(InventoryActionType.CART_REMOVE)
+                    .quantity(reservation.getQuantity())
+                    .description("Expired cart reservation released")
+                    .createdBy("SYSTEM")
+                    .userId(reservation.getUserId())
+                    .cartId(reservation.getCartId())
+                    .build())
+                .toList();
+
+        stockShardService.releaseReserved(shardedQuantities);
+        if (!onRows.isEmpty()) {
+            inventoryRepository.releaseCartReservations(onRows.stream().map(CartReservation::getId).toList(), inventoryIds, now);
+        }
+        inventoryLogRepository.insertAllInBatch(logs);
+        // Kept at 0 so the cart's next change knows it holds nothing, rather than taking the cart's word for it
+        cartReservationRepository.markReleased(reservationIds, now.plus(releasedRetention), now);
+
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (cache != null) {
+            held.stream().map(CartReservation::getProductId).distinct().forEach(cache::evict);
+        }
+        return expired;
+    }
+
+    private static boolean isHeld(CartReservation reservation) {
+        return reservation.getQuantity().compareTo(BigDecimal.ZERO) > 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.matrix_product_service.model.CartReservation;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.repository.CartReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tracks which cart holds how much of each inventory's reserved quantity. Callers lock the
+ * cart's reservation rows before touching the inventory rows, the same order the expiry
+ * sweeper uses, so the two never deadlock and never release the same stock twice.
+ * A row at quantity 0 records that the cart holds nothing, e.g. after the sweeper released it.
+ * A cart with no row at all was filled before reservations were tracked (or has been idle for
+ * longer than rows are kept), so for it the caller's own count is taken.
+ */
+@Service
+@RequiredArgsConstructor
+public class CartReservationService {
+    private final CartReservationRepository cartReservationRepository;
+
+    @Value("${app.inventory.cart-reservation.ttl:30m}")
+    private Duration ttl;
+
+    /**
+     * Quantity of the product the cart holds, locking its reservation row until commit;
+     * untracked (the caller's count, null for none) if the cart has no row for the product
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BigDecimal lockReservedQuantity(Long cartId, Long productId, BigDecimal untracked) {
+        return cartReservationRepository.findByCartIdAndProductIdForUpdate(cartId, productId)
+                .map(CartReservation::getQuantity)
+                .orElse(untracked != null ? untracked : BigDecimal.ZERO);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockReservations(Long cartId, Collection<Long> productIds) {
+        cartReservationRepository.findByCartIdAndProductIdInForUpdate(cartId, productIds);
+    }
+
+    /**
+     * All reservations of the cart, locked in product id order until commit
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<CartReservation> lockCart(Long cartId) {
+        return cartReservationRepository.findByCartIdForUpdate(cartId);
+    }
+
+    /**
+     * The cart dropped a line the sweeper had already released, so checkout no longer has to reject it
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void acknowledgeRelease(Long cartId, Long productId) {
+        cartReservationRepository.clearReleased(cartId, productId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteAll(Collection<Long> reservationIds) {
+        cartReservationRepository.deleteAllByIdInBatch(reservationIds);
+    }
+
+    /**
+     * Record a change of the cart's reserved quantity and push the expiry forward. held is what
+     * lockReservedQuantity returned; it becomes the starting point of a cart that had no row.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjust(Inventory inventory, Long productId, Long userId, Long cartId, BigDecimal held, BigDecimal delta) {
+        LocalDateTime now = LocalDateTime.now();
+        cartReservationRepository.insertOrAdjust(inventory.getId(), productId, cartId, userId,
+                held.add(delta).max(BigDecimal.ZERO), delta, now.plus(ttl), now);
+    }
+}
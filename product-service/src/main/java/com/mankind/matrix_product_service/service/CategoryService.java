@@ -3,12 +3,16 @@ package com.mankind.matrix_product_service.service;
 
 import com.mankind.api.product.dto.category.CategoryDTO;
 import com.mankind.api.product.dto.category.CategoryResponseDTO;
+import com.mankind.matrix_product_service.config.CacheConfig;
+import com.mankind.matrix_product_service.event.CategoryChangedEvent;
 import com.mankind.matrix_product_service.exception.DuplicateResourceException;
 import com.mankind.matrix_product_service.exception.ResourceNotFoundException;
 import com.mankind.matrix_product_service.model.Category;
 import com.mankind.matrix_product_service.repository.CategoryRepository;
 import com.mankind.matrix_product_service.mapper.CategoryMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +25,9 @@ public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final RoleVerificationService roleVerificationService;
+    private final CategoryTreeService categoryTreeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchDocumentService productSearchDocumentService;
 
     public CategoryResponseDTO createCategory(CategoryDTO categoryDTO) {
         // Verify admin role for category creation
@@ -47,25 +54,31 @@ public class CategoryService {
         try {
             Category category = categoryMapper.toEntity(categoryDTO);
             category.setParent(parentCategory);
-            return categoryMapper.toResponseDTO(categoryRepository.save(category));
+            Category savedCategory = categoryRepository.save(category);
+            eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
+            return categoryMapper.toResponseDTO(savedCategory);
         } catch (Exception e) {
             throw new RuntimeException("Failed to create category: " + e.getMessage(), e);
         }
     }
 
+    // Reads are served from the cached category tree instead of walking subcategories lazily
     @Transactional(readOnly = true)
     public List<CategoryResponseDTO> getAllCategories() {
-        List<Category> rootCategories = categoryRepository.findByParentIdIsNull();
-        return categoryMapper.toResponseDTOList(rootCategories);
+        return categoryTreeService.getTree().rootsAsDTOs();
     }
 
     @Transactional(readOnly = true)
     public CategoryResponseDTO getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
-        return categoryMapper.toResponseDTO(category);
+        CategoryResponseDTO category = categoryTreeService.getTree().toDTO(id);
+        if (category == null) {
+            throw new ResourceNotFoundException("Category", "id", id);
+        }
+        return category;
     }
 
+    // Cached products embed their category, so a rename or move must not be served from the cache
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, allEntries = true)
     public CategoryResponseDTO updateCategory(Long id, CategoryDTO categoryDTO) {
         // Verify admin role for category updates
         roleVerificationService.verifyAdminOrSuperAdminRole();
@@ -78,6 +91,12 @@ public class CategoryService {
                     .orElseThrow(() -> new ResourceNotFoundException("Category", "id", categoryDTO.getParentId()));
         }
 
+        // Moving a category below itself or one of its descendants would create a cycle
+        if (categoryDTO.getParentId() != null
+                && categoryTreeService.getTree().descendantIds(id).contains(categoryDTO.getParentId())) {
+            throw new IllegalArgumentException("Category cannot be moved under itself or one of its subcategories");
+        }
+
         if (!existingCategory.getName().equals(categoryDTO.getName())) {
             if (categoryDTO.getParentId() == null) {
                 if (categoryRepository.existsByNameAndParentIdIsNull(categoryDTO.getName())) {
@@ -98,9 +117,13 @@ public class CategoryService {
             existingCategory.setParent(null);
         }
 
-        return categoryMapper.toResponseDTO(categoryRepository.save(existingCategory));
+        Category savedCategory = categoryRepository.save(existingCategory);
+        productSearchDocumentService.refreshCategoryPaths(id);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+        return categoryMapper.toResponseDTO(savedCategory);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, allEntries = true)
     public void deleteCategory(Long id) {
         // Verify admin role for category deletion
         roleVerificationService.verifyAdminOrSuperAdminRole();
@@ -113,5 +136,6 @@ public class CategoryService {
         }
 
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.category.CategoryResponseDTO;
+import com.mankind.matrix_product_service.model.Category;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the whole category hierarchy, built from one flat load of the
+ * category table. For every category it precomputes the path of ancestor ids from the
+ * root and the set of descendant ids (itself included), so subtree product queries and
+ * breadcrumb rendering need no recursive lookups.
+ */
+@Slf4j
+public final class CategoryTree {
+    private final Map<Long, Node> nodes;
+    private final List<Node> roots;
+
+    private CategoryTree(Map<Long, Node> nodes, List<Node> roots) {
+        this.nodes = nodes;
+        this.roots = roots;
+    }
+
+    public static CategoryTree build(Collection<Category> categories) {
+        Map<Long, Node> nodes = new HashMap<>();
+        for (Category category : categories) {
+            // Reading the id of the lazy parent does not initialize it
+            Long parentId = category.getParent() != null ? category.getParent().getId() : null;
+            nodes.put(category.getId(), new Node(category.getId(), category.getName(), category.getDescription(),
+                    parentId, category.getCreatedAt(), category.getUpdatedAt()));
+        }
+
+        List<Node> roots = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            Node parent = node.parentId != null ? nodes.get(node.parentId) : null;
+            if (parent == null) {
+                roots.add(node);
+            } else {
+                parent.children.add(node);
+            }
+        }
+        Comparator<Node> byId = Comparator.comparing(node -> node.id);
+        roots.sort(byId);
+        nodes.values().forEach(node -> node.children.sort(byId));
+
+        Set<Long> visited = new HashSet<>();
+        for (Node root : roots) {
+            link(root, List.of(), visited);
+        }
+        if (visited.size() < nodes.size()) {
+            // Categories whose parent chain loops back on itself are not reachable from a root
+            log.warn("Category hierarchy contains a cycle, {} categories are unreachable from the roots",
+                    nodes.size() - visited.size());
+        }
+        return new CategoryTree(nodes, List.copyOf(roots));
+    }
+
+    private static Set<Long> link(Node node, List<Long> ancestors, Set<Long> visited) {
+        visited.add(node.id);
+        node.ancestorIds = ancestors;
+        List<Long> path = new ArrayList<>(ancestors);
+        path.add(node.id);
+        List<Long> childPath = List.copyOf(path);
+
+        Set<Long> descendants = new LinkedHashSet<>();
+        descendants.add(node.id);
+        for (Node child : node.children) {
+            if (!visited.contains(child.id)) {
+                descendants.addAll(link(child, childPath, visited));
+            }
+        }
+        node.descendantIds = Collections.unmodifiableSet(descendants);
+        return descendants;
+    }
+
+    public boolean contains(Long categoryId) {
+        return nodes.containsKey(categoryId);
+    }
+
+    /**
+     * Ids of the category and all categories below it, or just the id itself if unknown
+     */
+    public Set<Long> descendantIds(Long categoryId) {
+        Node node = nodes.get(categoryId);
+        return node != null && node.descendantIds != null ? node.descendantIds : Set.of(categoryId);
+    }
+
+    /**
+     * Ids of the ancestors from the root down to the direct parent
+     */
+    public List<Long> ancestorIds(Long categoryId) {
+        Node node = nodes.get(categoryId);
+        return node != null && node.ancestorIds != null ? node.ancestorIds : List.of();
+    }
+
+    /**
+     * Names from the root down to the category itself, e.g. [Electronics, Phones]
+     */
+    public List<String> path(Long categoryId) {
+        Node node = nodes.get(categoryId);
+        if (node == null) {
+            return List.of();
+        }
+        List<String> path = new ArrayList<>();
+        for (Long ancestorId : ancestorIds(categoryId)) {
+            path.add(nodes.get(ancestorId).name);
+        }
+        path.add(node.name);
+        return path;
+    }
+
+    public List<CategoryResponseDTO> rootsAsDTOs() {
+        return roots.stream().map(CategoryTree::toDTO).toList();
+    }
+
+    public CategoryResponseDTO toDTO(Long categoryId) {
+        Node node = nodes.get(categoryId);
+        return node != null ? toDTO(node) : null;
+    }
+
+    // Fresh DTOs on every call, the snapshot itself never leaves this class
+    private static CategoryResponseDTO toDTO(Node node) {
+        CategoryResponseDTO dto = new CategoryResponseDTO();
+        dto.setId(node.id);
+        dto.setName(node.name);
+        dto.setDescription(node.description);
+        dto.setParentId(node.parentId);
+        dto.setCreatedAt(node.createdAt);
+        dto.setUpdatedAt(node.updatedAt);
+        dto.setSubcategories(node.children.stream().map(CategoryTree::toDTO).toList());
+        return dto;
+    }
+
+    private static final class Node {
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final Long parentId;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+        private final List<Node> children = new ArrayList<>();
+        private List<Long> ancestorIds;
+        private Set<Long> descendantIds;
+
+        private Node(Long id, String name, String description, Long parentId,
+                     LocalDateTime createdAt, LocalDateTime updatedAt) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.parentId = parentId;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.matrix_product_service.event.CategoryChangedEvent;
+import com.mankind.matrix_product_service.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current CategoryTree snapshot. The tree is built lazily on first use and
+ * dropped after every committed category change, the next reader rebuilds it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeService {
+    private final CategoryRepository categoryRepository;
+
+    private final AtomicReference<CategoryTree> tree = new AtomicReference<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public CategoryTree getTree() {
+        CategoryTree current = tree.get();
+        if (current != null) {
+            return current;
+        }
+        long buildVersion = version.get();
+        CategoryTree built = CategoryTree.build(categoryRepository.findAll());
+        // Only publish if no change was committed while loading, otherwise the snapshot may be stale
+        if (version.get() == buildVersion && tree.compareAndSet(null, built) && version.get() != buildVersion) {
+            tree.compareAndSet(built, null);
+        }
+        return built;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        version.incrementAndGet();
+        tree.set(null);
+        log.debug("Category tree invalidated after change to category {}", event.getCategoryId());
+    }
+}
@@ -0,0 +1,353 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.InventoryAuditReportDTO;
+import com.mankind.api.product.dto.inventory.InventoryDriftDTO;
+import com.mankind.matrix_product_service.config.CacheConfig;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventorySnapshot;
+import com.mankind.matrix_product_service.model.InventoryStockShard;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.InventorySnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Replays the inventory logs of every inventory and compares the result with the stored
+ * available and reserved quantities (row plus stock shards). Each inventory starts from its
+ * snapshot and streams only the logs after it, so memory stays bounded however long the
+ * history is. Inventories are audited in parallel on a fork-join pool, one transaction each.
+ * <p>
+ * REPORT only reports drift. REBUILD overwrites drifted counters with the replayed ones.
+ * BASELINE trusts the stored counters and restarts the snapshots from them, e.g. after
+ * deploying the audit on history whose CART_UPDATE logs were not signed yet.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryAuditService {
+    private static final int TASK_SIZE = 16;
+
+    public enum Mode {
+        REPORT,
+        REBUILD,
+        BASELINE
+    }
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryLogRepository inventoryLogRepository;
+    private final InventorySnapshotRepository snapshotRepository;
+    private final InventoryStockShardService stockShardService;
+    private final RoleVerificationService roleVerificationService;
+    private final PlatformTransactionManager transactionManager;
+    private final CacheManager cacheManager;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Each worker holds a connection, keep this below the connection pool size
+    @Value("${app.inventory.audit.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.inventory.audit.page-size:1000}")
+    private int pageSize;
+
+    @Value("${app.inventory.audit.max-reported-drifts:100}")
+    private int maxReportedDrifts;
+
+    // Only logs older than this are folded into a snapshot, younger ids may still be committing
+    @Value("${app.inventory.audit.settle-time:5m}")
+    private Duration settleTime;
+
+    public InventoryAuditReportDTO audit(String mode) {
+        roleVerificationService.verifyAdminOrSuperAdminRole();
+        return run(parseMode(mode));
+    }
+
+    @Scheduled(cron = "${app.inventory.audit.cron:0 0 4 * * *}")
+    public void scheduledAudit() {
+        InventoryAuditReportDTO report = run(Mode.REPORT);
+        if (report.getDriftedInventories() > 0) {
+            log.warn("Inventory audit found {} of {} inventories drifted from their logs: {}",
+                    report.getDriftedInventories(), report.getAuditedInventories(), report.getDrifts());
+        }
+    }
+
+    private Mode parseMode(String mode) {
+        try {
+            return Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid audit mode: " + mode + ", expected REPORT, REBUILD or BASELINE");
+        }
+    }
+
+    private InventoryAuditReportDTO run(Mode mode) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Inventory audit is already running");
+        }
+        long start = System.currentTimeMillis();
+        Audit audit = new Audit(mode, LocalDateTime.now().minus(settleTime), transactionTemplate(mode));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Inventory ids are paged so only one page of ids is held at a time
+            long lastId = 0L;
+            List<Long> inventoryIds;
+            do {
+                inventoryIds = inventoryRepository.findIdsAfter(lastId, PageRequest.of(0, pageSize));
+                if (inventoryIds.isEmpty()) {
+                    break;
+                }
+                pool.invoke(new AuditTask(audit, inventoryIds));
+                lastId = inventoryIds.get(inventoryIds.size() - 1);
+            } while (inventoryIds.size() == pageSize);
+
+            long durationMs = System.currentTimeMillis() - start;
+            log.info("Audited {} inventories ({} logs replayed, {} drifted) in {} mode in {} ms",
+                    audit.inventories.get(), audit.logs.get(), audit.drifted.get(), mode, durationMs);
+            return InventoryAuditReportDTO.builder()
+                    .mode(mode.name())
+                    .auditedInventories(audit.inventories.get())
+                    .replayedLogs(audit.logs.get())
+                    .driftedInventories(audit.drifted.get())
+                    .drifts(audit.reportedDrifts())
+                    .durationMs(durationMs)
+                    .build();
+        } finally {
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+
+    /*
+     * REPORT locks the snapshot first and then reads inventory and logs without locks, so under
+     * REPEATABLE READ the stored quantities and the log tail come from the same consistent view.
+     * The other modes lock shards and row first, which keeps writers out of the inventory, and
+     * need READ COMMITTED so their plain reads see what committed before those locks.
+     */
+    private TransactionTemplate transactionTemplate(Mode mode) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setIsolationLevel(mode == Mode.REPORT
+                ? TransactionDefinition.ISOLATION_REPEATABLE_READ
+                : TransactionDefinition.ISOLATION_READ_COMMITTED);
+        return template;
+    }
+
+    private void auditInventory(Audit audit, Long inventoryId) {
+        Long productId;
+        Inventory inventory;
+        List<InventoryStockShard> shards = List.of();
+        InventorySnapshot snapshot;
+        if (audit.mode == Mode.REPORT) {
+            snapshot = lockSnapshot(inventoryId);
+            productId = inventoryRepository.findProductIdById(inventoryId).orElse(null);
+            inventory = productId != null ? inventoryRepository.findByProductId(productId).orElse(null) : null;
+        } else {
+            productId = inventoryRepository.findProductIdById(inventoryId).orElse(null);
+            if (productId == null) {
+                return;
+            }
+            shards = stockShardService.lockShards(productId);
+            inventory = inventoryRepository.findByProductIdInForUpdate(List.of(productId)).stream().findFirst().orElse(null);
+            snapshot = lockSnapshot(inventoryId);
+        }
+        if (inventory == null) {
+            // Deleted since its id was listed
+            return;
+        }
+        stockShardService.loadShardTotals(List.of(inventory));
+
+        Replay replay = new Replay(snapshot, audit.settledBefore);
+        try (Stream<InventoryLogRepository.ReplayEntry> logs =
+                     inventoryLogRepository.streamForReplay(inventoryId, snapshot.getLastLogId())) {
+            logs.forEach(replay::apply);
+        }
+        audit.inventories.incrementAndGet();
+        audit.logs.addAndGet(replay.entries);
+
+        BigDecimal storedAvailable = inventory.getTotalAvailableQuantity();
+        BigDecimal storedReserved = inventory.getTotalReservedQuantity();
+        boolean drifted = storedAvailable.compareTo(replay.available) != 0
+                || storedReserved.compareTo(replay.reserved) != 0;
+        if (drifted) {
+            audit.report(InventoryDriftDTO.builder()
+                    .productId(productId)
+                    .storedAvailableQuantity(storedAvailable)
+                    .replayedAvailableQuantity(replay.available)
+                    .storedReservedQuantity(storedReserved)
+                    .replayedReservedQuantity(replay.reserved)
+                    .rebuilt(audit.mode == Mode.REBUILD)
+                    .build());
+        }
+
+        switch (audit.mode) {
+            case REPORT -> {
+                // A drifted snapshot stays where it is so a later REBUILD still replays the drift
+                if (!drifted) {
+                    replay.advanceSettled(snapshot);
+                }
+            }
+            case REBUILD -> {
+                if (drifted) {
+                    stockShardService.collect(inventory, shards);
+                    inventory.setAvailableQuantity(replay.available);
+                    inventory.setReservedQuantity(replay.reserved);
+                    inventory.setUpdatedAt(LocalDateTime.now());
+                    stockShardService.distribute(inventory, shards);
+                    evictCachedProduct(productId);
+                    log.warn("Rebuilt stock of product {} from its logs: available {} -> {}, reserved {} -> {}",
+                            productId, storedAvailable, replay.available, storedReserved, replay.reserved);
+                }
+                // Writers are locked out, so every log of this inventory is in the replay
+                replay.advanceAll(snapshot);
+            }
+            case BASELINE -> {
+                snapshot.setAvailableQuantity(storedAvailable);
+                snapshot.setReservedQuantity(storedReserved);
+                snapshot.setLastLogId(replay.lastLogId);
+            }
+        }
+        snapshot.setUpdatedAt(LocalDateTime.now());
+        snapshotRepository.save(snapshot);
+    }
+
+    private InventorySnapshot lockSnapshot(Long inventoryId) {
+        return snapshotRepository.findByInventoryIdInForUpdate(List.of(inventoryId)).stream().findFirst()
+                .orElseGet(() -> new InventorySnapshot(inventoryId));
+    }
+
+    private void evictCachedProduct(Long productId) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (cache != null) {
+            cache.evict(productId);
+        }
+    }
+
+    /**
+     * Running state of one inventory's replay: the totals over all replayed logs, and the totals
+     * over the leading logs created before the settle cutoff, which a snapshot can absorb
+     */
+    private static final class Replay {
+        private final LocalDateTime settledBefore;
+        private BigDecimal available;
+        private BigDecimal reserved;
+        private long lastLogId;
+        private BigDecimal settledAvailable;
+        private BigDecimal settledReserved;
+        private long settledLastLogId;
+        private boolean settled = true;
+        private long entries;
+
+        private Replay(InventorySnapshot snapshot, LocalDateTime settledBefore) {
+            this.settledBefore = settledBefore;
+            available = settledAvailable = snapshot.getAvailableQuantity();
+            reserved = settledReserved = snapshot.getReservedQuantity();
+            lastLogId = settledLastLogId = snapshot.getLastLogId();
+        }
+
+        private void apply(InventoryLogRepository.ReplayEntry entry) {
+            available = available.add(entry.getActionType().availableDelta(entry.getQuantity()));
+            reserved = reserved.add(entry.getActionType().reservedDelta(entry.getQuantity()));
+            lastLogId = entry.getId();
+            entries++;
+            // Logs arrive in id order, the settled prefix ends at the first log that is too young
+            settled = settled && entry.getCreatedAt().isBefore(settledBefore);
+            if (settled) {
+                settledAvailable = available;
+                settledReserved = reserved;
+                settledLastLogId = lastLogId;
+            }
+        }
+
+        private void advanceSettled(InventorySnapshot snapshot) {
+            snapshot.setAvailableQuantity(settledAvailable);
+            snapshot.setReservedQuantity(settledReserved);
+            snapshot.setLastLogId(settledLastLogId);
+        }
+
+        private void advanceAll(InventorySnapshot snapshot) {
+            snapshot.setAvailableQuantity(available);
+            snapshot.setReservedQuantity(reserved);
+            snapshot.setLastLogId(lastLogId);
+        }
+    }
+
+    private final class Audit {
+        private final Mode mode;
+        private final LocalDateTime settledBefore;
+        private final TransactionTemplate transactionTemplate;
+        private final AtomicLong inventories = new AtomicLong();
+        private final AtomicLong logs = new AtomicLong();
+        private final AtomicLong drifted = new AtomicLong();
+        private final List<InventoryDriftDTO> drifts = new ArrayList<>();
+
+        private Audit(Mode mode, LocalDateTime settledBefore, TransactionTemplate transactionTemplate) {
+            this.mode = mode;
+            this.settledBefore = settledBefore;
+            this.transactionTemplate = transactionTemplate;
+        }
+
+        private void report(InventoryDriftDTO drift) {
+            drifted.incrementAndGet();
+            synchronized (drifts) {
+                if (drifts.size() < maxReportedDrifts) {
+                    drifts.add(drift);
+                }
+            }
+        }
+
+        private List<InventoryDriftDTO> reportedDrifts() {
+            synchronized (drifts) {
+                return List.copyOf(drifts);
+            }
+        }
+    }
+
+    /**
+     * Splits a page of inventory ids in halves until a task is small enough to audit its
+     * inventories one after another
+     */
+    private final class AuditTask extends RecursiveAction {
+        private final Audit audit;
+        private final List<Long> inventoryIds;
+
+        private AuditTask(Audit audit, List<Long> inventoryIds) {
+            this.audit = audit;
+            this.inventoryIds = inventoryIds;
+        }
+
+        @Override
+        protected void compute() {
+            if (inventoryIds.size() <= TASK_SIZE) {
+                for (Long inventoryId : inventoryIds) {
+                    audit.transactionTemplate.executeWithoutResult(status -> auditInventory(audit, inventoryId));
+                }
+                return;
+            }
+            int middle = inventoryIds.size() / 2;
+            invokeAll(new AuditTask(audit, inventoryIds.subList(0, middle)),
+                    new AuditTask(audit, inventoryIds.subList(middle, inventoryIds.size())));
+        }
+    }
+}
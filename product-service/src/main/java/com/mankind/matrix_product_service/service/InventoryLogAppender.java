@@ -0,0 +1,89 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.matrix_product_service.model.InventoryLog;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Buffers inventory logs per transaction and writes them with JDBC batch inserts, either when
+ * the buffer reaches the flush size or just before the transaction commits. The logs are
+ * written on the transaction's own connection, so they commit or roll back with the stock
+ * change that produced them. Buffers never span transactions, a suspended
+ * transaction's buffer included, so there is no time-based flush.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryLogAppender {
+    private final InventoryLogRepository inventoryLogRepository;
+
+    @Value("${app.inventory.log-appender.flush-size:100}")
+    private int flushSize;
+
+    public void append(InventoryLog log) {
+        buffer().add(log);
+        flushIfFull();
+    }
+
+    public void appendAll(Collection<InventoryLog> logs) {
+        buffer().addAll(logs);
+        flushIfFull();
+    }
+
+    private void flushIfFull() {
+        List<InventoryLog> buffer = buffer();
+        if (buffer.size() >= flushSize) {
+            writeBatch(buffer);
+        }
+    }
+
+    private void writeBatch(List<InventoryLog> buffer) {
+        if (!buffer.isEmpty()) {
+            inventoryLogRepository.insertAllInBatch(List.copyOf(buffer));
+            buffer.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<InventoryLog> buffer() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Inventory logs can only be appended inside a transaction");
+        }
+        List<InventoryLog> buffer = (List<InventoryLog>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            List<InventoryLog> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // A REQUIRES_NEW transaction suspends this one and must start its own buffer
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(InventoryLogAppender.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(InventoryLogAppender.this, created);
+                }
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    writeBatch(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InventoryLogAppender.this);
+                }
+            });
+            buffer = created;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,256 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.InventoryLogDailySummaryDTO;
+import com.mankind.matrix_product_service.exception.ResourceNotFoundException;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryLog;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.model.InventoryLogDailyAggregate;
+import com.mankind.matrix_product_service.model.InventoryLogRollupState;
+import com.mankind.matrix_product_service.model.InventorySnapshot;
+import com.mankind.matrix_product_service.repository.InventoryLogDailyAggregateRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRollupStateRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.InventorySnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Folds inventory logs older than the retention age into daily per-inventory, per-action
+ * aggregates so reports over old periods read a few rows per day instead of every log.
+ * <p>
+ * By default compacted logs are deleted in the same transaction that folds them, in bounded
+ * chunks. When inventory_logs is range-partitioned by month (scripts/inventory_logs_partitioning.sql)
+ * set delete-raw to false: whole days are then rolled up and old rows go with partition drops.
+ * Deleted logs are folded into the inventory snapshots so the stock audit can still replay them.
+ * Every chunk or day locks the single rollup state row first, so instances never fold concurrently.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryLogRollupService {
+    private final InventoryLogRepository inventoryLogRepository;
+    private final InventoryLogDailyAggregateRepository aggregateRepository;
+    private final InventoryRepository inventoryRepository;
+    private final InventorySnapshotRepository snapshotRepository;
+    private final InventoryLogRollupStateRepository stateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleVerificationService roleVerificationService;
+
+    @Value("${app.inventory.logs.retention.days:90}")
+    private int retentionDays;
+
+    @Value("${app.inventory.logs.retention.delete-raw:true}")
+    private boolean deleteRaw;
+
+    @Value("${app.inventory.logs.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.inventory.logs.retention.max-chunks:500}")
+    private int maxChunksPerRun;
+
+    @Value("${app.inventory.logs.summary.max-days:366}")
+    private int maxSummaryDays;
+
+    /**
+     * Daily totals of a product's logs in [from, to], reading the aggregates for compacted
+     * days and the raw logs for the rest
+     */
+    @Transactional(readOnly = true)
+    public List<InventoryLogDailySummaryDTO> getDailySummary(Long productId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || from.plusDays(maxSummaryDays).isBefore(to)) {
+            throw new IllegalArgumentException("Date range must be ordered and span at most " + maxSummaryDays + " days");
+        }
+        Long inventoryId = inventoryRepository.findByProductId(productId)
+                .map(Inventory::getId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
+
+        Map<LocalDate, Map<InventoryActionType, InventoryLogDailySummaryDTO>> days = new TreeMap<>();
+        for (InventoryLogDailyAggregate aggregate : aggregateRepository
+                .findByInventoryIdAndLogDateBetweenOrderByLogDateAscActionTypeAsc(inventoryId, from, to)) {
+            merge(days, aggregate.getLogDate(), aggregate.getActionType(), aggregate.getEntryCount(), aggregate.getTotalQuantity());
+        }
+        // Without deletes the raw logs of rolled up days are still there, only read the days after them
+        LocalDate rawFrom = from;
+        LocalDate lastRolledUp = deleteRaw ? null : stateRepository.findById(InventoryLogRollupState.ID)
+                .map(InventoryLogRollupState::getLastRolledUpDate)
+                .orElse(null);
+        if (lastRolledUp != null && !lastRolledUp.isBefore(rawFrom)) {
+            rawFrom = lastRolledUp.plusDays(1);
+        }
+        if (!rawFrom.isAfter(to)) {
+            for (InventoryLogRepository.DailyTotal total : inventoryLogRepository.sumByDay(
+                    inventoryId, rawFrom.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+                merge(days, total.getLogDate(), total.getActionType(), total.getEntryCount(), total.getTotalQuantity());
+            }
+        }
+        return days.values().stream().flatMap(actions -> actions.values().stream()).toList();
+    }
+
+    private void merge(Map<LocalDate, Map<InventoryActionType, InventoryLogDailySummaryDTO>> days, LocalDate date,
+                       InventoryActionType actionType, long entries, BigDecimal quantity) {
+        days.computeIfAbsent(date, day -> new TreeMap<>())
+                .merge(actionType, new InventoryLogDailySummaryDTO(date, actionType.name(), entries, quantity),
+                        (current, added) -> {
+                            current.setEntryCount(current.getEntryCount() + added.getEntryCount());
+                            current.setTotalQuantity(current.getTotalQuantity().add(added.getTotalQuantity()));
+                            return current;
+                        });
+    }
+
+    public int compactNow() {
+        roleVerificationService.verifyAdminOrSuperAdminRole();
+        return compact();
+    }
+
+    /**
+     * Roll up every log created before the start of the day retention-days ago. Returns the
+     * number of logs (delete mode) or days (partitioned mode) processed.
+     */
+    @Scheduled(cron = "${app.inventory.logs.retention.cron:0 30 3 * * *}")
+    public int compact() {
+        long start = System.currentTimeMillis();
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        int processed = deleteRaw ? compactAndDelete(cutoff.atStartOfDay()) : compactDays(cutoff);
+        if (processed > 0) {
+            log.info("Rolled up {} inventory log {} older than {} in {} ms", processed,
+                    deleteRaw ? "entries" : "days", cutoff, System.currentTimeMillis() - start);
+        }
+        return processed;
+    }
+
+    private int compactAndDelete(LocalDateTime cutoff) {
+        int compacted = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            Integer folded = transactionTemplate.execute(status -> foldAndDeleteChunk(cutoff));
+            if (folded == null || folded == 0) {
+                break;
+            }
+            compacted += folded;
+            if (folded < chunkSize) {
+                break;
+            }
+        }
+        return compacted;
+    }
+
+    // Folding and deleting in one transaction makes every log count exactly once
+    private int foldAndDeleteChunk(LocalDateTime cutoff) {
+        lockState();
+        List<InventoryLog> logs = inventoryLogRepository.findCreatedBeforeForUpdate(cutoff, PageRequest.of(0, chunkSize));
+        if (logs.isEmpty()) {
+            return 0;
+        }
+        // Reading the id of the lazy inventory does not initialize it
+        List<Long> inventoryIds = logs.stream().map(log -> log.getInventory().getId()).distinct().toList();
+        LocalDate firstDay = logs.get(0).getCreatedAt().toLocalDate();
+        LocalDate lastDay = logs.get(logs.size() - 1).getCreatedAt().toLocalDate();
+        Map<DayKey, InventoryLogDailyAggregate> aggregates = aggregateRepository
+                .findByInventoryIdInAndLogDateBetween(inventoryIds, firstDay, lastDay).stream()
+                .collect(Collectors.toMap(DayKey::of, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        for (InventoryLog log : logs) {
+            DayKey key = new DayKey(log.getInventory().getId(), log.getCreatedAt().toLocalDate(), log.getActionType());
+            aggregates.computeIfAbsent(key, DayKey::newAggregate).add(1, log.getQuantity());
+        }
+        aggregates.values().forEach(aggregate -> aggregate.setUpdatedAt(now));
+        aggregateRepository.saveAll(aggregates.values());
+        foldIntoSnapshots(logs, inventoryIds, now);
+        inventoryLogRepository.deleteAllByIdInBatch(logs.stream().map(InventoryLog::getId).toList());
+        return logs.size();
+    }
+
+    // The audit replays snapshot plus log tail, so deleted logs it has not absorbed yet move into the snapshot
+    private void foldIntoSnapshots(List<InventoryLog> logs, List<Long> inventoryIds, LocalDateTime now) {
+        Map<Long, InventorySnapshot> snapshots = snapshotRepository.findByInventoryIdInForUpdate(inventoryIds).stream()
+                .collect(Collectors.toMap(InventorySnapshot::getInventoryId, Function.identity()));
+        for (InventoryLog log : logs) {
+            InventorySnapshot snapshot = snapshots.computeIfAbsent(log.getInventory().getId(), InventorySnapshot::new);
+            if (log.getId() > snapshot.getLastLogId()) {
+                snapshot.apply(log.getActionType(), log.getQuantity());
+            }
+        }
+        snapshots.values().forEach(snapshot -> snapshot.setUpdatedAt(now));
+        snapshotRepository.saveAll(snapshots.values());
+    }
+
+    private int compactDays(LocalDate cutoff) {
+        int days = 0;
+        while (days < maxChunksPerRun && Boolean.TRUE.equals(transactionTemplate.execute(status -> rollUpNextDay(cutoff)))) {
+            days++;
+        }
+        return days;
+    }
+
+    /**
+     * Roll up the first day after the last one rolled up that has logs, skipping empty days in one
+     * step. Returns false when no day before the cutoff is left.
+     */
+    private boolean rollUpNextDay(LocalDate cutoff) {
+        InventoryLogRollupState state = lockState();
+        LocalDate lastRolledUp = state.getLastRolledUpDate();
+        if (lastRolledUp == null) {
+            // Aggregates written before the state row existed
+            lastRolledUp = aggregateRepository.findLastLogDate();
+        }
+        LocalDateTime next = inventoryLogRepository.findFirstCreatedAtFrom(
+                (lastRolledUp != null ? lastRolledUp.plusDays(1) : LocalDate.EPOCH).atStartOfDay());
+        if (next == null || !next.toLocalDate().isBefore(cutoff)) {
+            return false;
+        }
+        rollUpDay(next.toLocalDate());
+        state.setLastRolledUpDate(next.toLocalDate());
+        state.setUpdatedAt(LocalDateTime.now());
+        return true;
+    }
+
+    private InventoryLogRollupState lockState() {
+        stateRepository.insertIfMissing(InventoryLogRollupState.ID, LocalDateTime.now());
+        return stateRepository.findByIdForUpdate(InventoryLogRollupState.ID).orElseThrow();
+    }
+
+    // Overwrites the day's aggregates, so rolling a day up again gives the same rows
+    private void rollUpDay(LocalDate day) {
+        Map<DayKey, InventoryLogDailyAggregate> aggregates = aggregateRepository.findByLogDate(day).stream()
+                .collect(Collectors.toMap(DayKey::of, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryLogRepository.DailyTotal> totals = inventoryLogRepository.sumByDay(
+                null, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        for (InventoryLogRepository.DailyTotal total : totals) {
+            InventoryLogDailyAggregate aggregate = aggregates.computeIfAbsent(
+                    new DayKey(total.getInventoryId(), day, total.getActionType()), DayKey::newAggregate);
+            aggregate.setEntryCount(total.getEntryCount());
+            aggregate.setTotalQuantity(total.getTotalQuantity());
+            aggregate.setUpdatedAt(now);
+        }
+        // Aggregates without logs that day are left as they are (their partition may be gone)
+        aggregateRepository.saveAll(aggregates.values());
+    }
+
+    private record DayKey(Long inventoryId, LocalDate logDate, InventoryActionType actionType) {
+        static DayKey of(InventoryLogDailyAggregate aggregate) {
+            return new DayKey(aggregate.getInventoryId(), aggregate.getLogDate(), aggregate.getActionType());
+        }
+
+        InventoryLogDailyAggregate newAggregate() {
+            return new InventoryLogDailyAggregate(inventoryId, logDate, actionType);
+        }
+    }
+}
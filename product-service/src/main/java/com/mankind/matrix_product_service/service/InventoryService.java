@@ -1,36 +1,95 @@
 package com.mankind.matrix_product_service.service;
 
 
+import com.mankind.api.product.dto.inventory.CartCommitResultDTO;
+import com.mankind.api.product.dto.inventory.CartLineQuantityDTO;
+import com.mankind.api.product.dto.inventory.CartLineReservationDTO;
+import com.mankind.api.product.dto.inventory.CartLinesRequestDTO;
+import com.mankind.api.product.dto.inventory.CartLinesReservationDTO;
+import com.mankind.api.product.dto.inventory.CartReservationLineDTO;
+import com.mankind.api.product.dto.inventory.CartReservationLineResultDTO;
+import com.mankind.api.product.dto.inventory.CartReservationRequestDTO;
+import com.mankind.api.product.dto.inventory.CartReservationResultDTO;
+import com.mankind.api.product.dto.inventory.InventoryAvailabilityDTO;
 import com.mankind.api.product.dto.inventory.InventoryDTO;
+import com.mankind.api.product.dto.inventory.InventoryLogCursorPageDTO;
 import com.mankind.api.product.dto.inventory.InventoryLogDTO;
 import com.mankind.api.product.dto.inventory.InventoryResponseDTO;
+import com.mankind.matrix_product_service.config.CacheConfig;
 import com.mankind.matrix_product_service.exception.ResourceNotFoundException;
 import com.mankind.matrix_product_service.mapper.InventoryLogMapper;
 import com.mankind.matrix_product_service.mapper.InventoryMapper;
+import com.mankind.matrix_product_service.model.CartReservation;
 import com.mankind.matrix_product_service.model.Inventory;
 import com.mankind.matrix_product_service.model.InventoryLog;
 import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.model.InventoryStockShard;
+import com.mankind.matrix_product_service.model.Product;
 import com.mankind.matrix_product_service.repository.InventoryLogRepository;
 import com.mankind.matrix_product_service.repository.InventoryRepository;
 import com.mankind.matrix_product_service.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
+    // Open ends of the log time range filter, both within MySQL's DATETIME range
+    private static final LocalDateTime LOG_TIME_MIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LOG_TIME_MAX = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String LOG_CURSOR_SEPARATOR = "|";
+
     private final InventoryRepository inventoryRepository;
     private final InventoryLogRepository inventoryLogRepository;
+    private final InventoryLogAppender inventoryLogAppender;
     private final ProductRepository productRepository;
     private final InventoryMapper inventoryMapper;
     private final InventoryLogMapper inventoryLogMapper;
     private final RoleVerificationService roleVerificationService;
+    private final ProductSearchDocumentService productSearchDocumentService;
+    private final CartReservationService cartReservationService;
+    private final InventoryStockShardService stockShardService;
+    private final CacheManager cacheManager;
+    private final EntityManager entityManager;
+
+    @Value("${app.inventory.cart-reservation.max-lines:100}")
+    private int maxReservationLines;
+
+    @Value("${app.inventory.availability.max-ids:100}")
+    private int maxAvailabilityIds;
+
+    @Value("${app.inventory.logs.max-page-size:200}")
+    private int maxLogPageSize;
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public InventoryResponseDTO createInventory(Long productId, InventoryDTO inventoryDTO) {
         // Verify admin role for inventory creation
         roleVerificationService.verifyAdminOrSuperAdminRole();
@@ -56,24 +115,71 @@ public class InventoryService {
             .description("Initial stock created")
             .createdBy("SYSTEM")
             .build();
-        inventoryLogRepository.save(log);
+        inventoryLogAppender.append(log);
+        productSearchDocumentService.refresh(productId);
 
-        return inventoryMapper.toResponseDTO(inventory);
+        return toResponseDTO(inventory);
     }
 
+    @Transactional(readOnly = true)
     public InventoryResponseDTO getInventoryByProductId(Long productId) {
         return inventoryRepository.findByProductId(productId)
-                .map(inventoryMapper::toResponseDTO)
+                .map(this::toResponseDTO)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
     }
 
+    /**
+     * Stock and price of several products for listing pages, in request order. Entries younger than
+     * the availability cache TTL are served from memory, the rest come from one query. Products
+     * without inventory are returned as NO_INVENTORY.
+     */
+    public List<InventoryAvailabilityDTO> getAvailability(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one product id is required");
+        }
+        Set<Long> uniqueIds = new LinkedHashSet<>(productIds);
+        uniqueIds.remove(null);
+        if (uniqueIds.size() > maxAvailabilityIds) {
+            throw new IllegalArgumentException("Cannot request availability of more than " + maxAvailabilityIds + " products at once");
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.AVAILABILITY_CACHE);
+        Map<Long, InventoryAvailabilityDTO> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : uniqueIds) {
+            InventoryAvailabilityDTO cached = cache != null ? cache.get(productId, InventoryAvailabilityDTO.class) : null;
+            if (cached != null) {
+                found.put(productId, cached);
+            } else {
+                missing.add(productId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (InventoryRepository.AvailabilityView view : inventoryRepository.findAvailabilityByProductIdIn(missing)) {
+                found.put(view.getProductId(), inventoryMapper.toAvailabilityDTO(view));
+            }
+            for (Long productId : missing) {
+                InventoryAvailabilityDTO availability = found.computeIfAbsent(productId, id ->
+                        InventoryAvailabilityDTO.builder().productId(id).status(inventoryMapper.determineStatus(null)).build());
+                if (cache != null) {
+                    cache.put(productId, availability);
+                }
+            }
+        }
+        return uniqueIds.stream().map(found::get).toList();
+    }
+
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public InventoryResponseDTO updateInventory(Long productId, InventoryDTO inventoryDTO) {
         // Verify admin role for inventory updates
         roleVerificationService.verifyAdminOrSuperAdminRole();
         
+        List<InventoryStockShard> shards = stockShardService.lockShards(productId);
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
+        stockShardService.collect(inventory, shards);
 
         // Log price changes if price is updated
         if (inventoryDTO.getPrice() != null && !inventoryDTO.getPrice().equals(inventory.getPrice())) {
@@ -86,7 +192,7 @@ public class InventoryService {
                     formatPriceDisplay(inventoryDTO.getPrice(), inventoryDTO.getCurrency())))
                 .createdBy("SYSTEM")
                 .build();
-            inventoryLogRepository.save(priceLog);
+            inventoryLogAppender.append(priceLog);
         }
 
         // Log quantity changes if quantity is updated
@@ -102,13 +208,15 @@ public class InventoryService {
                     "Stock adjusted (added)" : "Stock adjusted (removed)")
                 .createdBy("SYSTEM")
                 .build();
-            inventoryLogRepository.save(quantityLog);
+            inventoryLogAppender.append(quantityLog);
         }
 
         inventoryMapper.updateEntity(inventory, inventoryDTO);
+        stockShardService.distribute(inventory, shards);
         inventory = inventoryRepository.save(inventory);
+        productSearchDocumentService.refresh(productId);
 
-        return inventoryMapper.toResponseDTO(inventory);
+        return toResponseDTO(inventory);
     }
 
     private String formatPriceDisplay(BigDecimal price, String currency) {
@@ -119,6 +227,7 @@ public class InventoryService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public void deleteInventory(Long productId) {
         // Verify admin role for inventory deletion
         roleVerificationService.verifyAdminOrSuperAdminRole();
@@ -130,13 +239,17 @@ public class InventoryService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public InventoryResponseDTO addStock(Long productId, BigDecimal quantity) {
         // Verify admin role for adding stock
         roleVerificationService.verifyAdminOrSuperAdminRole();
+        List<InventoryStockShard> shards = stockShardService.lockShards(productId);
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
 
+        stockShardService.collect(inventory, shards);
         inventory.setAvailableQuantity(inventory.getAvailableQuantity().add(quantity));
+        stockShardService.distribute(inventory, shards);
         inventory = inventoryRepository.save(inventory);
 
         // Create inventory log
@@ -145,21 +258,26 @@ public class InventoryService {
         log.setActionType(InventoryActionType.RESTOCK);
         log.setQuantity(quantity);
         log.setDescription("Stock added to inventory");
-        inventoryLogRepository.save(log);
+        inventoryLogAppender.append(log);
+        productSearchDocumentService.refresh(productId);
 
-        return inventoryMapper.toResponseDTO(inventory);
+        return toResponseDTO(inventory);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public InventoryResponseDTO removeStock(Long productId, BigDecimal quantity) {
+        List<InventoryStockShard> shards = stockShardService.lockShards(productId);
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
+        stockShardService.collect(inventory, shards);
 
         if (inventory.getAvailableQuantity().compareTo(quantity) < 0) {
             throw new IllegalStateException("Insufficient stock available");
         }
 
         inventory.setAvailableQuantity(inventory.getAvailableQuantity().subtract(quantity));
+        stockShardService.distribute(inventory, shards);
         inventory = inventoryRepository.save(inventory);
 
         // Create inventory log
@@ -168,23 +286,16 @@ public class InventoryService {
         log.setActionType(InventoryActionType.SALE);
         log.setQuantity(quantity);
         log.setDescription("Stock removed from inventory");
-        inventoryLogRepository.save(log);
+        inventoryLogAppender.append(log);
+        productSearchDocumentService.refresh(productId);
 
-        return inventoryMapper.toResponseDTO(inventory);
+        return toResponseDTO(inventory);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public InventoryResponseDTO reserveStock(Long productId, BigDecimal quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
-
-        if (inventory.getAvailableQuantity().compareTo(quantity) < 0) {
-            throw new IllegalStateException("Insufficient stock available for reservation");
-        }
-
-        inventory.setAvailableQuantity(inventory.getAvailableQuantity().subtract(quantity));
-        inventory.setReservedQuantity(inventory.getReservedQuantity().add(quantity));
-        inventory = inventoryRepository.save(inventory);
+        Inventory inventory = reserve(productId, quantity, "Insufficient stock available for reservation");
 
         // Create inventory log
         InventoryLog log = new InventoryLog();
@@ -192,23 +303,15 @@ public class InventoryService {
         log.setActionType(InventoryActionType.RESERVATION);
         log.setQuantity(quantity);
         log.setDescription("Stock reserved");
-        inventoryLogRepository.save(log);
+        inventoryLogAppender.append(log);
 
-        return inventoryMapper.toResponseDTO(inventory);
+        return toResponseDTO(inventory);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public InventoryResponseDTO unreserveStock(Long productId, BigDecimal quantity) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
-
-        if (inventory.getReservedQuantity().compareTo(quantity) < 0) {
-            throw new IllegalStateException("Insufficient reserved stock");
-        }
-
-        inventory.setAvailableQuantity(inventory.getAvailableQuantity().add(quantity));
-        inventory.setReservedQuantity(inventory.getReservedQuantity().subtract(quantity));
-        inventory = inventoryRepository.save(inventory);
+        Inventory inventory = release(productId, quantity, "Insufficient reserved stock");
 
         // Create inventory log
         InventoryLog log = new InventoryLog();
@@ -216,9 +319,9 @@ public class InventoryService {
         log.setActionType(InventoryActionType.UNRESERVATION);
         log.setQuantity(quantity);
         log.setDescription("Stock reservation removed");
-        inventoryLogRepository.save(log);
+        inventoryLogAppender.append(log);
 
-        return inventoryMapper.toResponseDTO(inventory);
+        return toResponseDTO(inventory);
     }
 
     public List<InventoryLogDTO> getInventoryLogs(Long productId) {
@@ -231,18 +334,106 @@ public class InventoryService {
                 .toList();
     }
 
-    @Transactional
-    public InventoryResponseDTO reserveStockForCart(Long productId, BigDecimal quantity, Long userId, Long cartId) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
+    /**
+     * Newest first keyset page of a product's inventory logs, optionally filtered by action type
+     * and a [from, to) creation time range
+     */
+    @Transactional(readOnly = true)
+    public InventoryLogCursorPageDTO getInventoryLogs(Long productId, String action, LocalDateTime from,
+                                                      LocalDateTime to, String cursor, int size) {
+        if (size < 1 || size > maxLogPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxLogPageSize);
+        }
+        Long inventoryId = findInventoryId(productId);
+        LogPosition after = decodeLogCursor(cursor);
+        Slice<InventoryLog> slice = inventoryLogRepository.findPage(inventoryId, parseAction(action),
+                from != null ? from : LOG_TIME_MIN, to != null ? to : LOG_TIME_MAX,
+                after.createdAt(), after.id(), PageRequest.of(0, size));
+
+        List<InventoryLog> logs = slice.getContent();
+        String nextCursor = slice.hasNext() && !logs.isEmpty()
+                ? encodeLogCursor(logs.get(logs.size() - 1))
+                : null;
+        return InventoryLogCursorPageDTO.builder()
+                .content(logs.stream().map(inventoryLogMapper::toDTO).toList())
+                .size(size)
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Hand every matching log to the consumer, newest first, from one forward-only cursor. Each
+     * entity is detached once mapped, so memory stays constant however many rows match.
+     */
+    @Transactional(readOnly = true)
+    public void streamInventoryLogs(Long productId, String action, LocalDateTime from, LocalDateTime to,
+                                    Consumer<InventoryLogDTO> consumer) {
+        Long inventoryId = findInventoryId(productId);
+        try (Stream<InventoryLog> logs = inventoryLogRepository.streamAll(inventoryId, parseAction(action),
+                from != null ? from : LOG_TIME_MIN, to != null ? to : LOG_TIME_MAX)) {
+            logs.forEach(log -> {
+                consumer.accept(inventoryLogMapper.toDTO(log));
+                entityManager.detach(log);
+            });
+        }
+    }
+
+    /**
+     * Reject a log stream request before any of it is written: once streaming starts the response is
+     * committed, and a missing inventory or unknown action could no longer become a 404 or 400.
+     */
+    @Transactional(readOnly = true)
+    public void checkInventoryLogQuery(Long productId, String action) {
+        findInventoryId(productId);
+        parseAction(action);
+    }
+
+    private Long findInventoryId(Long productId) {
+        return inventoryRepository.findByProductId(productId)
+                .map(Inventory::getId)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
+    }
 
-        if (inventory.getAvailableQuantity().compareTo(quantity) < 0) {
-            throw new IllegalStateException("Insufficient stock available for cart reservation");
+    private InventoryActionType parseAction(String action) {
+        if (action == null || action.isBlank()) {
+            return null;
+        }
+        try {
+            return InventoryActionType.valueOf(action.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid action type: " + action);
         }
+    }
 
-        inventory.setAvailableQuantity(inventory.getAvailableQuantity().subtract(quantity));
-        inventory.setReservedQuantity(inventory.getReservedQuantity().add(quantity));
-        inventory = inventoryRepository.save(inventory);
+    private String encodeLogCursor(InventoryLog last) {
+        String position = last.getCreatedAt() + LOG_CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private LogPosition decodeLogCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new LogPosition(LOG_TIME_MAX, Long.MAX_VALUE);
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf(LOG_CURSOR_SEPARATOR);
+            return new LogPosition(LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private record LogPosition(LocalDateTime createdAt, Long id) {
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
+    public InventoryResponseDTO reserveStockForCart(Long productId, BigDecimal quantity, Long userId, Long cartId) {
+        BigDecimal held = cartReservationService.lockReservedQuantity(cartId, productId, BigDecimal.ZERO);
+        Inventory inventory = reserve(productId, quantity, "Insufficient stock available for cart reservation");
+        cartReservationService.adjust(inventory, productId, userId, cartId, held, quantity);
 
         // Create inventory log for cart reservation
         InventoryLog log = InventoryLog.builder()
@@ -254,77 +445,421 @@ public class InventoryService {
             .userId(userId)
             .cartId(cartId)
             .build();
-        inventoryLogRepository.save(log);
+        inventoryLogAppender.append(log);
 
-        return inventoryMapper.toResponseDTO(inventory);
+        return toResponseDTO(inventory);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public InventoryResponseDTO unreserveStockForCart(Long productId, BigDecimal quantity, Long userId, Long cartId) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
-
-        if (inventory.getReservedQuantity().compareTo(quantity) < 0) {
-            throw new IllegalStateException("Insufficient reserved stock for cart unreservation");
+        validateQuantity(quantity);
+        // Only what the cart still holds is released; an expired part was already given back by the sweeper.
+        // A cart reserved before reservations were tracked releases the quantity it asks for.
+        BigDecimal held = cartReservationService.lockReservedQuantity(cartId, productId, quantity);
+        BigDecimal released = quantity.min(held);
+        if (released.compareTo(BigDecimal.ZERO) == 0) {
+            cartReservationService.acknowledgeRelease(cartId, productId);
+            return getInventoryByProductId(productId);
         }
-
-        inventory.setAvailableQuantity(inventory.getAvailableQuantity().add(quantity));
-        inventory.setReservedQuantity(inventory.getReservedQuantity().subtract(quantity));
-        inventory = inventoryRepository.save(inventory);
+        Inventory inventory = release(productId, released, "Insufficient reserved stock for cart unreservation");
+        cartReservationService.adjust(inventory, productId, userId, cartId, held, released.negate());
 
         // Create inventory log for cart unreservation
         InventoryLog log = InventoryLog.builder()
             .inventory(inventory)
             .actionType(InventoryActionType.CART_REMOVE)
-            .quantity(quantity)
+            .quantity(released)
             .description("Stock reservation removed from cart")
             .createdBy("CART_SERVICE")
             .userId(userId)
             .cartId(cartId)
             .build();
-        inventoryLogRepository.save(log);
+        inventoryLogAppender.append(log);
 
-        return inventoryMapper.toResponseDTO(inventory);
+        return toResponseDTO(inventory);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productId")
     public InventoryResponseDTO updateReservedStockForCart(Long productId, BigDecimal oldQuantity, BigDecimal newQuantity, Long userId, Long cartId) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
-
-        BigDecimal quantityDiff = newQuantity.subtract(oldQuantity);
+        if (newQuantity == null || newQuantity.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        // Move the reservation to the new quantity from what the cart actually holds, so stock the
+        // sweeper released after the reservation expired is reserved again. A cart reserved before
+        // reservations were tracked holds what it says it had.
+        BigDecimal held = cartReservationService.lockReservedQuantity(cartId, productId, oldQuantity);
+        BigDecimal quantityDiff = newQuantity.subtract(held);
 
+        Inventory inventory;
         if (quantityDiff.compareTo(BigDecimal.ZERO) > 0) {
             // Adding more items to cart
-            if (inventory.getAvailableQuantity().compareTo(quantityDiff) < 0) {
-                throw new IllegalStateException("Insufficient stock available for cart update");
-            }
-            inventory.setAvailableQuantity(inventory.getAvailableQuantity().subtract(quantityDiff));
-            inventory.setReservedQuantity(inventory.getReservedQuantity().add(quantityDiff));
+            inventory = reserve(productId, quantityDiff, "Insufficient stock available for cart update");
         } else if (quantityDiff.compareTo(BigDecimal.ZERO) < 0) {
             // Removing items from cart
-            BigDecimal absDiff = quantityDiff.abs();
-            if (inventory.getReservedQuantity().compareTo(absDiff) < 0) {
-                throw new IllegalStateException("Insufficient reserved stock for cart update");
-            }
-            inventory.setAvailableQuantity(inventory.getAvailableQuantity().add(absDiff));
-            inventory.setReservedQuantity(inventory.getReservedQuantity().subtract(absDiff));
+            inventory = release(productId, quantityDiff.abs(), "Insufficient reserved stock for cart update");
+        } else {
+            inventory = inventoryRepository.findByProductId(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
         }
-
-        inventory = inventoryRepository.save(inventory);
+        cartReservationService.adjust(inventory, productId, userId, cartId, held, quantityDiff);
 
         // Create inventory log for cart update
         InventoryLog log = InventoryLog.builder()
             .inventory(inventory)
             .actionType(InventoryActionType.CART_UPDATE)
-            .quantity(quantityDiff.abs())
+            .quantity(quantityDiff)
             .description(String.format("Cart quantity updated from %s to %s", oldQuantity, newQuantity))
             .createdBy("CART_SERVICE")
             .userId(userId)
             .cartId(cartId)
             .build();
-        inventoryLogRepository.save(log);
+        inventoryLogAppender.append(log);
 
+        return toResponseDTO(inventory);
+    }
+
+    /**
+     * Set the quantity a cart holds of one product, validating and reserving in one transaction:
+     * the product must exist and be active, have an inventory and allow the quantity per purchase,
+     * and only the difference to what the cart already holds is reserved or released. A rejected
+     * line changes nothing and reports why, so the cart needs no separate lookups. Lowering the
+     * quantity is never rejected, so carts can always give stock back. The optional current quantity
+     * is what the cart shows now; it is only used for a line without a reservation row, like one
+     * added before rows were recorded, so its stock is not counted as nothing.
+     */
+    @Transactional
+    public CartLineReservationDTO reserveCartLine(Long productId, BigDecimal quantity, BigDecimal currentQuantity,
+                                                  Long userId, Long cartId) {
+        return setCartLine(productId, quantity, currentQuantity, userId, cartId);
+    }
+
+    /**
+     * Set several quantities of a cart in one transaction, all or nothing. The cart's reservation rows
+     * are locked in product id order first, then each line is applied like reserveCartLine. If any line
+     * is rejected the transaction is rolled back, and the per-line results tell the caller which failed.
+     */
+    @Transactional
+    public CartLinesReservationDTO reserveCartLines(CartLinesRequestDTO request, Long userId, Long cartId) {
+        // Sorted by product id, a later line of the same product replaces an earlier one
+        Map<Long, CartLineQuantityDTO> quantities = new TreeMap<>();
+        for (CartLineQuantityDTO line : request.getLines()) {
+            quantities.put(line.getProductId(), line);
+        }
+        if (quantities.size() > maxReservationLines) {
+            throw new IllegalArgumentException("A reservation cannot contain more than " + maxReservationLines + " products");
+        }
+
+        cartReservationService.lockReservations(cartId, quantities.keySet());
+        List<CartLineReservationDTO> lines = new ArrayList<>();
+        boolean reserved = true;
+        for (CartLineQuantityDTO requested : quantities.values()) {
+            CartLineReservationDTO line = setCartLine(requested.getProductId(), requested.getQuantity(),
+                    requested.getCurrentQuantity(), userId, cartId);
+            reserved &= line.isReserved();
+            lines.add(line);
+        }
+        if (!reserved) {
+            // Undo the lines already applied, including their logs and cache evictions
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+        return CartLinesReservationDTO.builder().reserved(reserved).lines(lines).build();
+    }
+
+    private CartLineReservationDTO setCartLine(Long productId, BigDecimal quantity, BigDecimal currentQuantity,
+                                               Long userId, Long cartId) {
+        if (quantity == null || quantity.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        if (currentQuantity != null && currentQuantity.compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException("Current quantity cannot be negative");
+        }
+        BigDecimal held = cartReservationService.lockReservedQuantity(cartId, productId, currentQuantity);
+        BigDecimal quantityDiff = quantity.subtract(held);
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElse(null);
+
+        if (quantityDiff.compareTo(BigDecimal.ZERO) > 0) {
+            Product product = productRepository.findById(productId).orElse(null);
+            if (product == null) {
+                return line(productId, quantity, inventory, CartLineReservationDTO.Outcome.PRODUCT_NOT_FOUND,
+                        "Product not found with id: " + productId);
+            }
+            if (!product.isActive()) {
+                return line(productId, quantity, inventory, CartLineReservationDTO.Outcome.PRODUCT_INACTIVE,
+                        "Product is not active");
+            }
+            if (inventory == null) {
+                return line(productId, quantity, null, CartLineReservationDTO.Outcome.INVENTORY_NOT_FOUND,
+                        "Inventory not found for product: " + productId);
+            }
+            if (inventory.getMaxQuantityPerPurchase() != null && quantity.compareTo(inventory.getMaxQuantityPerPurchase()) > 0) {
+                return line(productId, quantity, inventory, CartLineReservationDTO.Outcome.MAX_QUANTITY_EXCEEDED,
+                        "Quantity " + quantity + " exceeds the maximum allowed per purchase (" + inventory.getMaxQuantityPerPurchase() + ")");
+            }
+            if (!tryReserve(productId, quantityDiff)) {
+                return line(productId, quantity, inventory, CartLineReservationDTO.Outcome.INSUFFICIENT_STOCK,
+                        "Insufficient stock available for cart reservation");
+            }
+        } else if (quantityDiff.compareTo(BigDecimal.ZERO) < 0) {
+            release(productId, quantityDiff.negate(), "Insufficient reserved stock for cart update");
+        } else if (inventory == null) {
+            return line(productId, quantity, null, CartLineReservationDTO.Outcome.INVENTORY_NOT_FOUND,
+                    "Inventory not found for product: " + productId);
+        }
+
+        if (quantityDiff.compareTo(BigDecimal.ZERO) != 0) {
+            // The guarded update cleared the persistence context
+            inventory = inventoryRepository.findByProductId(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
+            cartReservationService.adjust(inventory, productId, userId, cartId, held, quantityDiff);
+            InventoryActionType actionType = held.compareTo(BigDecimal.ZERO) == 0 ? InventoryActionType.CART_ADD
+                    : quantity.compareTo(BigDecimal.ZERO) == 0 ? InventoryActionType.CART_REMOVE
+                    : InventoryActionType.CART_UPDATE;
+            inventoryLogAppender.append(InventoryLog.builder()
+                .inventory(inventory)
+                .actionType(actionType)
+                // CART_UPDATE carries the signed difference, the others the quantity moved
+                .quantity(actionType == InventoryActionType.CART_UPDATE ? quantityDiff : quantityDiff.abs())
+                .description(String.format("Cart quantity set from %s to %s", held, quantity))
+                .createdBy("CART_SERVICE")
+                .userId(userId)
+                .cartId(cartId)
+                .build());
+            evictCachedProduct(productId);
+        } else if (held.compareTo(BigDecimal.ZERO) == 0) {
+            cartReservationService.acknowledgeRelease(cartId, productId);
+        }
+        return line(productId, quantity, inventory, CartLineReservationDTO.Outcome.RESERVED, null);
+    }
+
+    private CartLineReservationDTO line(Long productId, BigDecimal quantity, Inventory inventory,
+                                        CartLineReservationDTO.Outcome outcome, String message) {
+        if (inventory != null) {
+            stockShardService.loadShardTotals(List.of(inventory));
+        }
+        return CartLineReservationDTO.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .reserved(outcome == CartLineReservationDTO.Outcome.RESERVED)
+                .outcome(outcome)
+                .message(message)
+                .price(inventory != null ? inventory.getPrice() : null)
+                .currency(inventory != null ? inventory.getCurrency() : null)
+                .availableQuantity(inventory != null ? inventory.getTotalAvailableQuantity() : null)
+                .maxQuantityPerPurchase(inventory != null ? inventory.getMaxQuantityPerPurchase() : null)
+                .build();
+    }
+
+    /**
+     * Reserve several products for a cart in one transaction, all or nothing. The cart's reservation
+     * rows and then the inventory rows are locked in product id order and every line is checked before
+     * anything is written, so a failing line leaves all stock untouched and the per-line results tell
+     * the caller which lines failed.
+     */
+    @Transactional
+    public CartReservationResultDTO reserveStockForCartBatch(CartReservationRequestDTO request, Long userId, Long cartId) {
+        // Sorted by product id, lines of the same product added up
+        Map<Long, BigDecimal> quantities = new TreeMap<>();
+        for (CartReservationLineDTO line : request.getLines()) {
+            validateQuantity(line.getQuantity());
+            quantities.merge(line.getProductId(), line.getQuantity(), BigDecimal::add);
+        }
+        if (quantities.size() > maxReservationLines) {
+            throw new IllegalArgumentException("A reservation cannot contain more than " + maxReservationLines + " products");
+        }
+
+        cartReservationService.lockReservations(cartId, quantities.keySet());
+        // Shards of hot SKUs are locked before the inventory rows, like every other path does
+        Map<Long, List<InventoryStockShard>> shards = new HashMap<>();
+        for (Long productId : quantities.keySet()) {
+            if (stockShardService.isHot(productId)) {
+                shards.put(productId, stockShardService.lockShards(productId));
+            }
+        }
+        Map<Long, Inventory> inventories = new HashMap<>();
+        for (Inventory inventory : inventoryRepository.findByProductIdInForUpdate(quantities.keySet())) {
+            inventories.put(inventory.getProduct().getId(), inventory);
+        }
+
+        List<CartReservationLineResultDTO> lines = new ArrayList<>();
+        boolean reservable = true;
+        for (Map.Entry<Long, BigDecimal> entry : quantities.entrySet()) {
+            Inventory inventory = inventories.get(entry.getKey());
+            String message = null;
+            if (inventory == null) {
+                message = "Inventory not found for product: " + entry.getKey();
+            } else if (reservable(inventory, shards).compareTo(entry.getValue()) < 0) {
+                message = "Insufficient stock available for cart reservation";
+            }
+            reservable &= message == null;
+            lines.add(CartReservationLineResultDTO.builder()
+                    .productId(entry.getKey())
+                    .quantity(entry.getValue())
+                    .reservable(message == null)
+                    .availableQuantity(inventory != null ? reservable(inventory, shards) : null)
+                    .message(message)
+                    .build());
+        }
+        if (!reservable) {
+            return CartReservationResultDTO.builder().reserved(false).lines(lines).build();
+        }
+
+        List<InventoryLog> logs = new ArrayList<>();
+        for (CartReservationLineResultDTO line : lines) {
+            Inventory inventory = inventories.get(line.getProductId());
+            stockShardService.reserveLocked(inventory, shards.getOrDefault(line.getProductId(), List.of()), line.getQuantity());
+            line.setAvailableQuantity(reservable(inventory, shards));
+            // Added on top of what the cart holds, a cart without a row starts from this line
+            cartReservationService.adjust(inventory, line.getProductId(), userId, cartId, BigDecimal.ZERO, line.getQuantity());
+            logs.add(InventoryLog.builder()
+                .inventory(inventory)
+                .actionType(InventoryActionType.CART_ADD)
+                .quantity(line.getQuantity())
+                .description("Stock reserved for cart")
+                .createdBy("CART_SERVICE")
+                .userId(userId)
+                .cartId(cartId)
+                .build());
+        }
+        inventoryLogAppender.appendAll(logs);
+        quantities.keySet().forEach(this::evictCachedProduct);
+
+        return CartReservationResultDTO.builder().reserved(true).lines(lines).build();
+    }
+
+    /**
+     * Turn everything a cart has reserved into sold stock at checkout, in one transaction: the cart's
+     * reservations are locked, their inventories move reserved to sold with one set-based UPDATE (sharded
+     * ones through their shards), the CHECKOUT_COMMIT logs are written as one batch and the reservations
+     * are deleted. A cart whose reservations expired and were released, or that holds none (e.g. a
+     * retried checkout), commits nothing and gets a 409.
+     */
+    @Transactional
+    public CartCommitResultDTO commitReservations(Long cartId) {
+        List<CartReservation> rows = cartReservationService.lockCart(cartId);
+        List<Long> released = rows.stream()
+                .filter(reservation -> reservation.getReleasedAt() != null)
+                .map(CartReservation::getProductId)
+                .toList();
+        if (!released.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Reservations of cart " + cartId
+                    + " expired and were released for products " + released + "; reserve them again before checkout");
+        }
+        // Rows at 0 only record that the cart holds nothing of the product
+        List<CartReservation> reservations = rows.stream()
+                .filter(reservation -> reservation.getQuantity().compareTo(BigDecimal.ZERO) > 0)
+                .toList();
+        if (reservations.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Cart " + cartId + " holds no reservations to commit");
+        }
+        // Sharded inventories may hold the reserved stock on any of their shards, so they are settled
+        // through the shard service; the other inventories share one UPDATE
+        Set<Long> sharded = stockShardService.shardedAmong(reservations.stream().map(CartReservation::getProductId).toList());
+        Map<Long, BigDecimal> shardedQuantities = reservations.stream()
+                .filter(reservation -> sharded.contains(reservation.getProductId()))
+                .collect(Collectors.toMap(CartReservation::getProductId, CartReservation::getQuantity, BigDecimal::add));
+        List<CartReservation> onRows = reservations.stream()
+                .filter(reservation -> !sharded.contains(reservation.getProductId()))
+                .toList();
+        List<Long> reservationIds = onRows.stream().map(CartReservation::getId).toList();
+        // Reading the id of the lazy inventory does not initialize it
+        List<Long> inventoryIds = onRows.stream().map(reservation -> reservation.getInventory().getId()).distinct().toList();
+        List<InventoryLog> logs = reservations.stream()
+                .map(reservation -> InventoryLog.builder()
+                    .inventory(reservation.getInventory())
+                    .actionType(InventoryActionType.CHECKOUT_COMMIT)
+                    .quantity(reservation.getQuantity())
+                    .description("Cart reservation committed at checkout")
+                    .createdBy("CART_SERVICE")
+                    .userId(reservation.getUserId())
+                    .cartId(cartId)
+                    .build())
+                .toList();
+
+        stockShardService.commitReserved(shardedQuantities);
+        if (!onRows.isEmpty()) {
+            inventoryRepository.commitCartReservations(reservationIds, inventoryIds, LocalDateTime.now());
+        }
+        inventoryLogAppender.appendAll(logs);
+        cartReservationService.deleteAll(rows.stream().map(CartReservation::getId).toList());
+        reservations.stream().map(CartReservation::getProductId).forEach(productId -> {
+            evictCachedProduct(productId);
+            productSearchDocumentService.refresh(productId);
+        });
+
+        return CartCommitResultDTO.builder()
+                .cartId(cartId)
+                .lines(reservations.stream()
+                        .map(reservation -> new CartReservationLineDTO(reservation.getProductId(), reservation.getQuantity()))
+                        .toList())
+                .build();
+    }
+
+    // Shard stock only counts when the shards are locked along with the row
+    private BigDecimal reservable(Inventory inventory, Map<Long, List<InventoryStockShard>> shards) {
+        return shards.getOrDefault(inventory.getProduct().getId(), List.of()).stream()
+                .map(InventoryStockShard::getAvailableQuantity)
+                .reduce(inventory.getAvailableQuantity(), BigDecimal::add);
+    }
+
+    private InventoryResponseDTO toResponseDTO(Inventory inventory) {
+        stockShardService.loadShardTotals(List.of(inventory));
         return inventoryMapper.toResponseDTO(inventory);
     }
-} 
\ No newline at end of file
+
+    private void evictCachedProduct(Long productId) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (cache != null) {
+            cache.evict(productId);
+        }
+    }
+
+    /**
+     * Reserve with a single guarded UPDATE instead of read-modify-write: the row lock is held only
+     * for the statement's own transaction and the availability check cannot be raced. Hot SKUs
+     * update one of their stock shards instead of the inventory row.
+     */
+    private Inventory reserve(Long productId, BigDecimal quantity, String insufficientMessage) {
+        return afterGuardedUpdate(productId, tryReserve(productId, quantity) ? 1 : 0, insufficientMessage);
+    }
+
+    private boolean tryReserve(Long productId, BigDecimal quantity) {
+        validateQuantity(quantity);
+        LocalDateTime now = LocalDateTime.now();
+        boolean reserved = stockShardService.isHot(productId)
+                ? stockShardService.reserve(productId, quantity, now)
+                : inventoryRepository.reserve(productId, quantity, now) == 1;
+        // No single row holds enough; a sharded inventory may still hold it across its rows
+        return reserved || (stockShardService.hasShards(productId) && stockShardService.reserveAcross(productId, quantity));
+    }
+
+    private Inventory release(Long productId, BigDecimal quantity, String insufficientMessage) {
+        validateQuantity(quantity);
+        LocalDateTime now = LocalDateTime.now();
+        boolean released = stockShardService.isHot(productId)
+                ? stockShardService.release(productId, quantity, now)
+                : inventoryRepository.release(productId, quantity, now) == 1;
+        released = released || (stockShardService.hasShards(productId) && stockShardService.releaseAcross(productId, quantity));
+        return afterGuardedUpdate(productId, released ? 1 : 0, insufficientMessage);
+    }
+
+    private Inventory afterGuardedUpdate(Long productId, int updated, String insufficientMessage) {
+        // No row matched: either there is no inventory or the guard rejected the quantity
+        if (updated == 0 && !inventoryRepository.existsByProductId(productId)) {
+            throw new ResourceNotFoundException("Inventory not found for product: " + productId);
+        }
+        if (updated == 0) {
+            throw new IllegalStateException(insufficientMessage);
+        }
+        return inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
+    }
+
+    private void validateQuantity(BigDecimal quantity) {
+        // A negative quantity would turn the guard around
+        if (quantity == null || quantity.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.matrix_product_service.exception.ResourceNotFoundException;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryStockShard;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.InventoryStockShardRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Hot SKU mode: a product's available stock is spread over N shard rows so that concurrent
+ * reservations update different rows. A reservation reads the shards without locking, then
+ * takes the quantity from one shard that has enough with a guarded UPDATE, starting at the
+ * calling thread's shard. Only when no single shard has enough are the shards and the
+ * inventory row locked and the quantity taken from several of them.
+ * <p>
+ * Lock order is shards before the inventory row everywhere. A failed single-shard attempt
+ * keeps its shard locked, so the multi-shard path skips shards other transactions hold
+ * instead of waiting for them; their stock is not counted for that reservation. The split of reserved stock
+ * between the row and the shards carries no meaning, only the totals do: a release may give back
+ * on the row stock that was reserved on a shard. Every counter stays non-negative, so checkout
+ * commits and the expiry sweeper settle sharded inventories here rather than with their bulk
+ * UPDATE of the inventory rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryStockShardService {
+    private final InventoryStockShardRepository shardRepository;
+    private final InventoryRepository inventoryRepository;
+    private final RoleVerificationService roleVerificationService;
+    private final EntityManager entityManager;
+
+    // Routing hint only: every path falls back to the other stock locations, so a stale set costs speed, not correctness
+    private final AtomicReference<Set<Long>> hotProductIds = new AtomicReference<>(Set.of());
+
+    @Value("${app.inventory.hot-sku.max-shards:64}")
+    private int maxShards;
+
+    public boolean isHot(Long productId) {
+        return hotProductIds.get().contains(productId);
+    }
+
+    /**
+     * Whether the product's stock is split over shards, read from the database rather than the routing hint
+     */
+    public boolean hasShards(Long productId) {
+        return shardRepository.existsByProductId(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.hot-sku.refresh-interval-ms:10000}")
+    public void refreshHotProducts() {
+        hotProductIds.set(Set.copyOf(shardRepository.findShardedProductIds()));
+    }
+
+    /**
+     * Split the product's stock over the given number of shards, or fold it back onto the
+     * inventory row with 0
+     */
+    @Transactional
+    public void configure(Long productId, int shardCount) {
+        roleVerificationService.verifyAdminOrSuperAdminRole();
+        if (shardCount < 0 || shardCount > maxShards) {
+            throw new IllegalArgumentException("Shard count must be between 0 and " + maxShards);
+        }
+        List<InventoryStockShard> shards = new ArrayList<>(shardRepository.findByProductIdForUpdate(productId));
+        Inventory inventory = lockInventory(productId);
+        collect(inventory, shards);
+
+        LocalDateTime now = LocalDateTime.now();
+        if (shards.size() > shardCount) {
+            shardRepository.deleteAllInBatch(shards.subList(shardCount, shards.size()));
+            shards = new ArrayList<>(shards.subList(0, shardCount));
+        }
+        for (int shardNo = shards.size(); shardNo < shardCount; shardNo++) {
+            shards.add(shardRepository.save(InventoryStockShard.builder()
+                    .inventory(inventory)
+                    .productId(productId)
+                    .shardNo(shardNo)
+                    .availableQuantity(BigDecimal.ZERO)
+                    .reservedQuantity(BigDecimal.ZERO)
+                    .updatedAt(now)
+                    .build()));
+        }
+        distribute(inventory, shards);
+        inventory.setSharded(shardCount > 0);
+
+        Set<Long> hot = new HashSet<>(hotProductIds.get());
+        if (shardCount > 0) {
+            hot.add(productId);
+        } else {
+            hot.remove(productId);
+        }
+        hotProductIds.set(Set.copyOf(hot));
+        log.info("Inventory of product {} now uses {} stock shards", productId, shardCount);
+    }
+
+    /**
+     * Reserve the whole quantity on one shard that has it available; false if none has
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserve(Long productId, BigDecimal quantity, LocalDateTime now) {
+        return updateOneShard(productId, InventoryStockShard::getAvailableQuantity, quantity,
+                id -> shardRepository.reserve(id, quantity, now));
+    }
+
+    /**
+     * Release the whole quantity on one shard that has it reserved; false if none has
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean release(Long productId, BigDecimal quantity, LocalDateTime now) {
+        return updateOneShard(productId, InventoryStockShard::getReservedQuantity, quantity,
+                id -> shardRepository.release(id, quantity, now));
+    }
+
+    private boolean updateOneShard(Long productId, Function<InventoryStockShard, BigDecimal> held,
+                                   BigDecimal quantity, Function<Long, Integer> guardedUpdate) {
+        // Consistent read, no locks: only shards that looked like they have enough are tried
+        List<InventoryStockShard> shards = shardRepository.findByProductId(productId);
+        // Detached so a later locking read in this transaction loads current quantities, not these
+        shards.forEach(entityManager::detach);
+        // Striped by thread like LongAdder: with at least as many shards as busy threads, concurrent callers rarely collide
+        int start = shards.isEmpty() ? 0 : (int) (Thread.currentThread().getId() % shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            InventoryStockShard shard = shards.get((start + i) % shards.size());
+            if (held.apply(shard).compareTo(quantity) >= 0 && guardedUpdate.apply(shard.getId()) == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reserve a quantity that no single stock location holds by locking the free shards and the
+     * inventory row and taking from each in turn; false if they do not hold enough together
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserveAcross(Long productId, BigDecimal quantity) {
+        List<InventoryStockShard> shards = shardRepository.findUnlockedByProductIdForUpdate(productId);
+        Inventory inventory = lockInventory(productId);
+        if (inventory.getAvailableQuantity().add(sum(shards, InventoryStockShard::getAvailableQuantity))
+                .compareTo(quantity) < 0) {
+            return false;
+        }
+        take(inventory, shards, quantity, true);
+        entityManager.flush();
+        return true;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean releaseAcross(Long productId, BigDecimal quantity) {
+        List<InventoryStockShard> shards = shardRepository.findUnlockedByProductIdForUpdate(productId);
+        Inventory inventory = lockInventory(productId);
+        if (inventory.getReservedQuantity().add(sum(shards, InventoryStockShard::getReservedQuantity))
+                .compareTo(quantity) < 0) {
+            return false;
+        }
+        take(inventory, shards, quantity, false);
+        entityManager.flush();
+        return true;
+    }
+
+    /**
+     * Add the shard stock to inventories that are about to be shown, with one query for the sharded
+     * ones whose totals are not known yet; the others report their row quantities
+     */
+    public void loadShardTotals(Collection<Inventory> inventories) {
+        Map<Long, Inventory> sharded = new HashMap<>();
+        for (Inventory inventory : inventories) {
+            if (inventory != null && inventory.isSharded() && inventory.getShardAvailableQuantity() == null) {
+                inventory.setShardAvailableQuantity(BigDecimal.ZERO);
+                inventory.setShardReservedQuantity(BigDecimal.ZERO);
+                sharded.put(inventory.getId(), inventory);
+            }
+        }
+        if (sharded.isEmpty()) {
+            return;
+        }
+        for (InventoryStockShardRepository.ShardTotalsView totals : shardRepository.sumByInventoryIdIn(sharded.keySet())) {
+            Inventory inventory = sharded.get(totals.getInventoryId());
+            inventory.setShardAvailableQuantity(totals.getAvailableQuantity());
+            inventory.setShardReservedQuantity(totals.getReservedQuantity());
+        }
+    }
+
+    /**
+     * The products among the given ones whose stock is split over shards
+     */
+    public Set<Long> shardedAmong(Collection<Long> productIds) {
+        return productIds.isEmpty() ? Set.of() : shardRepository.findShardedProductIdsIn(productIds);
+    }
+
+    /**
+     * Give reserved stock of sharded inventories back to available, quantities by product id. The
+     * shards and then the rows are locked in product id order and each quantity is taken from
+     * wherever it is reserved.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseReserved(Map<Long, BigDecimal> quantities) {
+        settle(quantities, false);
+    }
+
+    /**
+     * Turn reserved stock of sharded inventories into sold stock, quantities by product id, locking
+     * like releaseReserved
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void commitReserved(Map<Long, BigDecimal> quantities) {
+        settle(quantities, true);
+    }
+
+    private void settle(Map<Long, BigDecimal> quantities, boolean sell) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<Long, List<InventoryStockShard>> shards = new TreeMap<>();
+        for (Long productId : new TreeSet<>(quantities.keySet())) {
+            shards.put(productId, shardRepository.findByProductIdForUpdate(productId));
+        }
+        for (Inventory inventory : inventoryRepository.findByProductIdInForUpdate(shards.keySet())) {
+            Long productId = inventory.getProduct().getId();
+            List<InventoryStockShard> locked = shards.get(productId);
+            BigDecimal quantity = quantities.get(productId);
+            BigDecimal reserved = inventory.getReservedQuantity().add(sum(locked, InventoryStockShard::getReservedQuantity));
+            if (reserved.compareTo(quantity) < 0) {
+                log.warn("Inventory of product {} holds {} reserved, less than the {} to settle; settling what it holds",
+                        productId, reserved, quantity);
+            }
+            if (sell) {
+                sell(inventory, locked, quantity);
+            } else {
+                take(inventory, locked, quantity, false);
+            }
+        }
+        entityManager.flush();
+    }
+
+    /**
+     * Lock the shards of products whose inventories the caller is about to lock, keeping the
+     * shards-before-row order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<InventoryStockShard> lockShards(Long productId) {
+        return shardRepository.findByProductIdForUpdate(productId);
+    }
+
+    /**
+     * Reserve on an inventory whose row and shards the caller has already locked, from the row first
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserveLocked(Inventory inventory, List<InventoryStockShard> shards, BigDecimal quantity) {
+        take(inventory, shards, quantity, true);
+    }
+
+    /**
+     * Fold all shard stock onto the locked inventory row before its quantities are changed directly
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void collect(Inventory inventory, List<InventoryStockShard> shards) {
+        for (InventoryStockShard shard : shards) {
+            inventory.setAvailableQuantity(inventory.getAvailableQuantity().add(shard.getAvailableQuantity()));
+            inventory.setReservedQuantity(inventory.getReservedQuantity().add(shard.getReservedQuantity()));
+            shard.setAvailableQuantity(BigDecimal.ZERO);
+            shard.setReservedQuantity(BigDecimal.ZERO);
+        }
+        inventory.setShardAvailableQuantity(BigDecimal.ZERO);
+        inventory.setShardReservedQuantity(BigDecimal.ZERO);
+    }
+
+    /**
+     * Spread the row's available stock evenly over the shards; reserved stock stays on the row
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void distribute(Inventory inventory, List<InventoryStockShard> shards) {
+        if (shards.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal available = inventory.getAvailableQuantity();
+        BigDecimal count = BigDecimal.valueOf(shards.size());
+        BigDecimal share = available.divideToIntegralValue(count);
+        BigDecimal rest = available.subtract(share.multiply(count));
+        for (InventoryStockShard shard : shards) {
+            BigDecimal extra = rest.min(BigDecimal.ONE);
+            rest = rest.subtract(extra);
+            shard.setAvailableQuantity(shard.getAvailableQuantity().add(share).add(extra));
+            shard.setUpdatedAt(now);
+        }
+        inventory.setAvailableQuantity(BigDecimal.ZERO);
+        inventory.setShardAvailableQuantity(sum(shards, InventoryStockShard::getAvailableQuantity));
+        inventory.setShardReservedQuantity(sum(shards, InventoryStockShard::getReservedQuantity));
+    }
+
+    // Moves the quantity between available and reserved, taking from the row first and then from the shards in order
+    private void take(Inventory inventory, List<InventoryStockShard> shards, BigDecimal quantity, boolean reserve) {
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal fromRow = (reserve ? inventory.getAvailableQuantity() : inventory.getReservedQuantity())
+                .max(BigDecimal.ZERO).min(quantity);
+        move(inventory, fromRow, reserve);
+        BigDecimal left = quantity.subtract(fromRow);
+        for (InventoryStockShard shard : shards) {
+            if (left.signum() == 0) {
+                break;
+            }
+            BigDecimal fromShard = (reserve ? shard.getAvailableQuantity() : shard.getReservedQuantity())
+                    .max(BigDecimal.ZERO).min(left);
+            BigDecimal signed = reserve ? fromShard : fromShard.negate();
+            shard.setAvailableQuantity(shard.getAvailableQuantity().subtract(signed));
+            shard.setReservedQuantity(shard.getReservedQuantity().add(signed));
+            shard.setUpdatedAt(now);
+            left = left.subtract(fromShard);
+        }
+        inventory.setShardAvailableQuantity(sum(shards, InventoryStockShard::getAvailableQuantity));
+        inventory.setShardReservedQuantity(sum(shards, InventoryStockShard::getReservedQuantity));
+        inventory.setUpdatedAt(now);
+    }
+
+    // Removes reserved stock from the row first and then from the shards in order, and counts it as sold on the row
+    private void sell(Inventory inventory, List<InventoryStockShard> shards, BigDecimal quantity) {
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal fromRow = inventory.getReservedQuantity().max(BigDecimal.ZERO).min(quantity);
+        inventory.setReservedQuantity(inventory.getReservedQuantity().subtract(fromRow));
+        BigDecimal left = quantity.subtract(fromRow);
+        for (InventoryStockShard shard : shards) {
+            if (left.signum() == 0) {
+                break;
+            }
+            BigDecimal fromShard = shard.getReservedQuantity().max(BigDecimal.ZERO).min(left);
+            shard.setReservedQuantity(shard.getReservedQuantity().subtract(fromShard));
+            shard.setUpdatedAt(now);
+            left = left.subtract(fromShard);
+        }
+        inventory.setSoldQuantity(inventory.getSoldQuantity().add(quantity.subtract(left)));
+        inventory.setShardAvailableQuantity(sum(shards, InventoryStockShard::getAvailableQuantity));
+        inventory.setShardReservedQuantity(sum(shards, InventoryStockShard::getReservedQuantity));
+        inventory.setUpdatedAt(now);
+    }
+
+    private void move(Inventory inventory, BigDecimal quantity, boolean reserve) {
+        BigDecimal signed = reserve ? quantity : quantity.negate();
+        inventory.setAvailableQuantity(inventory.getAvailableQuantity().subtract(signed));
+        inventory.setReservedQuantity(inventory.getReservedQuantity().add(signed));
+    }
+
+    private Inventory lockInventory(Long productId) {
+        return inventoryRepository.findByProductIdInForUpdate(List.of(productId)).stream().findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for product: " + productId));
+    }
+
+    private static BigDecimal sum(List<InventoryStockShard> shards, Function<InventoryStockShard, BigDecimal> quantity) {
+        return shards.stream().map(quantity).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
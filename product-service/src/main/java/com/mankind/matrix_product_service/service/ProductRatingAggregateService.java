@@ -0,0 +1,193 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.review.ReviewSummaryDTO;
+import com.mankind.matrix_product_service.model.ProductRatingAggregate;
+import com.mankind.matrix_product_service.repository.ProductRatingAggregateRepository;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import com.mankind.matrix_product_service.repository.ProductSearchDocumentRepository;
+import com.mankind.matrix_product_service.repository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps product_rating_aggregates in step with the reviews table. Review writes apply a
+ * delta with one atomic UPDATE and then copy the new average to the product and its
+ * listing document with set-based updates, so no review rows are re-read.
+ * Rebuilds lock the aggregate rows before counting reviews, so deltas applied meanwhile
+ * wait for the rebuild instead of being overwritten by it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductRatingAggregateService {
+    private final ProductRatingAggregateRepository aggregateRepository;
+    private final ReviewRepository reviewRepository;
+    private final ProductRepository productRepository;
+    private final ProductSearchDocumentRepository documentRepository;
+    private final RoleVerificationService roleVerificationService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Value("${app.reviews.aggregates.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    // Each worker holds a connection, keep this at or below the connection pool size
+    @Value("${app.reviews.aggregates.rebuild-parallelism:2}")
+    private int rebuildParallelism;
+
+    @Transactional(readOnly = true)
+    public ReviewSummaryDTO getSummary(Long productId) {
+        ProductRatingAggregate aggregate = aggregateRepository.findById(productId)
+                .orElseGet(() -> new ProductRatingAggregate(productId));
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        histogram.put(1, aggregate.getOneStarCount());
+        histogram.put(2, aggregate.getTwoStarCount());
+        histogram.put(3, aggregate.getThreeStarCount());
+        histogram.put(4, aggregate.getFourStarCount());
+        histogram.put(5, aggregate.getFiveStarCount());
+        return ReviewSummaryDTO.builder()
+                .productId(productId)
+                .reviewCount(aggregate.getReviewCount())
+                .averageRating(aggregate.getAverageRating())
+                .ratingHistogram(histogram)
+                .build();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reviewAdded(Long productId, int rating) {
+        applyDelta(productId, 1, histogramDelta(rating, 1));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reviewRemoved(Long productId, int rating) {
+        applyDelta(productId, -1, histogramDelta(rating, -1));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reviewChanged(Long productId, int oldRating, int newRating) {
+        if (oldRating == newRating) {
+            return;
+        }
+        long[] delta = histogramDelta(oldRating, -1);
+        long[] added = histogramDelta(newRating, 1);
+        for (int i = 0; i < delta.length; i++) {
+            delta[i] += added[i];
+        }
+        applyDelta(productId, 0, delta);
+    }
+
+    private void applyDelta(Long productId, long reviews, long[] histogram) {
+        long ratingSum = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            ratingSum += (i + 1) * histogram[i];
+        }
+        List<Long> ids = List.of(productId);
+        LocalDateTime now = LocalDateTime.now();
+        if (aggregateRepository.insertMissing(ids, now) > 0) {
+            // No aggregate yet (product predates aggregates): derive it from the reviews,
+            // which already include the change being applied
+            rebuildBatch(ids);
+            return;
+        }
+        aggregateRepository.applyDelta(productId, reviews, ratingSum,
+                histogram[0], histogram[1], histogram[2], histogram[3], histogram[4], now);
+        productRepository.updateAverageRatingFromAggregates(ids);
+        documentRepository.updateAverageRatingFromAggregates(ids);
+    }
+
+    private static long[] histogramDelta(int rating, long reviews) {
+        if (rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5: " + rating);
+        }
+        long[] histogram = new long[5];
+        histogram[rating - 1] = reviews;
+        return histogram;
+    }
+
+    /**
+     * Recompute every product's aggregate from the reviews table. Products are split into
+     * id batches that are recomputed in parallel, each batch with one GROUP BY query in its
+     * own transaction.
+     */
+    public int rebuildAll() {
+        roleVerificationService.verifyAdminOrSuperAdminRole();
+        return rebuild();
+    }
+
+    /**
+     * Build the aggregates at startup on first deployment. Later, a product that has no
+     * aggregate row gets one from its reviews on its first review change.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (aggregateRepository.count() == 0 && reviewRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    private int rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Rating aggregate rebuild is already running");
+        }
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildParallelism);
+        try {
+            List<Long> productIds = productRepository.findAllIds();
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            for (int from = 0; from < productIds.size(); from += rebuildBatchSize) {
+                List<Long> batch = productIds.subList(from, Math.min(from + rebuildBatchSize, productIds.size()));
+                batches.add(CompletableFuture.runAsync(
+                        () -> transactionTemplate.executeWithoutResult(status -> rebuildBatch(batch)), executor));
+            }
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+            log.info("Rebuilt rating aggregates of {} products in {} batches in {} ms",
+                    productIds.size(), batches.size(), System.currentTimeMillis() - start);
+            return productIds.size();
+        } finally {
+            executor.shutdown();
+            rebuilding.set(false);
+        }
+    }
+
+    private void rebuildBatch(List<Long> productIds) {
+        LocalDateTime now = LocalDateTime.now();
+        aggregateRepository.insertMissing(productIds, now);
+        Map<Long, ProductRatingAggregate> aggregates = new HashMap<>();
+        for (ProductRatingAggregate aggregate : aggregateRepository.findAllByIdForUpdate(productIds)) {
+            aggregate.reset();
+            aggregate.setUpdatedAt(now);
+            aggregates.put(aggregate.getProductId(), aggregate);
+        }
+        // Counted only once the rows are locked: reviews whose delta is still waiting are not committed yet
+        for (ReviewRepository.RatingBucket bucket : reviewRepository.countRatingsByProductIdIn(productIds)) {
+            ProductRatingAggregate aggregate = aggregates.get(bucket.getProductId());
+            if (aggregate != null) {
+                aggregate.add(bucket.getRating(), bucket.getReviews());
+            }
+        }
+        aggregateRepository.saveAll(aggregates.values());
+        productRepository.updateAverageRatingFromAggregates(productIds);
+        documentRepository.updateAverageRatingFromAggregates(productIds);
+    }
+}
@@ -0,0 +1,181 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.product.ProductSummaryDTO;
+import com.mankind.matrix_product_service.event.ProductChangedEvent;
+import com.mankind.matrix_product_service.mapper.ProductMapper;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.Product;
+import com.mankind.matrix_product_service.model.ProductSearchDocument;
+import com.mankind.matrix_product_service.repository.CategoryRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import com.mankind.matrix_product_service.repository.ProductSearchDocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the product_search_document read model. Every write that changes what a
+ * listing shows refreshes the affected rows inside its own transaction, so the read
+ * model commits or rolls back together with the source tables.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchDocumentService {
+    private static final int LOAD_CHUNK_SIZE = 500;
+    private static final String CATEGORY_PATH_SEPARATOR = " > ";
+
+    private final ProductSearchDocumentRepository documentRepository;
+    private final ProductRepository productRepository;
+    private final InventoryRepository inventoryRepository;
+    private final CategoryRepository categoryRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final ProductMapper productMapper;
+    private final InventoryStockShardService stockShardService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Listing served from the read model alone: one indexed scan of a single table
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductSummaryDTO> getProductSummaries(Long categoryId, boolean includeSubcategories,
+                                                       boolean featuredOnly, Pageable pageable) {
+        Page<ProductSearchDocument> documents;
+        if (categoryId != null) {
+            Set<Long> categoryIds = includeSubcategories
+                    ? categoryTreeService.getTree().descendantIds(categoryId)
+                    : Set.of(categoryId);
+            documents = featuredOnly
+                    ? documentRepository.findByCategoryIdInAndIsFeaturedTrue(categoryIds, pageable)
+                    : documentRepository.findByCategoryIdIn(categoryIds, pageable);
+        } else {
+            documents = featuredOnly
+                    ? documentRepository.findByIsFeaturedTrue(pageable)
+                    : documentRepository.findAll(pageable);
+        }
+        return documents.map(productMapper::toSummaryDTO);
+    }
+
+    /**
+     * Re-derive the document of one product; inactive or missing products lose their document
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(Long productId) {
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null || !product.isActive()) {
+            documentRepository.findById(productId).ifPresent(documentRepository::delete);
+            return;
+        }
+        // Query the inventory instead of product.getInventory(): the inverse side is not updated
+        // when the inventory was created in this same transaction
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElse(null);
+        stockShardService.loadShardTotals(Collections.singletonList(inventory));
+        ProductSearchDocument document = documentRepository.findById(productId).orElseGet(ProductSearchDocument::new);
+        documentRepository.save(fill(document, product, inventory,
+                categoryPath(categoryTreeService.getTree(), product.getCategoryId())));
+    }
+
+    /**
+     * Rewrite the category path of every product under the given category after it was renamed or moved.
+     * The tree is rebuilt from the current transaction's view, the cached one still holds the old names.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshCategoryPaths(Long categoryId) {
+        CategoryTree tree = CategoryTree.build(categoryRepository.findAll());
+        for (Long descendantId : tree.descendantIds(categoryId)) {
+            documentRepository.updateCategoryPath(descendantId, categoryPath(tree, descendantId));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        refresh(event.getProductId());
+    }
+
+    /**
+     * Bring the read model back in step with the products table at startup when the counts differ,
+     * e.g. on first deployment. Documents are upserted in id order chunks, one transaction each, so
+     * listings keep being served while it runs; documents of missing or inactive products are dropped last.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long documents = documentRepository.count();
+        long products = productRepository.countByIsActiveTrue();
+        if (documents == products) {
+            return;
+        }
+        log.info("Backfilling product search documents ({} documents for {} active products)", documents, products);
+        long lastId = 0L;
+        boolean hasNext = true;
+        while (hasNext) {
+            long afterId = lastId;
+            Slice<Product> chunk = transactionTemplate.execute(status -> {
+                CategoryTree tree = categoryTreeService.getTree();
+                Slice<Product> slice = productRepository.findByIsActiveTrueAndIdGreaterThan(
+                        afterId, PageRequest.of(0, LOAD_CHUNK_SIZE, Sort.by(Sort.Direction.ASC, "id")));
+                Map<Long, ProductSearchDocument> existing = documentRepository
+                        .findAllById(slice.map(Product::getId).toList()).stream()
+                        .collect(Collectors.toMap(ProductSearchDocument::getProductId, Function.identity()));
+                stockShardService.loadShardTotals(slice.map(Product::getInventory).toList());
+                List<ProductSearchDocument> batch = new ArrayList<>();
+                for (Product product : slice) {
+                    ProductSearchDocument document = existing.getOrDefault(product.getId(), new ProductSearchDocument());
+                    batch.add(fill(document, product, product.getInventory(), categoryPath(tree, product.getCategoryId())));
+                }
+                documentRepository.saveAll(batch);
+                return slice;
+            });
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            lastId = chunk.getContent().get(chunk.getNumberOfElements() - 1).getId();
+            hasNext = chunk.hasNext();
+        }
+        Integer removed = transactionTemplate.execute(status -> documentRepository.deleteOrphaned());
+        log.info("Product search documents backfilled, {} orphaned documents removed", removed);
+    }
+
+    private ProductSearchDocument fill(ProductSearchDocument document, Product product, Inventory inventory,
+                                       String categoryPath) {
+        document.setProductId(product.getId());
+        document.setName(product.getName());
+        document.setBrand(product.getBrand());
+        document.setImageUrl(productMapper.filterImages(product.getImages()).stream().findFirst().orElse(null));
+        document.setCategoryId(product.getCategoryId());
+        document.setCategoryPath(categoryPath);
+        document.setPrice(inventory != null ? inventory.getPrice() : null);
+        document.setCurrency(inventory != null ? inventory.getCurrency() : null);
+        document.setStockStatus(productMapper.determineStatus(inventory));
+        document.setAverageRating(product.getAverageRating());
+        document.setFeatured(product.isFeatured());
+        document.setUpdatedAt(LocalDateTime.now());
+        return document;
+    }
+
+    private String categoryPath(CategoryTree tree, Long categoryId) {
+        List<String> path = tree.path(categoryId);
+        return path.isEmpty() ? null : String.join(CATEGORY_PATH_SEPARATOR, path);
+    }
+}
@@ -0,0 +1,144 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.search.ProductFacetValueDTO;
+import com.mankind.api.product.dto.search.ProductSearchHitDTO;
+import com.mankind.api.product.dto.search.ProductSearchResponseDTO;
+import com.mankind.matrix_product_service.event.ProductChangedEvent;
+import com.mankind.matrix_product_service.model.Product;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import com.mankind.matrix_product_service.search.ProductSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchService {
+    private static final int LOAD_CHUNK_SIZE = 500;
+
+    private final ProductSearchIndex searchIndex;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.search.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.search.max-facet-values:20}")
+    private int maxFacetValues;
+
+    /**
+     * Search the index. The query may be blank, in which case only the filters narrow the result.
+     * Specification filters are given as key:value, e.g. color:Black.
+     */
+    public ProductSearchResponseDTO search(String query, List<String> brands, List<Long> categoryIds,
+                                           List<String> specifications, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page number cannot be negative");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+
+        Map<String, Set<String>> filters = new HashMap<>();
+        if (brands != null && !brands.isEmpty()) {
+            filters.put(ProductSearchIndex.BRAND_FACET, new HashSet<>(brands));
+        }
+        if (categoryIds != null && !categoryIds.isEmpty()) {
+            Set<String> values = new HashSet<>();
+            categoryIds.forEach(categoryId -> values.add(String.valueOf(categoryId)));
+            filters.put(ProductSearchIndex.CATEGORY_FACET, values);
+        }
+        if (specifications != null) {
+            for (String specification : specifications) {
+                int separator = specification.indexOf(':');
+                if (separator <= 0 || separator == specification.length() - 1) {
+                    throw new IllegalArgumentException("Specification filter must be in key:value format: " + specification);
+                }
+                filters.computeIfAbsent(ProductSearchIndex.SPECIFICATION_FACET_PREFIX + specification.substring(0, separator).trim(),
+                        key -> new HashSet<>()).add(specification.substring(separator + 1).trim());
+            }
+        }
+
+        ProductSearchIndex.SearchResult result = searchIndex.search(query, filters, (long) page * size, size, maxFacetValues);
+        Map<String, List<ProductFacetValueDTO>> facets = new HashMap<>();
+        result.getFacets().forEach((facet, counts) -> facets.put(facet, counts.stream()
+                .map(count -> new ProductFacetValueDTO(count.getValue(), count.getCount()))
+                .toList()));
+        return ProductSearchResponseDTO.builder()
+                .query(query)
+                .totalHits(result.getTotalHits())
+                .page(page)
+                .size(size)
+                .hits(result.getHits().stream().map(this::toHitDTO).toList())
+                .facets(facets)
+                .build();
+    }
+
+    /**
+     * Load every active product into the index once the application is up.
+     * Products are read in id order chunks, each in its own short read transaction.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        boolean hasNext = true;
+        while (hasNext) {
+            long afterId = lastId;
+            Slice<Product> chunk = transactionTemplate.execute(status -> {
+                Slice<Product> slice = productRepository.findByIsActiveTrueAndIdGreaterThan(
+                        afterId, PageRequest.of(0, LOAD_CHUNK_SIZE, Sort.by(Sort.Direction.ASC, "id")));
+                slice.forEach(searchIndex::index);
+                return slice;
+            });
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            lastId = chunk.getContent().get(chunk.getNumberOfElements() - 1).getId();
+            hasNext = chunk.hasNext();
+        }
+        log.info("Product search index built with {} products in {} ms",
+                searchIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-index a product once the change that touched it is committed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        List<Product> products = productRepository.findAllActiveWithDetailsByIdIn(List.of(event.getProductId()));
+        if (products.isEmpty()) {
+            searchIndex.remove(event.getProductId());
+        } else {
+            searchIndex.index(products.get(0));
+        }
+    }
+
+    private ProductSearchHitDTO toHitDTO(ProductSearchIndex.Hit hit) {
+        ProductSearchIndex.IndexedProduct product = hit.getProduct();
+        return ProductSearchHitDTO.builder()
+                .productId(product.getProductId())
+                .name(product.getName())
+                .brand(product.getBrand())
+                .model(product.getModel())
+                .categoryId(product.getCategoryId())
+                .score(hit.getScore())
+                .build();
+    }
+}
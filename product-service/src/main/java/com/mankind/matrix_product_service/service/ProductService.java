@@ -1,24 +1,42 @@
 package com.mankind.matrix_product_service.service;
 
+import com.mankind.api.product.dto.product.ProductCursorPageDTO;
 import com.mankind.api.product.dto.product.ProductDTO;
 import com.mankind.api.product.dto.product.ProductResponseDTO;
+import com.mankind.matrix_product_service.config.CacheConfig;
+import com.mankind.matrix_product_service.config.EvictionCountingCaffeineCache;
+import com.mankind.matrix_product_service.event.ProductChangedEvent;
 import com.mankind.matrix_product_service.exception.ResourceNotFoundException;
 import com.mankind.matrix_product_service.mapper.ProductMapper;
+import com.mankind.matrix_product_service.model.Inventory;
 import com.mankind.matrix_product_service.model.Product;
 import com.mankind.matrix_product_service.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -27,6 +45,16 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
     private final RoleVerificationService roleVerificationService;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryTreeService categoryTreeService;
+    private final InventoryStockShardService stockShardService;
+
+    @Value("${app.products.batch.max-ids:100}")
+    private int maxBatchIds;
+
+    @Value("${app.products.cursor.max-size:100}")
+    private int maxCursorPageSize;
 
     /**
      * Verify if the current user has ADMIN or SUPER_ADMIN role
@@ -47,32 +75,175 @@ public class ProductService {
         product.setActive(true);
         product.setFeatured(productDTO.getIsFeatured() != null ? productDTO.getIsFeatured() : false);
         product = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
 
         return productMapper.toResponseDTO(product);
     }
 
+    @Transactional(readOnly = true)
     public Page<ProductResponseDTO> getAllProducts(Pageable pageable) {
-        return productRepository.findByIsActiveTrue(pageable)
+        return withShardTotals(productRepository.findByIsActiveTrue(pageable))
                 .map(productMapper::toResponseDTO);
     }
 
     public ProductResponseDTO getProductById(Long id) {
-        return productRepository.findByIdAndIsActiveTrue(id)
-                .map(productMapper::toResponseDTO)
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        ProductResponseDTO cached = cache != null ? cache.get(id, ProductResponseDTO.class) : null;
+        if (cached != null) {
+            return productMapper.copy(cached);
+        }
+        long evictions = cache != null ? EvictionCountingCaffeineCache.evictionCount(cache) : -1;
+        ProductResponseDTO dto = productRepository.findByIdAndIsActiveTrue(id)
+                .map(this::toResponseDTO)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        // A write that committed and evicted during the load may have been read before it committed
+        if (cache != null && EvictionCountingCaffeineCache.evictionCount(cache) == evictions) {
+            cache.put(id, productMapper.copy(dto));
+        }
+        return dto;
     }
 
-    public Page<ProductResponseDTO> getProductsByCategory(Long categoryId, Pageable pageable) {
-        return productRepository.findByCategoryIdAndIsActiveTrue(categoryId, pageable)
-                .map(productMapper::toResponseDTO);
+    /**
+     * Get several active products in one call. Ids already in the product cache are
+     * served from it, the rest are loaded with a fixed number of queries. The cache only
+     * ever holds and hands out copies, so callers may modify what they get back.
+     * Results keep the order of the requested ids; unknown or inactive ids are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductResponseDTO> getProductsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one product id is required");
+        }
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        if (uniqueIds.size() > maxBatchIds) {
+            throw new IllegalArgumentException("Cannot request more than " + maxBatchIds + " products at once");
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        Map<Long, ProductResponseDTO> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            ProductResponseDTO cached = cache != null ? cache.get(id, ProductResponseDTO.class) : null;
+            if (cached != null) {
+                found.put(id, productMapper.copy(cached));
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long evictions = cache != null ? EvictionCountingCaffeineCache.evictionCount(cache) : -1;
+            List<ProductResponseDTO> loaded = withShardTotals(productRepository.findAllActiveWithDetailsByIdIn(missing)).stream()
+                    .map(productMapper::toResponseDTO)
+                    .toList();
+            // Like getProductById, nothing is cached if a write evicted while these were loaded
+            boolean cacheable = cache != null && EvictionCountingCaffeineCache.evictionCount(cache) == evictions;
+            for (ProductResponseDTO dto : loaded) {
+                found.put(dto.getId(), dto);
+                if (cacheable) {
+                    cache.put(dto.getId(), productMapper.copy(dto));
+                }
+            }
+        }
+
+        return uniqueIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
+    /**
+     * Products of a category. With includeSubcategories the whole subtree is queried at once
+     * using the descendant ids precomputed in the category tree.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductResponseDTO> getProductsByCategory(Long categoryId, boolean includeSubcategories, Pageable pageable) {
+        Page<Product> products = includeSubcategories
+                ? productRepository.findByCategoryIdInAndIsActiveTrue(categoryTreeService.getTree().descendantIds(categoryId), pageable)
+                : productRepository.findByCategoryIdAndIsActiveTrue(categoryId, pageable);
+        return withShardTotals(products).map(productMapper::toResponseDTO);
+    }
+
+    @Transactional(readOnly = true)
     public Page<ProductResponseDTO> getFeaturedProducts(Pageable pageable) {
-        return productRepository.findByIsFeaturedTrueAndIsActiveTrue(pageable)
+        return withShardTotals(productRepository.findByIsFeaturedTrueAndIsActiveTrue(pageable))
                 .map(productMapper::toResponseDTO);
     }
 
+    @Transactional(readOnly = true)
+    public ProductCursorPageDTO getAllProducts(String cursor, int size) {
+        return toCursorPage(productRepository.findByIsActiveTrueAndIdGreaterThan(
+                decodeCursor(cursor), keysetPageRequest(size)), size);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductCursorPageDTO getProductsByCategory(Long categoryId, boolean includeSubcategories, String cursor, int size) {
+        Slice<Product> products = includeSubcategories
+                ? productRepository.findByCategoryIdInAndIsActiveTrueAndIdGreaterThan(
+                        categoryTreeService.getTree().descendantIds(categoryId), decodeCursor(cursor), keysetPageRequest(size))
+                : productRepository.findByCategoryIdAndIsActiveTrueAndIdGreaterThan(
+                        categoryId, decodeCursor(cursor), keysetPageRequest(size));
+        return toCursorPage(products, size);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductCursorPageDTO getFeaturedProducts(String cursor, int size) {
+        return toCursorPage(productRepository.findByIsFeaturedTrueAndIsActiveTrueAndIdGreaterThan(
+                decodeCursor(cursor), keysetPageRequest(size)), size);
+    }
+
+    private ProductResponseDTO toResponseDTO(Product product) {
+        return productMapper.toResponseDTO(withShardTotals(List.of(product)).get(0));
+    }
+
+    // The stock held on hot SKU shards is not part of the inventory row; add it for the sharded products among these
+    private <P extends Iterable<Product>> P withShardTotals(P products) {
+        List<Inventory> inventories = new ArrayList<>();
+        products.forEach(product -> inventories.add(product.getInventory()));
+        stockShardService.loadShardTotals(inventories);
+        return products;
+    }
+
+    private Pageable keysetPageRequest(int size) {
+        if (size < 1 || size > maxCursorPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxCursorPageSize);
+        }
+        // Always the first "page": the cursor predicate does the seeking, Slice only fetches size + 1 rows
+        return PageRequest.of(0, size, Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    private ProductCursorPageDTO toCursorPage(Slice<Product> slice, int size) {
+        List<ProductResponseDTO> content = withShardTotals(slice).map(productMapper::toResponseDTO).getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? encodeCursor(content.get(content.size() - 1).getId())
+                : null;
+        return ProductCursorPageDTO.builder()
+                .content(content)
+                .size(size)
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id")
     public ProductResponseDTO updateProduct(Long id, ProductDTO productDTO) {
         // Verify admin role for product updates
         roleVerificationService.verifyAdminOrSuperAdminRole();
@@ -156,10 +327,12 @@ public class ProductService {
 
         // Save and return
         Product savedProduct = productRepository.save(product);
-        return productMapper.toResponseDTO(savedProduct);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+        return toResponseDTO(savedProduct);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id")
     public ProductResponseDTO toggleFeaturedStatus(Long id) {
         // Verify admin role for featured status changes
         roleVerificationService.verifyAdminOrSuperAdminRole();
@@ -168,7 +341,9 @@ public class ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         
         product.setFeatured(!product.isFeatured());
-        return productMapper.toResponseDTO(productRepository.save(product));
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
+        return toResponseDTO(savedProduct);
     }
 
     private void validateProductName(String name, Long categoryId, Long productId) {
@@ -241,6 +416,7 @@ public class ProductService {
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id")
     public void deleteProduct(Long id) {
         // Verify admin role for product deletion
         roleVerificationService.verifyAdminOrSuperAdminRole();
@@ -250,6 +426,7 @@ public class ProductService {
 
         product.setActive(false);
         productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id));
     }
 }
 
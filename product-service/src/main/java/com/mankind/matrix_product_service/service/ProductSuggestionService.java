@@ -0,0 +1,97 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.search.ProductSuggestionDTO;
+import com.mankind.matrix_product_service.model.Category;
+import com.mankind.matrix_product_service.repository.CategoryRepository;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import com.mankind.matrix_product_service.repository.RecentlyViewedProductRepository;
+import com.mankind.matrix_product_service.search.SuggestionTrie;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestionService {
+    public static final String PRODUCT = "PRODUCT";
+    public static final String BRAND = "BRAND";
+    public static final String CATEGORY = "CATEGORY";
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final RecentlyViewedProductRepository recentlyViewedProductRepository;
+
+    private final AtomicReference<SuggestionTrie> trie = new AtomicReference<>(SuggestionTrie.EMPTY);
+
+    @Value("${app.search.suggest.top-k:10}")
+    private int topK;
+
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Prefix cannot be empty");
+        }
+        if (limit < 1 || limit > topK) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + topK);
+        }
+        return trie.get().complete(prefix, limit).stream()
+                .map(suggestion -> new ProductSuggestionDTO(suggestion.getText(), suggestion.getType(), suggestion.getId()))
+                .toList();
+    }
+
+    /**
+     * Rebuild the trie from product names, brands and category names and swap it in.
+     * Products are weighted by how many users viewed them; brands and categories by the
+     * summed weight of their products. Lookups keep using the previous trie until the swap.
+     */
+    @Scheduled(fixedDelayString = "${app.search.suggest.rebuild-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> views = new HashMap<>();
+        recentlyViewedProductRepository.countViewsByProduct()
+                .forEach(count -> views.put(count.getProductId(), count.getViews()));
+
+        // Keyed by lower-cased name so duplicate names collapse into the heaviest product
+        Map<String, SuggestionTrie.Suggestion> products = new LinkedHashMap<>();
+        Map<String, Long> brandWeights = new HashMap<>();
+        Map<String, String> brandNames = new HashMap<>();
+        Map<Long, Long> categoryWeights = new HashMap<>();
+        for (ProductRepository.ProductNameView product : productRepository.findActiveProductNames()) {
+            long weight = 1 + views.getOrDefault(product.getId(), 0L);
+            products.merge(product.getName().toLowerCase(Locale.ROOT),
+                    new SuggestionTrie.Suggestion(product.getName(), PRODUCT, product.getId(), weight),
+                    (current, candidate) -> candidate.getWeight() > current.getWeight() ? candidate : current);
+            if (product.getBrand() != null && !product.getBrand().isBlank()) {
+                String brand = product.getBrand().trim();
+                brandWeights.merge(brand.toLowerCase(Locale.ROOT), weight, Long::sum);
+                brandNames.putIfAbsent(brand.toLowerCase(Locale.ROOT), brand);
+            }
+            categoryWeights.merge(product.getCategoryId(), weight, Long::sum);
+        }
+
+        List<SuggestionTrie.Suggestion> suggestions = new ArrayList<>(products.values());
+        brandWeights.forEach((key, weight) ->
+                suggestions.add(new SuggestionTrie.Suggestion(brandNames.get(key), BRAND, null, weight)));
+        for (Category category : categoryRepository.findAll()) {
+            suggestions.add(new SuggestionTrie.Suggestion(category.getName(), CATEGORY, category.getId(),
+                    1 + categoryWeights.getOrDefault(category.getId(), 0L)));
+        }
+
+        SuggestionTrie rebuilt = SuggestionTrie.build(suggestions, topK);
+        trie.set(rebuilt);
+        log.debug("Suggestion trie rebuilt with {} entries in {} ms",
+                rebuilt.size(), System.currentTimeMillis() - start);
+    }
+}
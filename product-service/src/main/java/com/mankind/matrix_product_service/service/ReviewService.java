@@ -4,12 +4,16 @@ import com.mankind.api.product.dto.review.CreateReviewDTO;
 import com.mankind.api.product.dto.review.ReviewDTO;
 import com.mankind.api.user.dto.UserDTO;
 import com.mankind.api.product.dto.review.ReviewReturnDTO;
+import com.mankind.api.product.dto.review.ReviewSummaryDTO;
 import com.mankind.matrix_product_service.model.Product;
 import com.mankind.matrix_product_service.model.Review;
 import com.mankind.matrix_product_service.repository.ProductRepository;
 import com.mankind.matrix_product_service.repository.ReviewRepository;
 import com.mankind.matrix_product_service.client.UserClient;
+import com.mankind.matrix_product_service.config.CacheConfig;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,6 +42,12 @@ public class ReviewService {
     @Autowired
     private UserClient userClient;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ProductRatingAggregateService productRatingAggregateService;
+
     @Transactional
     public ReviewDTO createReview(CreateReviewDTO createReviewDTO) {
         Product product = productRepository.findById(createReviewDTO.getProductId())
@@ -50,7 +60,8 @@ public class ReviewService {
         review.setComment(createReviewDTO.getComment());
 
         Review savedReview = reviewRepository.save(review);
-        updateProductAverageRating(product.getId());
+        productRatingAggregateService.reviewAdded(product.getId(), savedReview.getRating());
+        evictCachedProduct(product.getId());
         return convertToDTO(savedReview);
     }
 
@@ -120,11 +131,14 @@ public class ReviewService {
             throw new RuntimeException("You can only update your own reviews");
         }
 
+        int oldRating = review.getRating();
         review.setRating(createReviewDTO.getRating());
         review.setComment(createReviewDTO.getComment());
 
         Review updatedReview = reviewRepository.save(review);
-        updateProductAverageRating(review.getProduct().getId());
+        Long productId = review.getProduct().getId();
+        productRatingAggregateService.reviewChanged(productId, oldRating, updatedReview.getRating());
+        evictCachedProduct(productId);
         return convertToDTO(updatedReview);
     }
 
@@ -137,8 +151,10 @@ public class ReviewService {
             throw new RuntimeException("You can only delete your own reviews");
         }
         Long productId = review.getProduct().getId();
+        int rating = review.getRating();
         reviewRepository.deleteById(reviewId);
-        updateProductAverageRating(productId);
+        productRatingAggregateService.reviewRemoved(productId, rating);
+        evictCachedProduct(productId);
     }
 
     private ReviewDTO convertToDTO(Review review) {
@@ -153,16 +169,18 @@ public class ReviewService {
         return dto;
     }
 
-    private void updateProductAverageRating(Long productId) {
-        List<Review> reviews = reviewRepository.findTop100ByProductIdOrderByCreatedAtDesc(productId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-        if (reviews.isEmpty()) {
-            product.setAverageRating(null);
-        } else {
-            double avg = reviews.stream().mapToInt(Review::getRating).average().orElse(0.0);
-            product.setAverageRating(avg);
+    public ReviewSummaryDTO getReviewSummary(Long productId) {
+        return productRatingAggregateService.getSummary(productId);
+    }
+
+    public void rebuildRatingAggregates() {
+        productRatingAggregateService.rebuildAll();
+    }
+
+    private void evictCachedProduct(Long productId) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (cache != null) {
+            cache.evict(productId);
         }
-        productRepository.save(product);
     }
 } 
\ No newline at end of file
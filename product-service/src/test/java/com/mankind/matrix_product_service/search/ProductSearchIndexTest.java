@@ -0,0 +1,144 @@
+package com.mankind.matrix_product_service.search;
+
+import com.mankind.matrix_product_service.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ProductSearchIndex();
+        index.index(product(1L, "iPhone 13 Pro", "Apple", "A2482", Map.of("color", "Black", "storage", "256GB"),
+                "Latest iPhone model with advanced camera system"));
+        index.index(product(2L, "Galaxy S22", "Samsung", "SM-S901", Map.of("color", "Phantom Black"),
+                "Android phone with a great camera"));
+        index.index(product(3L, "Pixel 7", "Google", "GVU6C", Map.of("color", "Snow"),
+                "Pure Android experience"));
+    }
+
+    private Product product(Long id, String name, String brand, String model, Map<String, String> specifications,
+                            String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setModel(model);
+        product.setCategoryId(10L);
+        product.setSpecifications(new HashMap<>(specifications));
+        product.setDescription(description);
+        return product;
+    }
+
+    private Long topHit(String query) {
+        return index.search(query, Map.of(), 0, 10, 20).getHits().get(0).getProduct().getProductId();
+    }
+
+    @Test
+    public void testRanksNameAndBrandMatchesFirst() {
+        assertThat(topHit("iphone")).isEqualTo(1L);
+        assertThat(topHit("SAMSUNG phone")).isEqualTo(2L);
+        assertThat(index.search("android", Map.of(), 0, 10, 20).getTotalHits()).isEqualTo(2);
+        assertThat(index.search("black", Map.of(), 0, 10, 20).getTotalHits()).isEqualTo(2);
+        assertThat(index.search("unknown", Map.of(), 0, 10, 20).getTotalHits()).isZero();
+    }
+
+    @Test
+    public void testUpdateAndRemoveAreIncremental() {
+        index.index(product(3L, "Pixel 7 Pro", "Google", "GVU6C", Map.of("color", "Obsidian"), "Telephoto camera"));
+        assertThat(index.search("snow", Map.of(), 0, 10, 20).getTotalHits()).isZero();
+        assertThat(topHit("obsidian")).isEqualTo(3L);
+        assertThat(index.search("camera", Map.of(), 0, 10, 20).getTotalHits()).isEqualTo(3);
+
+        index.remove(1L);
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("iphone", Map.of(), 0, 10, 20).getTotalHits()).isZero();
+        assertThat(index.search("camera", Map.of(), 0, 10, 20).getTotalHits()).isEqualTo(2);
+    }
+
+    @Test
+    public void testPagesThroughHits() {
+        for (long id = 10; id < 60; id++) {
+            index.index(product(id, "Case " + id, "Generic", null, Map.of(), "Phone case"));
+        }
+        ProductSearchIndex.SearchResult firstPage = index.search("case", Map.of(), 0, 20, 20);
+        ProductSearchIndex.SearchResult lastPage = index.search("case", Map.of(), 40, 20, 20);
+        assertThat(firstPage.getTotalHits()).isEqualTo(50);
+        assertThat(firstPage.getHits()).hasSize(20);
+        assertThat(lastPage.getHits()).hasSize(10);
+
+        // An offset past the last hit, even beyond the int range, is an empty page
+        ProductSearchIndex.SearchResult pastEnd = index.search("case", Map.of(), (long) Integer.MAX_VALUE * 20, 20, 20);
+        assertThat(pastEnd.getTotalHits()).isEqualTo(50);
+        assertThat(pastEnd.getHits()).isEmpty();
+    }
+
+    @Test
+    public void testRemovedSlotsAreReused() {
+        for (int round = 0; round < 100; round++) {
+            index.remove(3L);
+            index.index(product(3L, "Pixel " + round, "Google", "GVU6C", Map.of("color", "Snow"), "Pure Android experience"));
+        }
+        index.remove(2L);
+        index.index(product(4L, "Galaxy S23", "Samsung", "SM-S911", Map.of("color", "Cream"), "Android phone"));
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.slots()).isEqualTo(3);
+        assertThat(topHit("galaxy")).isEqualTo(4L);
+        assertThat(index.search("android", Map.of(), 0, 10, 20).getTotalHits()).isEqualTo(2);
+        assertThat(index.search("", Map.of("brand", Set.of("Samsung")), 0, 10, 20).getTotalHits()).isEqualTo(1);
+    }
+
+    private Map<String, Integer> counts(ProductSearchIndex.SearchResult result, String facet) {
+        Map<String, Integer> counts = new HashMap<>();
+        result.getFacets().getOrDefault(facet, List.of()).forEach(value -> counts.put(value.getValue(), value.getCount()));
+        return counts;
+    }
+
+    @Test
+    public void testFiltersAndCountsFacets() {
+        ProductSearchIndex.SearchResult all = index.search("", Map.of(), 0, 10, 20);
+        assertThat(all.getTotalHits()).isEqualTo(3);
+        assertThat(counts(all, "brand")).containsOnly(
+                Map.entry("Apple", 1), Map.entry("Samsung", 1), Map.entry("Google", 1));
+        assertThat(counts(all, "spec.color")).containsOnly(
+                Map.entry("Black", 1), Map.entry("Phantom Black", 1), Map.entry("Snow", 1));
+        assertThat(counts(all, "category")).containsOnly(Map.entry("10", 3));
+
+        // Filtering by brand narrows the hits and other facets, but keeps the other brand counts
+        ProductSearchIndex.SearchResult android = index.search("android",
+                Map.of("brand", Set.of("Google")), 0, 10, 20);
+        assertThat(android.getTotalHits()).isEqualTo(1);
+        assertThat(android.getHits().get(0).getProduct().getProductId()).isEqualTo(3L);
+        assertThat(counts(android, "brand")).containsOnly(Map.entry("Samsung", 1), Map.entry("Google", 1));
+        assertThat(counts(android, "spec.color")).containsOnly(Map.entry("Snow", 1));
+
+        // Values of one facet are OR-ed, facets are AND-ed
+        ProductSearchIndex.SearchResult blackPhones = index.search("", Map.of(
+                "spec.color", Set.of("Black", "Phantom Black"),
+                "brand", Set.of("Samsung", "Google")), 0, 10, 20);
+        assertThat(blackPhones.getTotalHits()).isEqualTo(1);
+
+        // Names and values match regardless of case, counts keep the indexed spelling
+        index.index(product(4L, "Galaxy S23", "samsung", "SM-S911", Map.of("Color", "BLACK"), "Android phone"));
+        ProductSearchIndex.SearchResult mixedCase = index.search("", Map.of(
+                "spec.COLOR", Set.of("black"), "Brand", Set.of("SAMSUNG")), 0, 10, 20);
+        assertThat(mixedCase.getTotalHits()).isEqualTo(1);
+        assertThat(mixedCase.getHits().get(0).getProduct().getProductId()).isEqualTo(4L);
+        assertThat(counts(index.search("", Map.of(), 0, 10, 20), "brand")).containsEntry("Samsung", 2);
+        index.remove(4L);
+
+        // Facets follow incremental updates
+        index.remove(2L);
+        assertThat(counts(index.search("", Map.of(), 0, 10, 20), "spec.color")).doesNotContainKey("Phantom Black");
+    }
+}
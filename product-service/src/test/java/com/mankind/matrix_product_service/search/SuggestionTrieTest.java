@@ -0,0 +1,39 @@
+package com.mankind.matrix_product_service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SuggestionTrieTest {
+
+    private final SuggestionTrie trie = SuggestionTrie.build(List.of(
+            new SuggestionTrie.Suggestion("iPhone 13 Pro", "PRODUCT", 1L, 50),
+            new SuggestionTrie.Suggestion("iPhone 12", "PRODUCT", 2L, 80),
+            new SuggestionTrie.Suggestion("iPad Air", "PRODUCT", 3L, 5),
+            new SuggestionTrie.Suggestion("Pixel 7 Pro", "PRODUCT", 4L, 20),
+            new SuggestionTrie.Suggestion("Apple", "BRAND", null, 135),
+            new SuggestionTrie.Suggestion("Phones", "CATEGORY", 10L, 150)), 3);
+
+    private List<String> complete(String prefix, int limit) {
+        return trie.complete(prefix, limit).stream().map(SuggestionTrie.Suggestion::getText).toList();
+    }
+
+    @Test
+    public void testCompletesByWeight() {
+        assertThat(complete("i", 10)).containsExactly("iPhone 12", "iPhone 13 Pro", "iPad Air");
+        assertThat(complete("IPH", 10)).containsExactly("iPhone 12", "iPhone 13 Pro");
+        assertThat(complete("iph", 1)).containsExactly("iPhone 12");
+        assertThat(complete("ph", 10)).containsExactly("Phones");
+    }
+
+    @Test
+    public void testCompletesLaterWordsAndKeepsTopK() {
+        assertThat(complete("pro", 10)).containsExactly("iPhone 13 Pro", "Pixel 7 Pro");
+        assertThat(complete("p", 10)).containsExactly("Phones", "iPhone 13 Pro", "Pixel 7 Pro");
+        assertThat(complete("iphone 13", 10)).containsExactly("iPhone 13 Pro");
+        assertThat(complete("xyz", 10)).isEmpty();
+        assertThat(complete("  ", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,152 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.CartLineQuantityDTO;
+import com.mankind.api.product.dto.inventory.CartLineReservationDTO;
+import com.mankind.api.product.dto.inventory.CartLinesRequestDTO;
+import com.mankind.api.product.dto.inventory.CartLinesReservationDTO;
+import com.mankind.matrix_product_service.model.CartReservation;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.model.Product;
+import com.mankind.matrix_product_service.repository.CartReservationRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs without a test transaction so a rejected batch rolls back like in production
+@ProductServiceDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CartLineReservationServiceTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private CartReservationRepository cartReservationRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryLogRepository inventoryLogRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    @AfterEach
+    public void tearDown() {
+        catalog.clear();
+    }
+
+    // Released rows stay at 0 until their retention runs out
+    private List<CartReservation> heldReservations() {
+        return cartReservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getQuantity().signum() > 0)
+                .toList();
+    }
+
+    @Test
+    public void testCartLineIsValidatedAndReservedInOneCall() {
+        Long keyboard = catalog.productWithStock("Keyboard", 10);
+        Inventory inventory = inventoryRepository.findByProductId(keyboard).orElseThrow();
+        inventory.setMaxQuantityPerPurchase(new BigDecimal("5"));
+        inventoryRepository.save(inventory);
+
+        CartLineReservationDTO line = inventoryService.reserveCartLine(keyboard, new BigDecimal("3"), null, 1L, 1L);
+        assertThat(line.isReserved()).isTrue();
+        assertThat(line.getPrice()).isEqualByComparingTo("49.99");
+        assertThat(line.getAvailableQuantity()).isEqualByComparingTo("7");
+
+        // Raising to 5 reserves only the 2 more, going over the limit changes nothing
+        assertThat(inventoryService.reserveCartLine(keyboard, new BigDecimal("5"), null, 1L, 1L).isReserved()).isTrue();
+        assertThat(inventoryService.reserveCartLine(keyboard, new BigDecimal("6"), null, 1L, 1L).getOutcome())
+                .isEqualTo(CartLineReservationDTO.Outcome.MAX_QUANTITY_EXCEEDED);
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getReservedQuantity()).isEqualByComparingTo("5");
+
+        // Another cart cannot take more than what is left
+        assertThat(inventoryService.reserveCartLine(keyboard, new BigDecimal("5"), null, 2L, 2L).isReserved()).isTrue();
+        assertThat(inventoryService.reserveCartLine(keyboard, new BigDecimal("1"), null, 3L, 3L).getOutcome())
+                .isEqualTo(CartLineReservationDTO.Outcome.INSUFFICIENT_STOCK);
+
+        // An inactive product cannot be added to, but a cart can still give its stock back
+        Product product = productRepository.findById(keyboard).orElseThrow();
+        product.setActive(false);
+        productRepository.save(product);
+        assertThat(inventoryService.reserveCartLine(keyboard, new BigDecimal("1"), null, 3L, 3L).getOutcome())
+                .isEqualTo(CartLineReservationDTO.Outcome.PRODUCT_INACTIVE);
+        assertThat(inventoryService.reserveCartLine(keyboard, BigDecimal.ZERO, null, 1L, 1L).isReserved()).isTrue();
+
+        inventory = inventoryRepository.findByProductId(keyboard).orElseThrow();
+        assertThat(inventory.getAvailableQuantity()).isEqualByComparingTo("5");
+        assertThat(inventory.getReservedQuantity()).isEqualByComparingTo("5");
+        assertThat(heldReservations()).singleElement()
+                .satisfies(reservation -> assertThat(reservation.getCartId()).isEqualTo(2L));
+        assertThat(inventoryLogRepository.findByInventoryIdAndActionType(inventory.getId(), InventoryActionType.CART_UPDATE))
+                .singleElement().satisfies(log -> assertThat(log.getQuantity()).isEqualByComparingTo("2"));
+    }
+
+    @Test
+    public void testCartLinesAreAppliedAllOrNothing() {
+        Long keyboard = catalog.productWithStock("Keyboard", 10);
+        Long mouse = catalog.productWithStock("Mouse", 2);
+        inventoryService.reserveCartLine(keyboard, new BigDecimal("4"), null, 1L, 1L);
+
+        // The mouse line cannot be reserved, so the keyboard line is undone as well
+        CartLinesReservationDTO rejected = inventoryService.reserveCartLines(new CartLinesRequestDTO(List.of(
+                new CartLineQuantityDTO(keyboard, BigDecimal.ONE),
+                new CartLineQuantityDTO(mouse, new BigDecimal("3")))), 1L, 1L);
+        assertThat(rejected.isReserved()).isFalse();
+        assertThat(rejected.getLines()).extracting(CartLineReservationDTO::getOutcome).containsExactly(
+                CartLineReservationDTO.Outcome.RESERVED, CartLineReservationDTO.Outcome.INSUFFICIENT_STOCK);
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getReservedQuantity()).isEqualByComparingTo("4");
+
+        CartLinesReservationDTO applied = inventoryService.reserveCartLines(new CartLinesRequestDTO(List.of(
+                new CartLineQuantityDTO(keyboard, BigDecimal.ZERO),
+                new CartLineQuantityDTO(mouse, new BigDecimal("2")))), 1L, 1L);
+        assertThat(applied.isReserved()).isTrue();
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(inventoryRepository.findByProductId(mouse).orElseThrow().getAvailableQuantity()).isEqualByComparingTo("0");
+        assertThat(heldReservations()).singleElement()
+                .satisfies(reservation -> assertThat(reservation.getProductId()).isEqualTo(mouse));
+    }
+
+    @Test
+    public void testCartWithoutReservationRowSendsWhatItHolds() {
+        Long keyboard = catalog.productWithStock("Keyboard", 10);
+        Long mouse = catalog.productWithStock("Mouse", 10);
+        inventoryService.reserveCartLine(keyboard, new BigDecimal("3"), null, 1L, 1L);
+        inventoryService.reserveCartLine(mouse, new BigDecimal("2"), null, 1L, 1L);
+        // Reserved before reservation rows were recorded
+        cartReservationRepository.deleteAll();
+
+        // Only the 2 more are reserved, not another 5
+        assertThat(inventoryService.reserveCartLine(keyboard, new BigDecimal("5"), new BigDecimal("3"), 1L, 1L).isReserved()).isTrue();
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getReservedQuantity()).isEqualByComparingTo("5");
+        // The row now exists and wins over the caller's count
+        assertThat(inventoryService.reserveCartLine(keyboard, new BigDecimal("5"), new BigDecimal("1"), 1L, 1L).isReserved()).isTrue();
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getReservedQuantity()).isEqualByComparingTo("5");
+
+        // Removing the line gives back what the cart held
+        CartLinesReservationDTO removed = inventoryService.reserveCartLines(new CartLinesRequestDTO(List.of(
+                new CartLineQuantityDTO(mouse, BigDecimal.ZERO, new BigDecimal("2")))), 1L, 1L);
+        assertThat(removed.isReserved()).isTrue();
+        Inventory mouseInventory = inventoryRepository.findByProductId(mouse).orElseThrow();
+        assertThat(mouseInventory.getAvailableQuantity()).isEqualByComparingTo("10");
+        assertThat(mouseInventory.getReservedQuantity()).isEqualByComparingTo("0");
+    }
+}
@@ -0,0 +1,121 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.CartCommitResultDTO;
+import com.mankind.api.product.dto.inventory.CartReservationLineDTO;
+import com.mankind.matrix_product_service.model.CartReservation;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.repository.CartReservationRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.ProductSearchDocumentRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs without a test transaction so the sweeper's batches and the commit behave like in production
+@ProductServiceDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CartReservationCommitTest {
+
+    @Autowired
+    private CartReservationExpiryService expiryService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private CartReservationRepository cartReservationRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryLogRepository inventoryLogRepository;
+
+    @Autowired
+    private ProductSearchDocumentRepository documentRepository;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    @AfterEach
+    public void tearDown() {
+        catalog.clear();
+    }
+
+    private static HttpStatus status(Throwable e) {
+        return HttpStatus.valueOf(((ResponseStatusException) e).getStatusCode().value());
+    }
+
+    @Test
+    public void testCommitTurnsCartReservationsIntoSales() {
+        Long keyboard = catalog.productWithStock("Keyboard", 10);
+        Long mouse = catalog.productWithStock("Mouse", 2);
+        inventoryService.reserveStockForCart(keyboard, new BigDecimal("3"), 1L, 1L);
+        inventoryService.reserveStockForCart(mouse, new BigDecimal("2"), 1L, 1L);
+        inventoryService.reserveStockForCart(keyboard, new BigDecimal("4"), 2L, 2L);
+
+        CartCommitResultDTO result = inventoryService.commitReservations(1L);
+        assertThat(result.getLines()).extracting(CartReservationLineDTO::getProductId).containsExactly(keyboard, mouse);
+
+        Inventory keyboardInventory = inventoryRepository.findByProductId(keyboard).orElseThrow();
+        assertThat(keyboardInventory.getAvailableQuantity()).isEqualByComparingTo("3");
+        assertThat(keyboardInventory.getReservedQuantity()).isEqualByComparingTo("4");
+        assertThat(keyboardInventory.getSoldQuantity()).isEqualByComparingTo("3");
+        Inventory mouseInventory = inventoryRepository.findByProductId(mouse).orElseThrow();
+        assertThat(mouseInventory.getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(mouseInventory.getSoldQuantity()).isEqualByComparingTo("2");
+        assertThat(cartReservationRepository.findAll()).singleElement()
+                .satisfies(reservation -> assertThat(reservation.getCartId()).isEqualTo(2L));
+        assertThat(inventoryLogRepository.findByInventoryIdAndActionType(keyboardInventory.getId(), InventoryActionType.CHECKOUT_COMMIT))
+                .singleElement().satisfies(log -> assertThat(log.getQuantity()).isEqualByComparingTo("3"));
+        // Listings see the sold out product
+        assertThat(documentRepository.findById(mouse).orElseThrow().getStockStatus()).isEqualTo("OUT_OF_STOCK");
+
+        // A retried checkout finds nothing left to commit
+        assertThatThrownBy(() -> inventoryService.commitReservations(1L))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(status(e)).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getSoldQuantity()).isEqualByComparingTo("3");
+    }
+
+    @Test
+    public void testCommitRejectsCartWhoseReservationsWereReleased() {
+        Long keyboard = catalog.productWithStock("Keyboard", 10);
+        Long mouse = catalog.productWithStock("Mouse", 10);
+        inventoryService.reserveStockForCart(keyboard, new BigDecimal("3"), 1L, 1L);
+        inventoryService.reserveStockForCart(mouse, new BigDecimal("2"), 1L, 1L);
+        for (CartReservation reservation : cartReservationRepository.findAll()) {
+            if (reservation.getProductId().equals(mouse)) {
+                reservation.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+                cartReservationRepository.save(reservation);
+            }
+        }
+        expiryService.releaseExpiredReservations();
+
+        assertThatThrownBy(() -> inventoryService.commitReservations(1L))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("released for products [" + mouse + "]")
+                .satisfies(e -> assertThat(status(e)).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getSoldQuantity()).isEqualByComparingTo("0");
+
+        // Once the cart has dropped the released line, the rest is committed
+        inventoryService.unreserveStockForCart(mouse, new BigDecimal("2"), 1L, 1L);
+        assertThat(inventoryService.commitReservations(1L).getLines())
+                .extracting(CartReservationLineDTO::getProductId).containsExactly(keyboard);
+        assertThat(inventoryRepository.findByProductId(mouse).orElseThrow().getAvailableQuantity()).isEqualByComparingTo("10");
+    }
+}
@@ -0,0 +1,173 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.matrix_product_service.model.CartReservation;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.repository.CartReservationRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs without a test transaction so the sweeper's batches commit like in production
+@ProductServiceDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "app.inventory.cart-reservation.sweep-batch-size=1")
+public class CartReservationExpiryServiceTest {
+
+    @Autowired
+    private CartReservationExpiryService expiryService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CartReservationRepository cartReservationRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryLogRepository inventoryLogRepository;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    @AfterEach
+    public void tearDown() {
+        catalog.clear();
+    }
+
+    // Released rows stay at 0 until their retention runs out
+    private List<CartReservation> heldReservations() {
+        return cartReservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getQuantity().signum() > 0)
+                .toList();
+    }
+
+    @Test
+    public void testExpiredReservationsAreReleased() {
+        Long keyboard = catalog.productWithStock("Keyboard", 10);
+        Long mouse = catalog.productWithStock("Mouse", 10);
+        inventoryService.reserveStockForCart(keyboard, new BigDecimal("3"), 1L, 1L);
+        inventoryService.reserveStockForCart(mouse, new BigDecimal("2"), 1L, 1L);
+        inventoryService.reserveStockForCart(keyboard, new BigDecimal("4"), 2L, 2L);
+
+        for (CartReservation reservation : cartReservationRepository.findAll()) {
+            if (reservation.getCartId().equals(1L)) {
+                reservation.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+                cartReservationRepository.save(reservation);
+            }
+        }
+
+        expiryService.releaseExpiredReservations();
+
+        Inventory keyboardInventory = inventoryRepository.findByProductId(keyboard).orElseThrow();
+        assertThat(keyboardInventory.getAvailableQuantity()).isEqualByComparingTo("6");
+        assertThat(keyboardInventory.getReservedQuantity()).isEqualByComparingTo("4");
+        Inventory mouseInventory = inventoryRepository.findByProductId(mouse).orElseThrow();
+        assertThat(mouseInventory.getAvailableQuantity()).isEqualByComparingTo("10");
+        assertThat(mouseInventory.getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(heldReservations()).singleElement()
+                .satisfies(reservation -> assertThat(reservation.getCartId()).isEqualTo(2L));
+        assertThat(inventoryLogRepository.findByInventoryIdAndActionType(keyboardInventory.getId(), InventoryActionType.CART_REMOVE))
+                .singleElement().satisfies(log -> assertThat(log.getCreatedBy()).isEqualTo("SYSTEM"));
+        assertThat(meterRegistry.get("inventory.cart.reservations.expired").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("inventory.cart.reservations.reclaimed.units").summary().totalAmount()).isEqualTo(5);
+
+        // The cart still shows 3 keyboards; changing it to 5 reserves all 5 again
+        inventoryService.updateReservedStockForCart(keyboard, new BigDecimal("3"), new BigDecimal("5"), 1L, 1L);
+        keyboardInventory = inventoryRepository.findByProductId(keyboard).orElseThrow();
+        assertThat(keyboardInventory.getAvailableQuantity()).isEqualByComparingTo("1");
+        assertThat(keyboardInventory.getReservedQuantity()).isEqualByComparingTo("9");
+
+        // Nothing expired: the sweep records nothing
+        expiryService.releaseExpiredReservations();
+        assertThat(meterRegistry.get("inventory.cart.reservations.reclaimed.units").summary().count()).isEqualTo(1);
+
+        // Released rows are deleted once their retention runs out
+        for (int sweep = 0; sweep < 2; sweep++) {
+            for (CartReservation reservation : cartReservationRepository.findAll()) {
+                reservation.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+                cartReservationRepository.save(reservation);
+            }
+            expiryService.releaseExpiredReservations();
+        }
+        assertThat(cartReservationRepository.findAll()).isEmpty();
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getReservedQuantity()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    public void testCartWithoutReservationRowReleasesWhatItHolds() {
+        Long keyboard = catalog.productWithStock("Keyboard", 10);
+        // Reserved before reservations were tracked per cart
+        inventoryService.reserveStockForCart(keyboard, new BigDecimal("6"), 1L, 1L);
+        cartReservationRepository.deleteAll();
+
+        inventoryService.updateReservedStockForCart(keyboard, new BigDecimal("6"), new BigDecimal("4"), 1L, 1L);
+        Inventory inventory = inventoryRepository.findByProductId(keyboard).orElseThrow();
+        assertThat(inventory.getAvailableQuantity()).isEqualByComparingTo("6");
+        assertThat(inventory.getReservedQuantity()).isEqualByComparingTo("4");
+        assertThat(heldReservations()).singleElement()
+                .satisfies(reservation -> assertThat(reservation.getQuantity()).isEqualByComparingTo("4"));
+
+        cartReservationRepository.deleteAll();
+        inventoryService.unreserveStockForCart(keyboard, new BigDecimal("4"), 1L, 1L);
+        inventory = inventoryRepository.findByProductId(keyboard).orElseThrow();
+        assertThat(inventory.getAvailableQuantity()).isEqualByComparingTo("10");
+        assertThat(inventory.getReservedQuantity()).isEqualByComparingTo("0");
+        assertThat(heldReservations()).isEmpty();
+
+        // The row left at 0 now says the cart holds nothing, so a repeated release is ignored
+        inventoryService.unreserveStockForCart(keyboard, new BigDecimal("4"), 1L, 1L);
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getReservedQuantity()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    public void testConcurrentFirstAddsToACartAreBothRecorded() throws Exception {
+        Long keyboard = catalog.productWithStock("Keyboard", 10);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> adds = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                adds.add(pool.submit(() -> {
+                    start.await();
+                    return inventoryService.reserveStockForCart(keyboard, new BigDecimal("2"), 1L, 1L);
+                }));
+            }
+            start.countDown();
+            for (Future<?> add : adds) {
+                add.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(inventoryRepository.findByProductId(keyboard).orElseThrow().getReservedQuantity()).isEqualByComparingTo("4");
+        assertThat(heldReservations()).singleElement()
+                .satisfies(reservation -> assertThat(reservation.getQuantity()).isEqualByComparingTo("4"));
+    }
+}
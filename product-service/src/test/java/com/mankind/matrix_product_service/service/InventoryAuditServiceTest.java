@@ -0,0 +1,103 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.InventoryAuditReportDTO;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.InventorySnapshotRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs without a test transaction because every inventory is audited in its own transaction
+@ProductServiceDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {"app.inventory.audit.settle-time=0s", "app.inventory.audit.page-size=2"})
+public class InventoryAuditServiceTest {
+
+    @Autowired
+    private InventoryAuditService auditService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventorySnapshotRepository snapshotRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    @AfterEach
+    public void tearDown() {
+        catalog.clear();
+    }
+
+    @Test
+    public void testReplayFindsAndRebuildsDrift() {
+        Long mouse = catalog.productWithStock("Mouse", 10);
+        Long cable = catalog.productWithStock("Cable", 5);
+        Long dock = catalog.productWithStock("Dock", 3);
+        inventoryService.reserveStockForCart(mouse, new BigDecimal("3"), 1L, 1L);
+        inventoryService.updateReservedStockForCart(mouse, new BigDecimal("3"), BigDecimal.ONE, 1L, 1L);
+        inventoryService.addStock(mouse, new BigDecimal("4"));
+        inventoryService.removeStock(cable, new BigDecimal("2"));
+
+        InventoryAuditReportDTO clean = auditService.audit("report");
+        assertThat(clean.getAuditedInventories()).isEqualTo(3);
+        assertThat(clean.getReplayedLogs()).isEqualTo(7);
+        assertThat(clean.getDriftedInventories()).isZero();
+
+        // A counter changed without a log, e.g. by a manual UPDATE
+        Inventory inventory = inventoryRepository.findByProductId(mouse).orElseThrow();
+        inventory.setAvailableQuantity(inventory.getAvailableQuantity().add(new BigDecimal("7")));
+        inventoryRepository.save(inventory);
+        inventoryService.addStock(dock, BigDecimal.ONE);
+
+        // Only the log written since the last audit is replayed on top of the snapshots
+        InventoryAuditReportDTO drifted = auditService.audit("REPORT");
+        assertThat(drifted.getReplayedLogs()).isEqualTo(1);
+        assertThat(drifted.getDrifts()).singleElement().satisfies(drift -> {
+            assertThat(drift.getProductId()).isEqualTo(mouse);
+            assertThat(drift.getStoredAvailableQuantity()).isEqualByComparingTo("20");
+            assertThat(drift.getReplayedAvailableQuantity()).isEqualByComparingTo("13");
+            assertThat(drift.getReplayedReservedQuantity()).isEqualByComparingTo("1");
+            assertThat(drift.isRebuilt()).isFalse();
+        });
+
+        InventoryAuditReportDTO rebuilt = auditService.audit("REBUILD");
+        assertThat(rebuilt.getDrifts()).singleElement().satisfies(drift -> assertThat(drift.isRebuilt()).isTrue());
+        Inventory repaired = inventoryRepository.findByProductId(mouse).orElseThrow();
+        assertThat(repaired.getAvailableQuantity()).isEqualByComparingTo("13");
+        assertThat(repaired.getReservedQuantity()).isEqualByComparingTo("1");
+        assertThat(auditService.audit("REPORT").getDriftedInventories()).isZero();
+    }
+
+    @Test
+    public void testBaselineAcceptsStoredStock() {
+        Long mouse = catalog.productWithStock("Mouse", 10);
+        Inventory inventory = inventoryRepository.findByProductId(mouse).orElseThrow();
+        inventory.setReservedQuantity(new BigDecimal("2"));
+        inventoryRepository.save(inventory);
+        assertThat(auditService.audit("REPORT").getDriftedInventories()).isEqualTo(1);
+
+        auditService.audit("BASELINE");
+        inventoryService.reserveStockForCart(mouse, BigDecimal.ONE, 1L, 1L);
+
+        InventoryAuditReportDTO report = auditService.audit("REPORT");
+        assertThat(report.getReplayedLogs()).isEqualTo(1);
+        assertThat(report.getDriftedInventories()).isZero();
+        assertThat(snapshotRepository.findById(inventory.getId()).orElseThrow().getReservedQuantity())
+                .isEqualByComparingTo("3");
+    }
+}
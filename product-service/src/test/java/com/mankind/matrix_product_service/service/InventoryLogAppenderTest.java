@@ -0,0 +1,169 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.matrix_product_service.model.Category;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryLog;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.model.Product;
+import com.mankind.matrix_product_service.repository.CategoryRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs without a test transaction so the appender's writes commit like in production; SQL logging is off
+// so it does not dominate the benchmark timings
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+@Import(InventoryLogAppender.class)
+public class InventoryLogAppenderTest {
+    private static final Logger log = LoggerFactory.getLogger(InventoryLogAppenderTest.class);
+    private static final int BENCHMARK_LOGS = 2000;
+
+    @Autowired
+    private InventoryLogAppender appender;
+
+    @Autowired
+    private InventoryLogRepository inventoryLogRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown() {
+        inventoryLogRepository.deleteAllInBatch();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    private Inventory inventory() {
+        Category category = new Category();
+        category.setName("Storage");
+        Product product = new Product();
+        product.setName("NVMe SSD 2TB");
+        product.setCategoryId(categoryRepository.save(category).getId());
+        return inventoryRepository.save(Inventory.builder()
+                .product(productRepository.save(product))
+                .price(new BigDecimal("149.99"))
+                .currency("USD")
+                .active(true)
+                .build());
+    }
+
+    private InventoryLog entry(Inventory inventory, int i) {
+        return InventoryLog.builder()
+                .inventory(inventory)
+                .actionType(InventoryActionType.CART_ADD)
+                .quantity(BigDecimal.ONE)
+                .description("Stock reserved for cart")
+                .createdBy("CART_SERVICE")
+                .cartId((long) i)
+                .build();
+    }
+
+    @Test
+    public void testBufferedLogsCommitAndRollBackWithTheTransaction() {
+        Inventory inventory = inventory();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            appender.append(entry(inventory, 1));
+            status.setRollbackOnly();
+        });
+        assertThat(inventoryLogRepository.count()).isZero();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            appender.append(entry(inventory, 2));
+            // Below the flush size nothing is written until the transaction commits
+            assertThat(inventoryLogRepository.count()).isZero();
+        });
+        assertThat(inventoryLogRepository.findAll()).singleElement()
+                .satisfies(entry -> assertThat(entry.getCartId()).isEqualTo(2L));
+
+        assertThatThrownBy(() -> appender.append(entry(inventory, 3))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testNestedTransactionKeepsItsOwnBuffer() {
+        Inventory inventory = inventory();
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        transactionTemplate.executeWithoutResult(outer -> {
+            appender.append(entry(inventory, 1));
+            requiresNew.executeWithoutResult(inner -> {
+                appender.append(entry(inventory, 2));
+                inner.setRollbackOnly();
+            });
+            requiresNew.executeWithoutResult(inner -> appender.append(entry(inventory, 3)));
+            // Committed by the inner transaction, the outer log is still buffered
+            assertThat(inventoryLogRepository.findAll()).extracting(InventoryLog::getCartId).containsExactly(3L);
+            appender.append(entry(inventory, 4));
+        });
+
+        assertThat(inventoryLogRepository.findAll()).extracting(InventoryLog::getCartId)
+                .containsExactlyInAnyOrder(1L, 3L, 4L);
+    }
+
+    private long timeInOneTransaction(Inventory inventory, Consumer<InventoryLog> writer) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < BENCHMARK_LOGS; i++) {
+                writer.accept(entry(inventory, i));
+            }
+        });
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // Timing only, so it is left out of the regular build; run it with -Dbenchmarks=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    public void benchmarkSaveVersusBatchedAppender() {
+        Inventory inventory = inventory();
+        // Warm up both paths before measuring
+        timeInOneTransaction(inventory, inventoryLogRepository::save);
+        timeInOneTransaction(inventory, appender::append);
+        inventoryLogRepository.deleteAllInBatch();
+
+        long saveMillis = timeInOneTransaction(inventory, inventoryLogRepository::save);
+        long appendMillis = timeInOneTransaction(inventory, appender::append);
+        log.info("{} inventory logs in one transaction: save() {} ms, batched appender {} ms",
+                BENCHMARK_LOGS, saveMillis, appendMillis);
+
+        assertThat(inventoryLogRepository.count()).isEqualTo(2L * BENCHMARK_LOGS);
+    }
+}
@@ -0,0 +1,116 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.InventoryLogCursorPageDTO;
+import com.mankind.matrix_product_service.exception.ResourceNotFoundException;
+import com.mankind.matrix_product_service.model.Category;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryLog;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.model.Product;
+import com.mankind.matrix_product_service.repository.CategoryRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ProductServiceDataJpaTest
+public class InventoryLogQueryTest {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryLogRepository inventoryLogRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    // 25 logs, two per minute so keyset ties on createdAt are exercised; even ones are CART_ADD
+    private Long productWithLogs() {
+        Category category = new Category();
+        category.setName("Monitors");
+        Product product = new Product();
+        product.setName("27 inch 4K monitor");
+        product.setCategoryId(categoryRepository.save(category).getId());
+        product = productRepository.save(product);
+        Inventory inventory = inventoryRepository.save(Inventory.builder()
+                .product(product)
+                .price(new BigDecimal("399.00"))
+                .currency("USD")
+                .active(true)
+                .build());
+
+        List<InventoryLog> logs = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            logs.add(InventoryLog.builder()
+                    .inventory(inventory)
+                    .actionType(i % 2 == 0 ? InventoryActionType.CART_ADD : InventoryActionType.CART_REMOVE)
+                    .quantity(BigDecimal.ONE)
+                    .createdAt(START.plusMinutes(i / 2))
+                    .createdBy("CART_SERVICE")
+                    .cartId((long) i)
+                    .build());
+        }
+        inventoryLogRepository.saveAll(logs);
+        return product.getId();
+    }
+
+    private List<Long> allPages(Long productId, String action, LocalDateTime from, LocalDateTime to) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = "";
+        do {
+            InventoryLogCursorPageDTO page = inventoryService.getInventoryLogs(productId, action, from, to, cursor, 4);
+            page.getContent().forEach(log -> ids.add(log.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    @Test
+    public void testKeysetPagesAndStreamReturnTheSameNewestFirstLogs() {
+        Long productId = productWithLogs();
+        List<Long> expected = inventoryLogRepository.findAll().stream()
+                .sorted(Comparator.comparing(InventoryLog::getCreatedAt).thenComparing(InventoryLog::getId).reversed())
+                .map(InventoryLog::getId)
+                .toList();
+
+        assertThat(allPages(productId, null, null, null)).isEqualTo(expected);
+
+        // CART_REMOVE logs are the odd ones; minutes 2 to 4 hold cart ids 5, 7 and 9
+        List<Long> filtered = allPages(productId, "CART_REMOVE", START.plusMinutes(2), START.plusMinutes(5));
+        assertThat(filtered).hasSize(3);
+        List<Long> streamed = new ArrayList<>();
+        inventoryService.streamInventoryLogs(productId, "CART_REMOVE", START.plusMinutes(2), START.plusMinutes(5),
+                log -> streamed.add(log.getId()));
+        assertThat(streamed).isEqualTo(filtered);
+        assertThat(inventoryLogRepository.findAllById(filtered)).extracting(InventoryLog::getCartId)
+                .containsExactlyInAnyOrder(5L, 7L, 9L);
+
+        assertThatThrownBy(() -> inventoryService.getInventoryLogs(productId, null, null, null, "not-a-cursor", 4))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> inventoryService.getInventoryLogs(productId, "SHIPPED", null, null, "", 4))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> inventoryService.checkInventoryLogQuery(productId, "SHIPPED"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> inventoryService.checkInventoryLogQuery(-1L, null))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
@@ -0,0 +1,150 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.InventoryLogDailySummaryDTO;
+import com.mankind.matrix_product_service.model.Category;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryLog;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.model.Product;
+import com.mankind.matrix_product_service.repository.CategoryRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogDailyAggregateRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ProductServiceDataJpaTest
+public class InventoryLogRollupServiceTest {
+    private static final LocalDate OLD_DAY = LocalDate.now().minusDays(120);
+
+    @Autowired
+    private InventoryLogRollupService rollupService;
+
+    @Autowired
+    private InventoryLogRepository inventoryLogRepository;
+
+    @Autowired
+    private InventoryLogDailyAggregateRepository aggregateRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Long productId;
+
+    // Two old days with adds and removes plus today's logs, which are inside the retention age
+    @BeforeEach
+    public void setUp() {
+        Category category = new Category();
+        category.setName("Keyboards");
+        Product product = new Product();
+        product.setName("Mechanical keyboard");
+        product.setCategoryId(categoryRepository.save(category).getId());
+        productId = productRepository.save(product).getId();
+        Inventory inventory = inventoryRepository.save(Inventory.builder()
+                .product(product)
+                .price(new BigDecimal("89.00"))
+                .currency("USD")
+                .active(true)
+                .build());
+
+        List<InventoryLog> logs = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            logs.add(log(inventory, InventoryActionType.CART_ADD, OLD_DAY.atTime(9, i), 2));
+        }
+        logs.add(log(inventory, InventoryActionType.CART_REMOVE, OLD_DAY.atTime(18, 0), 1));
+        logs.add(log(inventory, InventoryActionType.CART_ADD, OLD_DAY.plusDays(1).atTime(10, 0), 5));
+        logs.add(log(inventory, InventoryActionType.CART_ADD, LocalDate.now().atStartOfDay(), 3));
+        inventoryLogRepository.saveAll(logs);
+        // Fold in several chunks; the service is shared by the tests, so reset the mode and run limit too
+        ReflectionTestUtils.setField(rollupService, "chunkSize", 3);
+        ReflectionTestUtils.setField(rollupService, "deleteRaw", true);
+        ReflectionTestUtils.setField(rollupService, "maxChunksPerRun", 500);
+    }
+
+    private InventoryLog log(Inventory inventory, InventoryActionType actionType, LocalDateTime createdAt, int quantity) {
+        return InventoryLog.builder()
+                .inventory(inventory)
+                .actionType(actionType)
+                .quantity(BigDecimal.valueOf(quantity))
+                .createdAt(createdAt)
+                .createdBy("CART_SERVICE")
+                .build();
+    }
+
+    private List<InventoryLogDailySummaryDTO> summary() {
+        return rollupService.getDailySummary(productId, OLD_DAY.minusDays(1), LocalDate.now());
+    }
+
+    @Test
+    public void testCompactionFoldsOldLogsAndDeletesThem() {
+        List<InventoryLogDailySummaryDTO> before = summary();
+        assertThat(before).extracting(InventoryLogDailySummaryDTO::getEntryCount).containsExactly(7L, 1L, 1L, 1L);
+
+        assertThat(rollupService.compact()).isEqualTo(9);
+
+        assertThat(inventoryLogRepository.count()).isEqualTo(1);
+        assertThat(aggregateRepository.findByLogDate(OLD_DAY)).hasSize(2).anySatisfy(aggregate -> {
+            assertThat(aggregate.getActionType()).isEqualTo(InventoryActionType.CART_ADD);
+            assertThat(aggregate.getEntryCount()).isEqualTo(7);
+            assertThat(aggregate.getTotalQuantity()).isEqualByComparingTo("14");
+        });
+        assertThat(summary()).usingRecursiveFieldByFieldElementComparatorIgnoringFields("totalQuantity")
+                .containsExactlyElementsOf(before);
+        assertThat(rollupService.compact()).isZero();
+    }
+
+    @Test
+    public void testPartitionedModeRollsUpWholeDaysAndKeepsRawLogs() {
+        ReflectionTestUtils.setField(rollupService, "deleteRaw", false);
+        List<InventoryLogDailySummaryDTO> before = summary();
+
+        assertThat(rollupService.compact()).isEqualTo(2);
+
+        assertThat(inventoryLogRepository.count()).isEqualTo(10);
+        assertThat(aggregateRepository.findAll()).hasSize(3);
+        // Raw logs of rolled up days are not counted twice
+        assertThat(summary()).usingRecursiveFieldByFieldElementComparatorIgnoringFields("totalQuantity")
+                .containsExactlyElementsOf(before);
+
+        // Rolled up days are not processed again
+        assertThat(rollupService.compact()).isZero();
+        assertThat(aggregateRepository.findAll()).hasSize(3);
+        assertThat(aggregateRepository.findByLogDate(OLD_DAY.plusDays(1))).singleElement()
+                .satisfies(aggregate -> assertThat(aggregate.getTotalQuantity()).isEqualByComparingTo("5"));
+    }
+
+    @Test
+    public void testPartitionedModeSkipsEmptyDays() {
+        ReflectionTestUtils.setField(rollupService, "deleteRaw", false);
+        ReflectionTestUtils.setField(rollupService, "maxChunksPerRun", 2);
+        Inventory inventory = inventoryRepository.findAll().get(0);
+        // Far more empty days between the two first logs than one run may process
+        LocalDate longAgo = OLD_DAY.minusDays(1000);
+        inventoryLogRepository.save(log(inventory, InventoryActionType.CART_ADD, longAgo.atTime(12, 0), 4));
+
+        assertThat(rollupService.compact()).isEqualTo(2);
+        assertThat(aggregateRepository.findByLogDate(longAgo)).hasSize(1);
+        assertThat(aggregateRepository.findByLogDate(OLD_DAY)).hasSize(2);
+        assertThat(rollupService.compact()).isEqualTo(1);
+        assertThat(aggregateRepository.findAll()).hasSize(4);
+        assertThat(rollupService.compact()).isZero();
+    }
+}
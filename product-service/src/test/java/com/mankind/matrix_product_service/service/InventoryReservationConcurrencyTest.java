@@ -0,0 +1,172 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.CartReservationLineDTO;
+import com.mankind.api.product.dto.inventory.CartReservationRequestDTO;
+import com.mankind.api.product.dto.inventory.CartReservationResultDTO;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Runs without a test transaction so every reserver commits on its own connection
+@ProductServiceDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class InventoryReservationConcurrencyTest {
+    private static final int STOCK = 100;
+    private static final int RESERVERS = 400;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryLogRepository inventoryLogRepository;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    @AfterEach
+    public void tearDown() {
+        catalog.clear();
+    }
+
+    @Test
+    public void testParallelCartReservationsNeverOversell() throws Exception {
+        Long productId = catalog.productWithStock("DDR5 32GB", STOCK);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < RESERVERS; i++) {
+            long cartId = i;
+            attempts.add(executor.submit(() -> {
+                start.await();
+                try {
+                    inventoryService.reserveStockForCart(productId, BigDecimal.ONE, cartId, cartId);
+                    return true;
+                } catch (IllegalStateException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int reserved = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get(60, TimeUnit.SECONDS)) {
+                reserved++;
+            }
+        }
+        executor.shutdown();
+
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        assertThat(reserved).isEqualTo(STOCK);
+        assertThat(inventory.getAvailableQuantity()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(inventory.getReservedQuantity()).isEqualByComparingTo(BigDecimal.valueOf(STOCK));
+        assertThat(inventoryLogRepository.findByInventoryIdAndActionType(inventory.getId(), InventoryActionType.CART_ADD))
+                .hasSize(STOCK);
+    }
+
+    @Test
+    public void testGuardedUpdatesRejectWithoutChangingStock() {
+        Long productId = catalog.productWithStock("DDR5 32GB", 5);
+
+        inventoryService.reserveStockForCart(productId, new BigDecimal("3"), 1L, 1L);
+        assertThatThrownBy(() -> inventoryService.reserveStockForCart(productId, new BigDecimal("3"), 2L, 2L))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> inventoryService.updateReservedStockForCart(productId, new BigDecimal("3"),
+                new BigDecimal("6"), 1L, 1L))
+                .isInstanceOf(IllegalStateException.class);
+        // A cart without a reservation row is taken at its word, but cannot give back more than is reserved
+        assertThatThrownBy(() -> inventoryService.unreserveStockForCart(productId, new BigDecimal("4"), 2L, 2L))
+                .isInstanceOf(IllegalStateException.class);
+        // A tracked cart can only give back what it holds
+        inventoryService.unreserveStockForCart(productId, new BigDecimal("4"), 1L, 1L);
+        inventoryService.reserveStockForCart(productId, new BigDecimal("3"), 1L, 1L);
+
+        inventoryService.updateReservedStockForCart(productId, new BigDecimal("3"), new BigDecimal("1"), 1L, 1L);
+        Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+        assertThat(inventory.getAvailableQuantity()).isEqualByComparingTo("4");
+        assertThat(inventory.getReservedQuantity()).isEqualByComparingTo("1");
+    }
+
+    private CartReservationRequestDTO lines(Long... productIdAndQuantity) {
+        List<CartReservationLineDTO> lines = new ArrayList<>();
+        for (int i = 0; i < productIdAndQuantity.length; i += 2) {
+            lines.add(new CartReservationLineDTO(productIdAndQuantity[i], BigDecimal.valueOf(productIdAndQuantity[i + 1])));
+        }
+        return new CartReservationRequestDTO(lines);
+    }
+
+    @Test
+    public void testBatchReservationIsAllOrNothing() {
+        Long cpu = catalog.productWithStock("Ryzen 7 9700X", 5);
+        Long ram = catalog.productWithStock("DDR5 32GB", 1);
+
+        CartReservationResultDTO rejected = inventoryService.reserveStockForCartBatch(lines(ram, 2L, cpu, 2L), 1L, 1L);
+        assertThat(rejected.isReserved()).isFalse();
+        assertThat(rejected.getLines()).extracting(line -> line.getProductId(), line -> line.isReservable())
+                .containsExactly(tuple(cpu, true), tuple(ram, false));
+        assertThat(inventoryRepository.findByProductId(cpu).orElseThrow().getAvailableQuantity()).isEqualByComparingTo("5");
+
+        CartReservationResultDTO reserved = inventoryService.reserveStockForCartBatch(
+                lines(ram, 1L, cpu, 1L, cpu, 2L), 1L, 1L);
+        assertThat(reserved.isReserved()).isTrue();
+        assertThat(reserved.getLines()).extracting(line -> line.getAvailableQuantity().intValue())
+                .containsExactly(2, 0);
+        Inventory cpuInventory = inventoryRepository.findByProductId(cpu).orElseThrow();
+        assertThat(cpuInventory.getReservedQuantity()).isEqualByComparingTo("3");
+        assertThat(inventoryLogRepository.findByInventoryIdAndActionType(cpuInventory.getId(), InventoryActionType.CART_ADD))
+                .singleElement().satisfies(log -> assertThat(log.getCartId()).isEqualTo(1L));
+    }
+
+    @Test
+    public void testParallelBatchesInOppositeOrderDoNotDeadlock() throws Exception {
+        Long first = catalog.productWithStock("DDR5 32GB", STOCK);
+        Long second = catalog.productWithStock("DDR5 64GB", STOCK);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<CartReservationResultDTO>> attempts = new ArrayList<>();
+        for (int i = 0; i < RESERVERS; i++) {
+            long cartId = i;
+            CartReservationRequestDTO request = i % 2 == 0 ? lines(first, 1L, second, 1L) : lines(second, 1L, first, 1L);
+            attempts.add(executor.submit(() -> inventoryService.reserveStockForCartBatch(request, cartId, cartId)));
+        }
+        int reserved = 0;
+        for (Future<CartReservationResultDTO> attempt : attempts) {
+            if (attempt.get(60, TimeUnit.SECONDS).isReserved()) {
+                reserved++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(reserved).isEqualTo(STOCK);
+        for (Long productId : List.of(first, second)) {
+            Inventory inventory = inventoryRepository.findByProductId(productId).orElseThrow();
+            assertThat(inventory.getAvailableQuantity()).isEqualByComparingTo(BigDecimal.ZERO);
+            assertThat(inventory.getReservedQuantity()).isEqualByComparingTo(BigDecimal.valueOf(STOCK));
+        }
+    }
+}
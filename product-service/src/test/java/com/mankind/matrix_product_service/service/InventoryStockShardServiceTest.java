@@ -0,0 +1,226 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.InventoryResponseDTO;
+import com.mankind.matrix_product_service.model.CartReservation;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.InventoryLog.InventoryActionType;
+import com.mankind.matrix_product_service.model.InventoryStockShard;
+import com.mankind.matrix_product_service.repository.CartReservationRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.InventoryStockShardRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs without a test transaction so concurrent reservations commit on their own connections
+@ProductServiceDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class InventoryStockShardServiceTest {
+    // At most the connection pool size, so threads wait on row locks and not on connections
+    private static final int THREADS = 8;
+    private static final int SHARDS = 4;
+    private static final int STOCK = 100;
+    private static final int ATTEMPTS = 80;
+    private static final int BENCHMARK_RESERVATIONS = 400;
+    private static final Logger log = LoggerFactory.getLogger(InventoryStockShardServiceTest.class);
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryStockShardService stockShardService;
+
+    @Autowired
+    private InventoryStockShardRepository shardRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryLogRepository inventoryLogRepository;
+
+    @Autowired
+    private CartReservationExpiryService expiryService;
+
+    @Autowired
+    private CartReservationRepository cartReservationRepository;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    @AfterEach
+    public void tearDown() {
+        catalog.clear();
+    }
+
+    @Test
+    public void testConcurrentReservationsNeverOversellShardedStock() throws Exception {
+        Long productId = catalog.productWithStock("Game console", STOCK);
+        stockShardService.configure(productId, SHARDS);
+
+        int reserved = 0;
+        int succeeded = 0;
+        for (int quantity : reserveConcurrently(productId, ATTEMPTS)) {
+            reserved += quantity;
+            succeeded += quantity > 0 ? 1 : 0;
+        }
+
+        assertThat(reserved).isLessThanOrEqualTo(STOCK);
+        Inventory row = inventoryRepository.findByProductId(productId).orElseThrow();
+        List<InventoryStockShard> shards = shardRepository.findByProductId(productId);
+        BigDecimal shardAvailable = shards.stream().map(InventoryStockShard::getAvailableQuantity).reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal shardReserved = shards.stream().map(InventoryStockShard::getReservedQuantity).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(shards).allSatisfy(shard -> assertThat(shard.getAvailableQuantity().signum()).isNotNegative());
+        assertThat(row.isSharded()).isTrue();
+        InventoryResponseDTO totals = inventoryService.getInventoryByProductId(productId);
+        assertThat(totals.getAvailableQuantity()).isEqualByComparingTo(BigDecimal.valueOf(STOCK - reserved));
+        assertThat(totals.getReservedQuantity()).isEqualByComparingTo(BigDecimal.valueOf(reserved));
+        assertThat(row.getReservedQuantity().add(shardReserved)).isEqualByComparingTo(BigDecimal.valueOf(reserved));
+        assertThat(row.getAvailableQuantity().add(shardAvailable)).isEqualByComparingTo(BigDecimal.valueOf(STOCK - reserved));
+        assertThat(inventoryLogRepository.findByInventoryIdAndActionType(row.getId(), InventoryActionType.RESERVATION))
+                .hasSize(succeeded);
+    }
+
+    @Test
+    public void testShardedStockIsReservedAcrossShardsAndFoldedBack() {
+        Long productId = catalog.productWithStock("Game console", 10);
+        stockShardService.configure(productId, 4);
+        assertThat(shardRepository.findByProductId(productId)).extracting(InventoryStockShard::getAvailableQuantity)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactlyInAnyOrder(new BigDecimal("3"), new BigDecimal("3"), new BigDecimal("2"), new BigDecimal("2"));
+        assertThat(inventoryService.getInventoryByProductId(productId).getAvailableQuantity()).isEqualByComparingTo("10");
+
+        inventoryService.reserveStockForCart(productId, new BigDecimal("3"), 1L, 1L);
+        // No shard holds 6 on its own any more
+        inventoryService.reserveStockForCart(productId, new BigDecimal("6"), 2L, 2L);
+        assertThatThrownBy(() -> inventoryService.reserveStock(productId, new BigDecimal("2")))
+                .isInstanceOf(IllegalStateException.class);
+        inventoryService.unreserveStockForCart(productId, new BigDecimal("6"), 2L, 2L);
+
+        InventoryResponseDTO inventory = inventoryService.removeStock(productId, new BigDecimal("5"));
+        assertThat(inventory.getAvailableQuantity()).isEqualByComparingTo("2");
+        assertThat(inventory.getReservedQuantity()).isEqualByComparingTo("3");
+
+        stockShardService.configure(productId, 0);
+        assertThat(shardRepository.findByProductId(productId)).isEmpty();
+        assertThat(inventoryRepository.findByProductId(productId).orElseThrow())
+                .satisfies(row -> {
+                    assertThat(row.getAvailableQuantity()).isEqualByComparingTo("2");
+                    assertThat(row.getReservedQuantity()).isEqualByComparingTo("3");
+                });
+    }
+
+    @Test
+    public void testShardedReservationsAreCommittedAndExpiredWithoutNegativeStock() {
+        Long console = catalog.productWithStock("Game console", 12);
+        Long controller = catalog.productWithStock("Controller", 5);
+        stockShardService.configure(console, 4);
+        // Both console reservations are held on shards only: 2 fits one shard, 5 is taken across them
+        inventoryService.reserveStockForCart(console, new BigDecimal("2"), 1L, 1L);
+        inventoryService.reserveStockForCart(controller, BigDecimal.ONE, 1L, 1L);
+        inventoryService.reserveStockForCart(console, new BigDecimal("5"), 2L, 2L);
+
+        inventoryService.commitReservations(1L);
+        for (CartReservation reservation : cartReservationRepository.findAll()) {
+            reservation.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+            cartReservationRepository.save(reservation);
+        }
+        expiryService.releaseExpiredReservations();
+
+        Inventory row = inventoryRepository.findByProductId(console).orElseThrow();
+        List<InventoryStockShard> shards = shardRepository.findByProductId(console);
+        assertThat(row.getAvailableQuantity().signum()).isNotNegative();
+        assertThat(row.getReservedQuantity().signum()).isNotNegative();
+        assertThat(shards).allSatisfy(shard -> {
+            assertThat(shard.getAvailableQuantity().signum()).isNotNegative();
+            assertThat(shard.getReservedQuantity().signum()).isNotNegative();
+        });
+        assertThat(row.getSoldQuantity()).isEqualByComparingTo("2");
+        assertThat(inventoryService.getInventoryByProductId(console)).satisfies(inventory -> {
+            assertThat(inventory.getAvailableQuantity()).isEqualByComparingTo("10");
+            assertThat(inventory.getReservedQuantity()).isEqualByComparingTo("0");
+        });
+        assertThat(inventoryRepository.findByProductId(controller).orElseThrow()).satisfies(inventory -> {
+            assertThat(inventory.getReservedQuantity()).isEqualByComparingTo("0");
+            assertThat(inventory.getSoldQuantity()).isEqualByComparingTo("1");
+        });
+    }
+
+    /**
+     * Reserve from {@link #THREADS} threads at once and return the quantity each attempt got, 0 when rejected
+     */
+    private List<Integer> reserveConcurrently(Long productId, int attempts) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> reservations = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            // Larger quantities only fit across several shards once the shards run low
+            int quantity = 1 + i % 4;
+            reservations.add(executor.submit(() -> {
+                start.await();
+                try {
+                    inventoryService.reserveStock(productId, BigDecimal.valueOf(quantity));
+                    return quantity;
+                } catch (IllegalStateException e) {
+                    return 0;
+                }
+            }));
+        }
+        start.countDown();
+        List<Integer> reserved = new ArrayList<>();
+        try {
+            for (Future<Integer> reservation : reservations) {
+                // Anything but a rejection, a deadlock or lock timeout included, fails the test
+                reserved.add(reservation.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return reserved;
+    }
+
+    private long timeConcurrentReservations(String name, int shards) throws Exception {
+        // Enough stock that no attempt is rejected, so both runs do the same work
+        Long productId = catalog.productWithStock(name, 4 * BENCHMARK_RESERVATIONS);
+        stockShardService.configure(productId, shards);
+        long start = System.nanoTime();
+        List<Integer> reserved = reserveConcurrently(productId, BENCHMARK_RESERVATIONS);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertThat(reserved).doesNotContain(0);
+        return millis;
+    }
+
+    // Timing only, so it is left out of the regular build; run it with -Dbenchmarks=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    public void benchmarkOneVersusManyShards() throws Exception {
+        // Warm up the reservation path before measuring
+        timeConcurrentReservations("Warm-up console", SHARDS);
+
+        long oneShardMillis = timeConcurrentReservations("Single shard console", 1);
+        long manyShardsMillis = timeConcurrentReservations("Sharded console", SHARDS);
+        log.info("{} reservations from {} threads: 1 shard {} ms, {} shards {} ms",
+                BENCHMARK_RESERVATIONS, THREADS, oneShardMillis, SHARDS, manyShardsMillis);
+    }
+}
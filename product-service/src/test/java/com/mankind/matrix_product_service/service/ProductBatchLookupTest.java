@@ -0,0 +1,72 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.product.ProductDTO;
+import com.mankind.api.product.dto.product.ProductResponseDTO;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ProductServiceDataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ProductBatchLookupTest {
+    private static final int PRODUCTS = 12;
+    private static final int SPECIFICATIONS = 6;
+    private static final int IMAGES = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    private static List<String> images(int product) {
+        return IntStream.range(0, IMAGES).mapToObj(i -> "https://example.com/" + product + "-" + i + ".jpg").toList();
+    }
+
+    @Test
+    public void testBatchLoadsSpecificationsAndImagesWithoutMultiplyingRows() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName("Monitor " + i);
+            Map<String, String> specifications = new HashMap<>();
+            for (int j = 0; j < SPECIFICATIONS; j++) {
+                specifications.put("spec " + j, i + "-" + j);
+            }
+            product.setSpecifications(specifications);
+            product.setImages(images(i));
+            ids.add(catalog.productWithStock(product, 5));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ProductResponseDTO> products = productService.getProductsByIds(ids);
+
+        // products with category and inventory + specifications batch + images batch + subcategories batch
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(products).extracting(ProductResponseDTO::getId).containsExactlyElementsOf(ids);
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductResponseDTO product = products.get(i);
+            assertThat(product.getSpecifications()).hasSize(SPECIFICATIONS).containsEntry("spec 2", i + "-2");
+            assertThat(product.getImages()).doesNotHaveDuplicates().containsExactlyElementsOf(images(i));
+            assertThat(product.getInventoryStatus().getStatus()).isEqualTo("IN_STOCK");
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.inventory.InventoryAvailabilityDTO;
+import com.mankind.api.product.dto.product.ProductCursorPageDTO;
+import com.mankind.api.product.dto.product.ProductResponseDTO;
+import com.mankind.matrix_product_service.model.Category;
+import com.mankind.matrix_product_service.model.Inventory;
+import com.mankind.matrix_product_service.model.Product;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ProductServiceDataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ProductListingQueryCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    private Category root;
+    private Category category;
+    private Statistics statistics;
+    private List<Long> productIds;
+
+    @BeforeEach
+    public void setUp() {
+        // Create a category tree with a single child that holds all products
+        root = entityManager.persist(Category.builder().name("Electronics").build());
+        category = Category.builder().name("Phones").parent(root).build();
+        category = entityManager.persist(category);
+
+        productIds = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Product product = new Product();
+            product.setName("Phone " + i);
+            product.setCategoryId(category.getId());
+            product.setBrand("Brand " + (i % 3));
+            product.setFeatured(i % 2 == 0);
+            product.setSpecifications(new java.util.HashMap<>(Map.of("color", "Black", "storage", i + "GB", "ram", "8GB")));
+            product.setImages(new java.util.ArrayList<>(List.of("https://example.com/" + i + "-a.jpg", "https://example.com/" + i + "-b.jpg")));
+            entityManager.persist(product);
+            productIds.add(product.getId());
+
+            Inventory inventory = Inventory.builder()
+                    .product(product)
+                    .availableQuantity(BigDecimal.TEN)
+                    .price(BigDecimal.valueOf(100 + i))
+                    .currency("USD")
+                    .active(true)
+                    .build();
+            entityManager.persist(inventory);
+        }
+        entityManager.flush();
+        catalog.categoriesChanged(root.getId());
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private long countStatements(Runnable listing) {
+        entityManager.clear();
+        statistics.clear();
+        listing.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    public void testAllProductsStatementCountIsIndependentOfPageSize() {
+        long smallPage = countStatements(() -> productService.getAllProducts(PageRequest.of(0, 5)));
+        long largePage = countStatements(() -> {
+            Page<ProductResponseDTO> page = productService.getAllProducts(PageRequest.of(0, 40));
+            // Verify every lazy association was actually mapped
+            assertThat(page.getContent()).hasSize(40);
+            assertThat(page.getContent()).allSatisfy(dto -> {
+                assertThat(dto.getSpecifications()).hasSize(3);
+                assertThat(dto.getImages()).hasSize(2);
+                assertThat(dto.getCategory().getName()).isEqualTo("Phones");
+                assertThat(dto.getInventoryStatus().getStatus()).isEqualTo("IN_STOCK");
+            });
+        });
+
+        // page + count + specifications batch + images batch + subcategories batch
+        assertThat(largePage).isEqualTo(smallPage);
+        assertThat(largePage).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    public void testCategoryAndFeaturedStatementCountIsIndependentOfPageSize() {
+        long categorySmall = countStatements(() -> productService.getProductsByCategory(category.getId(), false, PageRequest.of(0, 5)));
+        long categoryLarge = countStatements(() -> productService.getProductsByCategory(category.getId(), false, PageRequest.of(0, 40)));
+        assertThat(categoryLarge).isEqualTo(categorySmall);
+
+        long featuredSmall = countStatements(() -> productService.getFeaturedProducts(PageRequest.of(0, 5)));
+        long featuredLarge = countStatements(() -> productService.getFeaturedProducts(PageRequest.of(0, 20)));
+        assertThat(featuredLarge).isEqualTo(featuredSmall);
+        assertThat(featuredLarge).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    public void testAvailabilityOfAListingPageIsOneQuery() {
+        Inventory soldOut = entityManager.getEntityManager()
+                .createQuery("SELECT i FROM Inventory i WHERE i.product.id = :productId", Inventory.class)
+                .setParameter("productId", productIds.get(0)).getSingleResult();
+        soldOut.setAvailableQuantity(BigDecimal.ZERO);
+        entityManager.flush();
+
+        List<Long> requested = new ArrayList<>(productIds.subList(0, 24));
+        requested.add(-1L);
+        List<InventoryAvailabilityDTO>[] availability = new List[1];
+        long statements = countStatements(() -> availability[0] = inventoryService.getAvailability(requested));
+        assertThat(statements).isEqualTo(1);
+        assertThat(availability[0]).extracting(InventoryAvailabilityDTO::getProductId).containsExactlyElementsOf(requested);
+        assertThat(availability[0].get(0).getStatus()).isEqualTo("OUT_OF_STOCK");
+        assertThat(availability[0].get(1).getStatus()).isEqualTo("IN_STOCK");
+        assertThat(availability[0].get(1).getAvailableQuantity()).isEqualByComparingTo("10");
+        assertThat(availability[0].get(1).getPrice()).isEqualByComparingTo("101");
+        assertThat(availability[0].get(24).getStatus()).isEqualTo("NO_INVENTORY");
+    }
+
+    @Test
+    public void testCursorPagingWalksAllProductsWithoutCountQuery() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        do {
+            String current = cursor;
+            ProductCursorPageDTO[] page = new ProductCursorPageDTO[1];
+            long statements = countStatements(() -> page[0] = productService.getAllProducts(current, 15));
+            // slice + specifications batch + images batch + subcategories batch, no count
+            assertThat(statements).isLessThanOrEqualTo(4);
+            page[0].getContent().forEach(dto -> seen.add(dto.getId()));
+            cursor = page[0].getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(40).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void testCursorPagingRejectsInvalidInput() {
+        assertThatThrownBy(() -> productService.getAllProducts("not-a-cursor!", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.getFeaturedProducts("", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testIncludeSubcategoriesQueriesTheWholeSubtreeAtOnce() {
+        assertThat(productService.getProductsByCategory(root.getId(), false, PageRequest.of(0, 10)).getTotalElements()).isZero();
+        // The first call also builds the category tree
+        productService.getProductsByCategory(root.getId(), true, PageRequest.of(0, 10));
+
+        long statements = countStatements(() -> {
+            Page<ProductResponseDTO> page = productService.getProductsByCategory(root.getId(), true, PageRequest.of(0, 10));
+            assertThat(page.getTotalElements()).isEqualTo(40);
+        });
+        assertThat(statements).isLessThanOrEqualTo(5);
+
+        ProductCursorPageDTO cursorPage = productService.getProductsByCategory(root.getId(), true, "", 10);
+        assertThat(cursorPage.getContent()).hasSize(10);
+        assertThat(cursorPage.isHasNext()).isTrue();
+    }
+}
@@ -0,0 +1,155 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.review.ReviewSummaryDTO;
+import com.mankind.matrix_product_service.model.Category;
+import com.mankind.matrix_product_service.model.Product;
+import com.mankind.matrix_product_service.model.Review;
+import com.mankind.matrix_product_service.repository.CategoryRepository;
+import com.mankind.matrix_product_service.repository.ProductRatingAggregateRepository;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import com.mankind.matrix_product_service.repository.ReviewRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+// Runs without a test transaction so the parallel rebuild workers see the committed rows
+@ProductServiceDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductRatingAggregateServiceTest {
+
+    @Autowired
+    private ProductRatingAggregateService aggregateService;
+
+    @Autowired
+    private ProductRatingAggregateRepository aggregateRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    @AfterEach
+    public void tearDown() {
+        catalog.clear();
+    }
+
+    private Review review(Product product, long userId, int rating) {
+        Review review = new Review();
+        review.setProduct(product);
+        review.setUserId(userId);
+        review.setRating(rating);
+        return reviewRepository.save(review);
+    }
+
+    @Test
+    public void testReviewChangesAdjustAggregateAndAverage() {
+        Category category = new Category();
+        category.setName("Processors");
+        category = categoryRepository.save(category);
+
+        Product product = new Product();
+        product.setName("Ryzen 9 7950X");
+        product.setCategoryId(category.getId());
+        product = productRepository.save(product);
+        Long productId = product.getId();
+
+        // The first change of a product without an aggregate row derives it from the reviews
+        Product reviewed = product;
+        transactionTemplate.executeWithoutResult(status -> {
+            review(reviewed, 1L, 5);
+            aggregateService.reviewAdded(productId, 5);
+        });
+        Review second = review(product, 2L, 3);
+        transactionTemplate.executeWithoutResult(status -> aggregateService.reviewAdded(productId, 3));
+        transactionTemplate.executeWithoutResult(status -> aggregateService.reviewChanged(productId, 3, 2));
+        second.setRating(2);
+        reviewRepository.save(second);
+
+        ReviewSummaryDTO summary = aggregateService.getSummary(productId);
+        assertThat(summary.getReviewCount()).isEqualTo(2);
+        assertThat(summary.getAverageRating()).isEqualTo(3.5);
+        assertThat(summary.getRatingHistogram()).containsExactly(
+                entry(1, 0L), entry(2, 1L), entry(3, 0L), entry(4, 0L), entry(5, 1L));
+        assertThat(productRepository.findById(productId).orElseThrow().getAverageRating()).isEqualTo(3.5);
+
+        reviewRepository.delete(second);
+        transactionTemplate.executeWithoutResult(status -> aggregateService.reviewRemoved(productId, 2));
+        assertThat(aggregateService.getSummary(productId).getAverageRating()).isEqualTo(5.0);
+
+        // A full rebuild reproduces the incrementally maintained totals
+        aggregateRepository.deleteAll();
+        aggregateService.rebuildAll();
+        ReviewSummaryDTO rebuilt = aggregateService.getSummary(productId);
+        assertThat(rebuilt.getReviewCount()).isEqualTo(1);
+        assertThat(rebuilt.getRatingHistogram().get(5)).isEqualTo(1L);
+        assertThat(productRepository.findById(productId).orElseThrow().getAverageRating()).isEqualTo(5.0);
+    }
+
+    @Test
+    public void testConcurrentFirstReviewsCreateOneAggregate() throws Exception {
+        Category category = new Category();
+        category.setName("Monitors");
+        category = categoryRepository.save(category);
+        Product product = new Product();
+        product.setName("UltraSharp U2723QE");
+        product.setCategoryId(category.getId());
+        Product saved = productRepository.save(product);
+
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (long userId = 1; userId <= 2; userId++) {
+                long reviewer = userId;
+                writes.add(executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                    review(saved, reviewer, 4);
+                    await(barrier);
+                    aggregateService.reviewAdded(saved.getId(), 4);
+                })));
+            }
+            for (Future<?> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ReviewSummaryDTO summary = aggregateService.getSummary(saved.getId());
+        assertThat(summary.getReviewCount()).isEqualTo(2);
+        assertThat(summary.getRatingHistogram().get(4)).isEqualTo(2L);
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
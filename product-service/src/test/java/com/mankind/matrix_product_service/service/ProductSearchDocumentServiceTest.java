@@ -0,0 +1,132 @@
+package com.mankind.matrix_product_service.service;
+
+import com.mankind.api.product.dto.category.CategoryDTO;
+import com.mankind.api.product.dto.inventory.InventoryDTO;
+import com.mankind.api.product.dto.product.ProductDTO;
+import com.mankind.api.product.dto.product.ProductSummaryDTO;
+import com.mankind.matrix_product_service.model.ProductSearchDocument;
+import com.mankind.matrix_product_service.repository.ProductSearchDocumentRepository;
+import com.mankind.matrix_product_service.support.ProductServiceDataJpaTest;
+import com.mankind.matrix_product_service.support.TestCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs without a test transaction so the read model updates actually commit
+@ProductServiceDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductSearchDocumentServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductSearchDocumentService productSearchDocumentService;
+
+    @Autowired
+    private ProductSearchDocumentRepository documentRepository;
+
+    @Autowired
+    private TestCatalog catalog;
+
+    @AfterEach
+    public void tearDown() {
+        catalog.clear();
+    }
+
+    private CategoryDTO category(String name, Long parentId) {
+        CategoryDTO category = new CategoryDTO();
+        category.setName(name);
+        category.setParentId(parentId);
+        return category;
+    }
+
+    @Test
+    public void testDocumentFollowsProductInventoryAndCategoryChanges() {
+        Long rootId = categoryService.createCategory(category("Electronics", null)).getId();
+        Long phonesId = categoryService.createCategory(category("Phones", rootId)).getId();
+
+        ProductDTO product = new ProductDTO();
+        product.setName("iPhone 13 Pro");
+        product.setBrand("Apple");
+        product.setCategoryId(phonesId);
+        product.setImages(List.of("https://example.com/front.jpg", "https://example.com/back.jpg"));
+        Long productId = productService.createProduct(product).getId();
+
+        ProductSearchDocument document = documentRepository.findById(productId).orElseThrow();
+        assertThat(document.getCategoryPath()).isEqualTo("Electronics > Phones");
+        assertThat(document.getImageUrl()).isEqualTo("https://example.com/front.jpg");
+        assertThat(document.getStockStatus()).isEqualTo("NO_INVENTORY");
+
+        InventoryDTO inventory = new InventoryDTO();
+        inventory.setPrice(new BigDecimal("999.99"));
+        inventory.setCurrency("USD");
+        inventory.setAvailableQuantity(BigDecimal.TEN);
+        inventoryService.createInventory(productId, inventory);
+
+        Page<ProductSummaryDTO> summaries = productSearchDocumentService.getProductSummaries(
+                rootId, true, false, PageRequest.of(0, 10));
+        assertThat(summaries.getContent()).singleElement().satisfies(summary -> {
+            assertThat(summary.getId()).isEqualTo(productId);
+            assertThat(summary.getPrice()).isEqualByComparingTo("999.99");
+            assertThat(summary.getStockStatus()).isEqualTo("IN_STOCK");
+        });
+
+        categoryService.updateCategory(phonesId, category("Smartphones", rootId));
+        assertThat(documentRepository.findById(productId).orElseThrow().getCategoryPath())
+                .isEqualTo("Electronics > Smartphones");
+
+        productService.deleteProduct(productId);
+        assertThat(documentRepository.findById(productId)).isEmpty();
+    }
+
+    @Test
+    public void testBackfillUpsertsMissingDocumentsAndDropsOrphans() {
+        Long categoryId = categoryService.createCategory(category("Phones", null)).getId();
+        List<Long> productIds = new ArrayList<>();
+        for (String name : List.of("Pixel 7", "Pixel 8", "Pixel 9")) {
+            ProductDTO product = new ProductDTO();
+            product.setName(name);
+            product.setCategoryId(categoryId);
+            productIds.add(productService.createProduct(product).getId());
+        }
+
+        // Two documents lost, one out of date, and one left behind by a product that no longer exists
+        documentRepository.deleteById(productIds.get(1));
+        documentRepository.deleteById(productIds.get(2));
+        ProductSearchDocument stale = documentRepository.findById(productIds.get(0)).orElseThrow();
+        stale.setName("Outdated");
+        documentRepository.save(stale);
+        ProductSearchDocument orphan = new ProductSearchDocument();
+        orphan.setProductId(productIds.get(2) + 1000);
+        orphan.setName("Removed product");
+        orphan.setCategoryId(categoryId);
+        orphan.setStockStatus("NO_INVENTORY");
+        orphan.setUpdatedAt(LocalDateTime.now());
+        documentRepository.save(orphan);
+
+        productSearchDocumentService.backfill();
+
+        assertThat(documentRepository.findAll()).extracting(ProductSearchDocument::getProductId)
+                .containsExactlyInAnyOrderElementsOf(productIds);
+        assertThat(documentRepository.findById(productIds.get(0)).orElseThrow().getName()).isEqualTo("Pixel 7");
+        assertThat(documentRepository.findById(productIds.get(1)).orElseThrow().getCategoryPath()).isEqualTo("Phones");
+    }
+}
@@ -0,0 +1,32 @@
+package com.mankind.matrix_product_service.support;
+
+import com.mankind.matrix_product_service.service.RoleVerificationService;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * JPA slice with the product-service services from {@link ProductServiceTestConfig} and a mocked
+ * role check, so admin-only service calls can be used to set up data. Test classes with the same
+ * properties share one application context.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ProductServiceTestConfig.class)
+@MockitoBean(types = RoleVerificationService.class)
+public @interface ProductServiceDataJpaTest {
+
+    @AliasFor(annotation = DataJpaTest.class, attribute = "properties")
+    String[] properties() default {};
+}
@@ -0,0 +1,36 @@
+package com.mankind.matrix_product_service.support;
+
+import com.mankind.matrix_product_service.config.CacheConfig;
+import com.mankind.matrix_product_service.mapper.CategoryMapperImpl;
+import com.mankind.matrix_product_service.mapper.InventoryLogMapperImpl;
+import com.mankind.matrix_product_service.mapper.InventoryMapperImpl;
+import com.mankind.matrix_product_service.mapper.ProductMapperImpl;
+import com.mankind.matrix_product_service.service.CartReservationExpiryService;
+import com.mankind.matrix_product_service.service.CartReservationService;
+import com.mankind.matrix_product_service.service.CategoryService;
+import com.mankind.matrix_product_service.service.CategoryTreeService;
+import com.mankind.matrix_product_service.service.InventoryAuditService;
+import com.mankind.matrix_product_service.service.InventoryLogAppender;
+import com.mankind.matrix_product_service.service.InventoryLogRollupService;
+import com.mankind.matrix_product_service.service.InventoryService;
+import com.mankind.matrix_product_service.service.InventoryStockShardService;
+import com.mankind.matrix_product_service.service.ProductRatingAggregateService;
+import com.mankind.matrix_product_service.service.ProductSearchDocumentService;
+import com.mankind.matrix_product_service.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The catalog and inventory services the JPA slice tests run against, with the mappers and caches
+ * they need and the {@link TestCatalog} fixture
+ */
+@TestConfiguration
+@Import({ProductService.class, CategoryService.class, CategoryTreeService.class, ProductSearchDocumentService.class,
+        ProductRatingAggregateService.class, InventoryService.class, InventoryLogAppender.class,
+        InventoryStockShardService.class, CartReservationService.class, CartReservationExpiryService.class,
+        InventoryAuditService.class, InventoryLogRollupService.class,
+        ProductMapperImpl.class, CategoryMapperImpl.class, InventoryMapperImpl.class, InventoryLogMapperImpl.class,
+        CacheConfig.class, SimpleMeterRegistry.class, TestCatalog.class})
+public class ProductServiceTestConfig {
+}
@@ -0,0 +1,108 @@
+package com.mankind.matrix_product_service.support;
+
+import com.mankind.api.product.dto.inventory.InventoryDTO;
+import com.mankind.api.product.dto.product.ProductDTO;
+import com.mankind.matrix_product_service.event.CategoryChangedEvent;
+import com.mankind.matrix_product_service.model.Category;
+import com.mankind.matrix_product_service.repository.CartReservationRepository;
+import com.mankind.matrix_product_service.repository.CategoryRepository;
+import com.mankind.matrix_product_service.repository.InventoryLogRepository;
+import com.mankind.matrix_product_service.repository.InventoryRepository;
+import com.mankind.matrix_product_service.repository.InventorySnapshotRepository;
+import com.mankind.matrix_product_service.repository.InventoryStockShardRepository;
+import com.mankind.matrix_product_service.repository.ProductRatingAggregateRepository;
+import com.mankind.matrix_product_service.repository.ProductRepository;
+import com.mankind.matrix_product_service.repository.ProductSearchDocumentRepository;
+import com.mankind.matrix_product_service.repository.ReviewRepository;
+import com.mankind.matrix_product_service.service.CategoryTreeService;
+import com.mankind.matrix_product_service.service.InventoryService;
+import com.mankind.matrix_product_service.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Creates products through the services, like the admin API does, and removes everything again
+ * for tests that run without a test transaction
+ */
+@RequiredArgsConstructor
+public class TestCatalog {
+    public static final BigDecimal PRICE = new BigDecimal("49.99");
+
+    private final ProductService productService;
+    private final InventoryService inventoryService;
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryLogRepository inventoryLogRepository;
+    private final InventoryStockShardRepository shardRepository;
+    private final InventorySnapshotRepository snapshotRepository;
+    private final CartReservationRepository cartReservationRepository;
+    private final ProductSearchDocumentRepository documentRepository;
+    private final ProductRatingAggregateRepository ratingAggregateRepository;
+    private final ReviewRepository reviewRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final CacheManager cacheManager;
+
+    public Long category(String name) {
+        Long categoryId = categoryRepository.save(Category.builder().name(name).build()).getId();
+        categoriesChanged(categoryId);
+        return categoryId;
+    }
+
+    /**
+     * Drop the category tree an earlier test in the shared context may have built, after categories
+     * were written without CategoryService
+     */
+    public void categoriesChanged(Long categoryId) {
+        categoryTreeService.onCategoryChanged(new CategoryChangedEvent(categoryId));
+    }
+
+    /**
+     * An active product in a category of its own with an inventory of the given stock at {@link #PRICE}
+     */
+    public Long productWithStock(String name, int stock) {
+        ProductDTO product = new ProductDTO();
+        product.setName(name);
+        return productWithStock(product, stock);
+    }
+
+    public Long productWithStock(ProductDTO product, int stock) {
+        if (product.getCategoryId() == null) {
+            product.setCategoryId(category(product.getName() + " category"));
+        }
+        Long productId = productService.createProduct(product).getId();
+
+        InventoryDTO inventory = new InventoryDTO();
+        inventory.setPrice(PRICE);
+        inventory.setCurrency("USD");
+        inventory.setAvailableQuantity(BigDecimal.valueOf(stock));
+        inventoryService.createInventory(productId, inventory);
+        return productId;
+    }
+
+    public void clear() {
+        snapshotRepository.deleteAll();
+        documentRepository.deleteAll();
+        shardRepository.deleteAll();
+        cartReservationRepository.deleteAll();
+        inventoryLogRepository.deleteAllInBatch();
+        ratingAggregateRepository.deleteAll();
+        reviewRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        // Subcategories go with their root
+        categoryRepository.deleteAll(categoryRepository.findAll().stream()
+                .filter(category -> category.getParent() == null)
+                .toList());
+        categoriesChanged(null);
+        // Products created by the next test must not be served from this one's cache
+        cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .forEach(Cache::clear);
+    }
+}
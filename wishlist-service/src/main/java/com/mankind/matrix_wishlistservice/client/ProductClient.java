@@ -5,9 +5,15 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @FeignClient(name = "product-service", url = "${PRODUCT_SERVICE_URL:http://localhost:8080}")
 public interface ProductClient {
     @GetMapping("/products/{id}")
     ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id);
+
+    @GetMapping("/products/batch")
+    ResponseEntity<List<ProductResponseDTO>> getProductsByIds(@RequestParam("ids") List<Long> ids);
 }